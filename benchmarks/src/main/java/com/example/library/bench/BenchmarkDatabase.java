@@ -0,0 +1,152 @@
+package com.example.library.bench;
+
+import ch.vorburger.mariaDB4j.DB;
+import ch.vorburger.mariaDB4j.DBConfigurationBuilder;
+import com.example.library.datagen.SyntheticDataGenerator;
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.sql.Connection;
+import java.sql.DriverManager;
+import java.sql.SQLException;
+import java.sql.Statement;
+import java.util.List;
+import java.util.stream.Stream;
+import org.jooq.SQLDialect;
+import org.jooq.impl.DSL;
+
+/**
+ * Database the benchmarks run against. With {@code -Dbench.jdbcUrl} (plus {@code bench.user} and
+ * {@code bench.password}) an existing MySQL that already holds the schema and data is used as is.
+ * Otherwise an embedded MariaDB is started on a free port, the migrations from {@code bench.sqlDir}
+ * (default {@code ../sql}) are applied and {@link SyntheticDataGenerator} fills it: by default 50,000
+ * members, 20,000 books, 1,000,000 loans over two years and a 10,000 notification backlog, sized with
+ * {@code bench.members}, {@code bench.books}, {@code bench.loans} and {@code bench.notifications}.
+ */
+final class BenchmarkDatabase implements AutoCloseable {
+    private static final String SCHEMA = "booksdb";
+    private static final String URL_OPTIONS =
+            "?useSSL=false&allowPublicKeyRetrieval=true&serverTimezone=Asia/Ho_Chi_Minh"
+                    + "&rewriteBatchedStatements=true";
+
+    private final DB embedded;
+    private final String url;
+    private final String user;
+    private final String password;
+    private final String dialect;
+
+    private BenchmarkDatabase(DB embedded, String url, String user, String password, String dialect) {
+        this.embedded = embedded;
+        this.url = url;
+        this.user = user;
+        this.password = password;
+        this.dialect = dialect;
+    }
+
+    static BenchmarkDatabase start() throws Exception {
+        String external = System.getProperty("bench.jdbcUrl");
+        if (external != null && !external.isBlank()) {
+            return new BenchmarkDatabase(null, external,
+                    System.getProperty("bench.user", "root"),
+                    System.getProperty("bench.password", ""),
+                    "MYSQL");
+        }
+
+        DBConfigurationBuilder config = DBConfigurationBuilder.newBuilder();
+        config.setPort(0);
+        DB db = DB.newEmbeddedDB(config.build());
+        db.start();
+        String serverUrl = "jdbc:mysql://localhost:" + config.getPort() + "/";
+        BenchmarkDatabase database = new BenchmarkDatabase(db, serverUrl + SCHEMA + URL_OPTIONS, "root", "", "MARIADB");
+        try {
+            database.migrate(serverUrl + URL_OPTIONS, Path.of(System.getProperty("bench.sqlDir", "../sql")));
+            try (Connection connection = database.connect()) {
+                new SyntheticDataGenerator(DSL.using(connection, SQLDialect.MARIADB), settings()).generate();
+            }
+        } catch (Exception e) {
+            database.close();
+            throw e;
+        }
+        return database;
+    }
+
+    private static SyntheticDataGenerator.Settings settings() {
+        return new SyntheticDataGenerator.Settings(
+                Integer.getInteger("bench.members", 50_000),
+                Integer.getInteger("bench.books", 20_000),
+                Long.getLong("bench.loans", 1_000_000L),
+                2,
+                Integer.getInteger("bench.notifications", 10_000),
+                50_000,
+                1.1,
+                0.7,
+                42L,
+                SyntheticDataGenerator.LoadMode.BATCH,
+                5_000,
+                false);
+    }
+
+    String url() {
+        return url;
+    }
+
+    String user() {
+        return user;
+    }
+
+    String password() {
+        return password;
+    }
+
+    /** jOOQ dialect for {@code library.jooq.dialect}. */
+    String dialect() {
+        return dialect;
+    }
+
+    Connection connect() throws SQLException {
+        return DriverManager.getConnection(url, user, password);
+    }
+
+    /** Applies every {@code NNN_*.sql} migration in order, skipping the sample data script. */
+    private void migrate(String serverUrl, Path sqlDir) throws IOException, SQLException {
+        List<Path> scripts;
+        try (Stream<Path> files = Files.list(sqlDir)) {
+            scripts = files
+                    .filter(p -> p.getFileName().toString().matches("\\d{3}_.*\\.sql"))
+                    .filter(p -> !p.getFileName().toString().contains("sample_data"))
+                    .sorted()
+                    .toList();
+        }
+        try (Connection connection = DriverManager.getConnection(serverUrl, user, password);
+             Statement statement = connection.createStatement()) {
+            for (Path script : scripts) {
+                for (String sql : statements(Files.readString(script, StandardCharsets.UTF_8))) {
+                    statement.execute(sql);
+                }
+            }
+        }
+    }
+
+    private static List<String> statements(String script) {
+        StringBuilder sql = new StringBuilder();
+        for (String line : script.split("\\R")) {
+            if (!line.stripLeading().startsWith("--")) {
+                sql.append(line).append('\n');
+            }
+        }
+        // MariaDB has no MySQL 8 collation names
+        String compatible = sql.toString().replace("utf8mb4_0900_ai_ci", "utf8mb4_unicode_ci");
+        return Stream.of(compatible.split(";\\s*\\n"))
+                .map(s -> s.strip().replaceFirst(";$", ""))
+                .filter(s -> !s.isEmpty())
+                .toList();
+    }
+
+    @Override
+    public void close() throws Exception {
+        if (embedded != null) {
+            embedded.stop();
+        }
+    }
+}
@@ -0,0 +1,56 @@
+package com.example.library.bench;
+
+import com.example.library.dto.BookListItem;
+import com.example.library.dto.PagedResult;
+import com.example.library.jooq.enums.BookStatus;
+import com.example.library.service.BookService;
+import java.math.BigDecimal;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.TimeUnit;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+import static com.example.library.jooq.tables.Book.BOOK;
+
+/** {@code BookService.search} as the books page and {@code GET /api/books} call it. */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations = 3, time = 5)
+@Measurement(iterations = 5, time = 5)
+@Fork(1)
+public class BookSearchBenchmark {
+    @Param({"none", "title", "author", "category", "price", "title+available", "deep-page"})
+    public String filter;
+
+    private BookService books;
+
+    @Setup
+    public void setUp(LibraryState library) {
+        books = library.bean(BookService.class);
+    }
+
+    @Benchmark
+    public PagedResult<BookListItem> search() {
+        ThreadLocalRandom random = ThreadLocalRandom.current();
+        return switch (filter) {
+            case "title" -> books.search("lich su", null, null, null, null, null, 0, 20, BOOK.TITLE.asc());
+            case "author" -> books.search(null, 1L + random.nextInt(500), null, null, null, null, 0, 20, BOOK.TITLE.asc());
+            case "category" -> books.search(null, null, 1L + random.nextInt(30), null, null, null, 0, 20, BOOK.PRICE.desc());
+            case "price" -> books.search(null, null, null, null,
+                    BigDecimal.valueOf(100_000), BigDecimal.valueOf(150_000), 0, 20, BOOK.PRICE.asc());
+            case "title+available" -> books.search("du lieu", null, null, BookStatus.AVAILABLE, null, null, 0, 20, BOOK.TITLE.asc());
+            case "deep-page" -> books.search(null, null, null, null, null, null, 500, 20, BOOK.TITLE.asc());
+            default -> books.search(null, null, null, null, null, null, 0, 20, BOOK.TITLE.asc());
+        };
+    }
+}
@@ -0,0 +1,67 @@
+package com.example.library.bench;
+
+import com.example.library.service.LoanService;
+import java.util.ArrayList;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Set;
+import java.util.concurrent.TimeUnit;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+/**
+ * One checkout followed by returning every loan it created, so stock and member standing stay level
+ * across iterations. Run with {@code -t N} to measure contention on the popular rows.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations = 3, time = 5)
+@Measurement(iterations = 5, time = 5)
+@Fork(1)
+public class BorrowReturnBenchmark {
+    @Param({"1", "3"})
+    public int booksPerCheckout;
+
+    private LibraryState library;
+    private LoanService loans;
+
+    @Setup
+    public void setUp(LibraryState library) {
+        this.library = library;
+        this.loans = library.bean(LoanService.class);
+    }
+
+    @Benchmark
+    public List<Long> borrowThenReturn() {
+        List<Long> loanIds = loans.borrow(library.eligibleMember(), books(), null, null);
+        for (Long loanId : loanIds) {
+            loans.returnBook(loanId);
+        }
+        return loanIds;
+    }
+
+    @Benchmark
+    public List<Long> borrowThenBatchReturn() {
+        List<Long> loanIds = loans.borrow(library.eligibleMember(), books(), null, null);
+        loans.returnBooks(loanIds, null);
+        return loanIds;
+    }
+
+    private List<Long> books() {
+        Set<Long> ids = new LinkedHashSet<>();
+        while (ids.size() < booksPerCheckout) {
+            ids.add(library.borrowableBook());
+        }
+        return new ArrayList<>(ids);
+    }
+}
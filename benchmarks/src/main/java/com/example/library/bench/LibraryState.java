@@ -0,0 +1,96 @@
+package com.example.library.bench;
+
+import com.example.library.LibraryApplication;
+import com.example.library.util.Timezones;
+import java.sql.Connection;
+import java.sql.ResultSet;
+import java.sql.SQLException;
+import java.sql.Statement;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.TimeZone;
+import java.util.concurrent.ThreadLocalRandom;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.springframework.boot.WebApplicationType;
+import org.springframework.boot.builder.SpringApplicationBuilder;
+import org.springframework.context.ConfigurableApplicationContext;
+
+/**
+ * The application context every benchmark shares within a fork: real services, caches and indexes
+ * over {@link BenchmarkDatabase}, with scheduled jobs and mail sending switched off.
+ */
+@State(Scope.Benchmark)
+public class LibraryState {
+    private BenchmarkDatabase database;
+    private ConfigurableApplicationContext context;
+    private long[] eligibleMembers;
+    private long[] borrowableBooks;
+
+    @Setup(Level.Trial)
+    public void start() throws Exception {
+        TimeZone.setDefault(TimeZone.getTimeZone(Timezones.ASIA_HO_CHI_MINH));
+        database = BenchmarkDatabase.start();
+        context = new SpringApplicationBuilder(LibraryApplication.class)
+                .web(WebApplicationType.NONE)
+                .run("--spring.datasource.url=" + database.url(),
+                        "--spring.datasource.username=" + database.user(),
+                        "--spring.datasource.password=" + database.password(),
+                        "--spring.mail.host=",
+                        "--library.scheduling.enabled=false",
+                        "--library.jooq.dialect=" + database.dialect(),
+                        "--logging.level.com.example.library=WARN");
+        eligibleMembers = ids("""
+                SELECT m.MEMBER_ID FROM MEMBER m
+                WHERE m.STATUS = 'ACTIVE'
+                  AND NOT EXISTS (SELECT 1 FROM LOAN l WHERE l.MEMBER_ID = m.MEMBER_ID AND l.RETURN_DATE IS NULL)
+                LIMIT 10000""");
+        borrowableBooks = ids("SELECT BOOK_ID FROM BOOK WHERE STATUS = 'AVAILABLE' AND STOCK >= 5 LIMIT 10000");
+    }
+
+    @TearDown(Level.Trial)
+    public void stop() throws Exception {
+        if (context != null) {
+            context.close();
+        }
+        if (database != null) {
+            database.close();
+        }
+    }
+
+    public <T> T bean(Class<T> type) {
+        return context.getBean(type);
+    }
+
+    public Connection connect() throws SQLException {
+        return database.connect();
+    }
+
+    /** A member with no open loans, so the standing check never rejects the checkout. */
+    public long eligibleMember() {
+        return eligibleMembers[ThreadLocalRandom.current().nextInt(eligibleMembers.length)];
+    }
+
+    /** A book with enough copies that concurrent benchmark threads do not run it out of stock. */
+    public long borrowableBook() {
+        return borrowableBooks[ThreadLocalRandom.current().nextInt(borrowableBooks.length)];
+    }
+
+    private long[] ids(String sql) throws SQLException {
+        List<Long> ids = new ArrayList<>();
+        try (Connection connection = database.connect();
+             Statement statement = connection.createStatement();
+             ResultSet rs = statement.executeQuery(sql)) {
+            while (rs.next()) {
+                ids.add(rs.getLong(1));
+            }
+        }
+        if (ids.isEmpty()) {
+            throw new IllegalStateException("Benchmark data has no rows for: " + sql);
+        }
+        return ids.stream().mapToLong(Long::longValue).toArray();
+    }
+}
@@ -0,0 +1,285 @@
+package com.example.library.bench;
+
+import java.io.IOException;
+import java.net.URI;
+import java.net.URLEncoder;
+import java.net.http.HttpClient;
+import java.net.http.HttpRequest;
+import java.net.http.HttpResponse;
+import java.nio.charset.StandardCharsets;
+import java.time.Duration;
+import java.time.LocalDate;
+import java.util.ArrayDeque;
+import java.util.Arrays;
+import java.util.EnumMap;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.stream.IntStream;
+
+/**
+ * Closed-loop load driver for a running application: each client sends one request, waits for the
+ * response, optionally thinks, and repeats, so throughput is whatever the server sustains at that
+ * concurrency. The mix is book searches ({@code GET /api/books}), checkouts
+ * ({@code POST /api/loans/borrow}) and returns of the client's own loans
+ * ({@code POST /api/loans/{id}/return}). Latency percentiles per operation are printed at the end;
+ * the warmup period is not recorded. Loans still open when the run ends are returned.
+ *
+ * <pre>
+ * java -cp target/benchmarks.jar com.example.library.bench.LoadDriver \
+ *     --url=http://localhost:8080 --clients=32 --duration=120 --warmup=20 \
+ *     --members=100000 --books=50000 --mix=80:10:10 --think-ms=0
+ * </pre>
+ *
+ * Member and book ids are drawn from 1..members and 1..books (the synthetic data generator's ids),
+ * with book popularity skewed towards a few titles. Only 409 responses (no copy left, member not
+ * eligible) count as rejected; any other non-2xx response, including 400, is an error.
+ */
+public final class LoadDriver {
+    private static final String[] QUERIES = {
+            "lich su", "du lieu", "kinh te", "tam ly", "khoa hoc", "viet nam", "lap trinh", "van hoa",
+            "thanh pho", "hanh trinh", "bi mat", "giac mo", "ng", "tr", "nguyen"
+    };
+    private static final int LOAN_DAYS = 14;
+
+    enum Operation {
+        SEARCH,
+        BORROW,
+        RETURN
+    }
+
+    enum Outcome {
+        OK,
+        REJECTED,
+        ERROR
+    }
+
+    private final HttpClient http;
+    private final String baseUrl;
+    private final int members;
+    private final int books;
+    private final int[] mix;
+    private final long thinkMs;
+
+    private LoadDriver(Map<String, String> options) {
+        this.baseUrl = options.getOrDefault("url", "http://localhost:8080").replaceAll("/+$", "");
+        this.members = Integer.parseInt(options.getOrDefault("members", "100000"));
+        this.books = Integer.parseInt(options.getOrDefault("books", "50000"));
+        this.mix = Arrays.stream(options.getOrDefault("mix", "80:10:10").split(":"))
+                .mapToInt(Integer::parseInt)
+                .toArray();
+        if (mix.length != 3 || Arrays.stream(mix).sum() <= 0) {
+            throw new IllegalArgumentException("--mix must be search:borrow:return weights, e.g. 80:10:10");
+        }
+        this.thinkMs = Long.parseLong(options.getOrDefault("think-ms", "0"));
+        this.http = HttpClient.newBuilder()
+                .connectTimeout(Duration.ofSeconds(5))
+                .executor(Executors.newVirtualThreadPerTaskExecutor())
+                .build();
+    }
+
+    public static void main(String[] args) throws Exception {
+        Map<String, String> options = new HashMap<>();
+        for (String arg : args) {
+            if (!arg.startsWith("--") || !arg.contains("=")) {
+                throw new IllegalArgumentException("Expected --name=value, got: " + arg);
+            }
+            options.put(arg.substring(2, arg.indexOf('=')), arg.substring(arg.indexOf('=') + 1));
+        }
+        int clients = Integer.parseInt(options.getOrDefault("clients", "16"));
+        long warmupSec = Long.parseLong(options.getOrDefault("warmup", "10"));
+        long durationSec = Long.parseLong(options.getOrDefault("duration", "60"));
+        new LoadDriver(options).run(clients, warmupSec, durationSec);
+    }
+
+    private void run(int clients, long warmupSec, long durationSec) throws Exception {
+        long start = System.nanoTime();
+        long recordFrom = start + Duration.ofSeconds(warmupSec).toNanos();
+        long stopAt = recordFrom + Duration.ofSeconds(durationSec).toNanos();
+        System.out.printf(Locale.ROOT, "Driving %s with %d clients: %ds warmup, %ds measured, mix %s%n",
+                baseUrl, clients, warmupSec, durationSec, Arrays.toString(mix));
+
+        List<Future<Client>> running;
+        try (ExecutorService executor = Executors.newVirtualThreadPerTaskExecutor()) {
+            running = IntStream.range(0, clients)
+                    .mapToObj(i -> executor.submit(() -> new Client().run(recordFrom, stopAt)))
+                    .toList();
+        }
+        Map<Operation, Stats> totals = new EnumMap<>(Operation.class);
+        for (Operation op : Operation.values()) {
+            totals.put(op, new Stats());
+        }
+        for (Future<Client> future : running) {
+            Client client = future.get();
+            for (Operation op : Operation.values()) {
+                totals.get(op).merge(client.stats.get(op));
+            }
+        }
+        report(totals, durationSec);
+    }
+
+    private void report(Map<Operation, Stats> totals, long durationSec) {
+        System.out.printf(Locale.ROOT, "%-8s %9s %9s %9s %9s %9s %9s %9s %9s %9s %9s%n",
+                "op", "requests", "ok", "rejected", "errors", "req/s", "p50 ms", "p90 ms", "p99 ms", "p99.9 ms", "max ms");
+        for (Map.Entry<Operation, Stats> e : totals.entrySet()) {
+            Stats s = e.getValue();
+            long[] sorted = s.latencies.sorted();
+            System.out.printf(Locale.ROOT, "%-8s %9d %9d %9d %9d %9.1f %9.2f %9.2f %9.2f %9.2f %9.2f%n",
+                    e.getKey().name().toLowerCase(Locale.ROOT),
+                    sorted.length, s.counts[0], s.counts[1], s.counts[2],
+                    sorted.length / (double) Math.max(durationSec, 1),
+                    percentile(sorted, 50), percentile(sorted, 90), percentile(sorted, 99),
+                    percentile(sorted, 99.9), percentile(sorted, 100));
+        }
+    }
+
+    private static double percentile(long[] sorted, double p) {
+        if (sorted.length == 0) {
+            return 0;
+        }
+        int index = (int) Math.ceil(p / 100.0 * sorted.length) - 1;
+        return sorted[Math.max(0, Math.min(index, sorted.length - 1))] / 1_000_000.0;
+    }
+
+    /** One closed-loop client with its own open loans and private, unsynchronised stats. */
+    private final class Client {
+        private final ArrayDeque<Long> openLoans = new ArrayDeque<>();
+        private final Map<Operation, Stats> stats = new EnumMap<>(Operation.class);
+
+        private Client() {
+            for (Operation op : Operation.values()) {
+                stats.put(op, new Stats());
+            }
+        }
+
+        private Client run(long recordFrom, long stopAt) throws InterruptedException {
+            ThreadLocalRandom random = ThreadLocalRandom.current();
+            while (System.nanoTime() < stopAt) {
+                Operation op = pick(random);
+                if (op == Operation.RETURN && openLoans.isEmpty()) {
+                    op = Operation.BORROW;
+                }
+                long started = System.nanoTime();
+                Outcome outcome = execute(op, random);
+                long elapsed = System.nanoTime() - started;
+                if (started >= recordFrom) {
+                    stats.get(op).record(elapsed, outcome);
+                }
+                if (thinkMs > 0) {
+                    Thread.sleep(thinkMs);
+                }
+            }
+            while (!openLoans.isEmpty()) {
+                send(post("/api/loans/" + openLoans.poll() + "/return", ""));
+            }
+            return this;
+        }
+
+        private Operation pick(ThreadLocalRandom random) {
+            int roll = random.nextInt(mix[0] + mix[1] + mix[2]);
+            return roll < mix[0] ? Operation.SEARCH : roll < mix[0] + mix[1] ? Operation.BORROW : Operation.RETURN;
+        }
+
+        private Outcome execute(Operation op, ThreadLocalRandom random) {
+            return switch (op) {
+                case SEARCH -> {
+                    String q = QUERIES[random.nextInt(QUERIES.length)];
+                    int page = random.nextInt(10) == 0 ? random.nextInt(50) : 0;
+                    yield send(HttpRequest.newBuilder(URI.create(baseUrl + "/api/books?q="
+                            + URLEncoder.encode(q, StandardCharsets.UTF_8) + "&page=" + page + "&size=20")).GET().build()).outcome;
+                }
+                case BORROW -> {
+                    long memberId = 1 + random.nextInt(members);
+                    long bookId = 1 + (long) (books * Math.pow(random.nextDouble(), 3));
+                    LocalDate today = LocalDate.now();
+                    Response response = send(post("/api/loans/borrow",
+                            "{\"memberId\":" + memberId + ",\"bookIds\":[" + bookId + "],\"borrowDate\":\"" + today
+                                    + "\",\"dueDate\":\"" + today.plusDays(LOAN_DAYS) + "\"}"));
+                    if (response.outcome == Outcome.OK) {
+                        for (String id : response.body.replaceAll("[\\[\\]\\s]", "").split(",")) {
+                            if (!id.isEmpty()) {
+                                openLoans.add(Long.parseLong(id));
+                            }
+                        }
+                    }
+                    yield response.outcome;
+                }
+                case RETURN -> send(post("/api/loans/" + openLoans.poll() + "/return", "")).outcome;
+            };
+        }
+
+        private HttpRequest post(String path, String json) {
+            return HttpRequest.newBuilder(URI.create(baseUrl + path))
+                    .header("Content-Type", "application/json")
+                    .timeout(Duration.ofSeconds(30))
+                    .POST(HttpRequest.BodyPublishers.ofString(json))
+                    .build();
+        }
+
+        private Response send(HttpRequest request) {
+            try {
+                HttpResponse<String> response = http.send(request, HttpResponse.BodyHandlers.ofString());
+                int status = response.statusCode();
+                Outcome outcome = status / 100 == 2 ? Outcome.OK
+                        : status == 409 ? Outcome.REJECTED
+                        : Outcome.ERROR;
+                return new Response(outcome, response.body());
+            } catch (IOException e) {
+                return new Response(Outcome.ERROR, "");
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+                return new Response(Outcome.ERROR, "");
+            }
+        }
+    }
+
+    private record Response(Outcome outcome, String body) {}
+
+    private static final class Stats {
+        private final LongList latencies = new LongList();
+        private final long[] counts = new long[Outcome.values().length];
+
+        void record(long nanos, Outcome outcome) {
+            latencies.add(nanos);
+            counts[outcome.ordinal()]++;
+        }
+
+        void merge(Stats other) {
+            latencies.addAll(other.latencies);
+            for (int i = 0; i < counts.length; i++) {
+                counts[i] += other.counts[i];
+            }
+        }
+    }
+
+    private static final class LongList {
+        private long[] values = new long[1024];
+        private int size;
+
+        void add(long value) {
+            if (size == values.length) {
+                values = Arrays.copyOf(values, size * 2);
+            }
+            values[size++] = value;
+        }
+
+        void addAll(LongList other) {
+            if (size + other.size > values.length) {
+                values = Arrays.copyOf(values, Math.max(values.length * 2, size + other.size));
+            }
+            System.arraycopy(other.values, 0, values, size, other.size);
+            size += other.size;
+        }
+
+        long[] sorted() {
+            long[] copy = Arrays.copyOf(values, size);
+            Arrays.sort(copy);
+            return copy;
+        }
+    }
+}
@@ -0,0 +1,47 @@
+package com.example.library.bench;
+
+import com.example.library.dto.LoanListItem;
+import com.example.library.dto.PagedResult;
+import com.example.library.service.LoanService;
+import java.util.concurrent.TimeUnit;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+/** {@code LoanService.list} over the full loan history. */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations = 3, time = 5)
+@Measurement(iterations = 5, time = 5)
+@Fork(1)
+public class LoanListBenchmark {
+    @Param({"", "BORROWED", "OVERDUE", "RETURNED"})
+    public String status;
+
+    @Param({"", "nguyen"})
+    public String q;
+
+    @Param({"0", "1000"})
+    public int page;
+
+    private LoanService loans;
+
+    @Setup
+    public void setUp(LibraryState library) {
+        loans = library.bean(LoanService.class);
+    }
+
+    @Benchmark
+    public PagedResult<LoanListItem> list() {
+        return loans.list(q, status, page, 20);
+    }
+}
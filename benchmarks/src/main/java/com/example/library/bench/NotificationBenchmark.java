@@ -0,0 +1,81 @@
+package com.example.library.bench;
+
+import com.example.library.service.NotificationService;
+import java.sql.Connection;
+import java.sql.PreparedStatement;
+import java.sql.SQLException;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+import org.jooq.Record;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Warmup;
+
+import static com.example.library.jooq.tables.Notification.NOTIFICATION;
+
+/**
+ * Enqueueing single notifications and claiming batches from the pending backlog. Claims are handed
+ * back after each invocation so every claim sees the same backlog.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations = 3, time = 5)
+@Measurement(iterations = 5, time = 5)
+@Fork(1)
+public class NotificationBenchmark {
+    private static final AtomicLong SEQUENCE = new AtomicLong();
+
+    @Param({"50", "200"})
+    public int claimSize;
+
+    private LibraryState library;
+    private NotificationService notifications;
+    private String processId;
+
+    @Setup
+    public void setUp(LibraryState library) {
+        this.library = library;
+        this.notifications = library.bean(NotificationService.class);
+    }
+
+    @Benchmark
+    public boolean queueNotification() {
+        long n = SEQUENCE.incrementAndGet();
+        long memberId = library.eligibleMember();
+        // distinct subjects so the daily dedup key does not turn every enqueue into a no-op
+        return notifications.queueNotification(memberId, "member" + memberId + "@example.com",
+                "[Library] Benchmark enqueue #" + n, "Benchmark body " + n);
+    }
+
+    @Benchmark
+    public List<Record> claimBatch() {
+        processId = NotificationService.newProcessId();
+        return notifications.claimBatch(processId, 300, 240, claimSize);
+    }
+
+    @TearDown(Level.Invocation)
+    public void releaseClaims() throws SQLException {
+        if (processId == null) {
+            return;
+        }
+        try (Connection connection = library.connect();
+             PreparedStatement release = connection.prepareStatement(
+                     "UPDATE " + NOTIFICATION.getName() + " SET PROCESS_ID = NULL, LOCKED_AT = NULL WHERE PROCESS_ID = ?")) {
+            release.setString(1, processId);
+            release.executeUpdate();
+        }
+        processId = null;
+    }
+}
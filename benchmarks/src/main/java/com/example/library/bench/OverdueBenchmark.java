@@ -0,0 +1,39 @@
+package com.example.library.bench;
+
+import com.example.library.scheduler.OverdueScheduler;
+import java.util.concurrent.TimeUnit;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+/**
+ * One full {@code markOverdueDaily} run per measurement. A completed checkpoint restarts the scan
+ * from the first loan, so every run covers the whole overdue set; notices queued by the warmup run
+ * are deduplicated afterwards, which leaves the measured runs dominated by the scan and updates.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.SingleShotTime)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations = 1)
+@Measurement(iterations = 3)
+@Fork(1)
+public class OverdueBenchmark {
+    private OverdueScheduler scheduler;
+
+    @Setup
+    public void setUp(LibraryState library) {
+        scheduler = library.bean(OverdueScheduler.class);
+    }
+
+    @Benchmark
+    public void markOverdueDaily() {
+        scheduler.markOverdueDaily();
+    }
+}
@@ -0,0 +1,9 @@
+USE booksdb;
+
+-- Keyset pagination: every seekable sort is (sort key, primary key).
+ALTER TABLE BOOK
+    ADD INDEX IX_BOOK_PRICE (PRICE, BOOK_ID),
+    ADD INDEX IX_BOOK_STOCK (STOCK, BOOK_ID);
+
+ALTER TABLE LOAN
+    ADD INDEX IX_LOAN_DUE_SEEK (DUE_DATE, LOAN_ID);
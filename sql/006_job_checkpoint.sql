@@ -0,0 +1,12 @@
+USE booksdb;
+
+-- Last committed chunk of each daily scheduler scan, so an interrupted run resumes where it stopped.
+CREATE TABLE IF NOT EXISTS JOB_CHECKPOINT (
+  JOB_NAME VARCHAR(64) NOT NULL,
+  RUN_DATE DATE NOT NULL,
+  LAST_ID BIGINT NOT NULL DEFAULT 0,
+  PROCESSED BIGINT NOT NULL DEFAULT 0,
+  COMPLETED BOOLEAN NOT NULL DEFAULT FALSE,
+  UPDATED_AT DATETIME NOT NULL DEFAULT CURRENT_TIMESTAMP,
+  PRIMARY KEY (JOB_NAME, RUN_DATE)
+);
@@ -0,0 +1,5 @@
+USE booksdb;
+
+-- SKIP LOCKED claims walk pending notifications oldest first.
+ALTER TABLE NOTIFICATION
+    ADD INDEX IX_NOTIFICATION_CREATED (CREATED_AT);
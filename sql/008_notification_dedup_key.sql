@@ -0,0 +1,10 @@
+USE booksdb;
+
+-- 16-byte SHA-256 prefix of (member, kind, loan, day); enqueue is INSERT IGNORE against UK_NOTIFICATION_DEDUP.
+ALTER TABLE NOTIFICATION
+    ADD COLUMN DEDUP_KEY BINARY(16) NULL,
+    ADD CONSTRAINT UK_NOTIFICATION_DEDUP UNIQUE (DEDUP_KEY);
+
+ALTER TABLE NOTIFICATION_HISTORY
+    ADD COLUMN DEDUP_KEY BINARY(16) NULL,
+    ADD INDEX IX_NH_DEDUP (DEDUP_KEY);
@@ -0,0 +1,28 @@
+USE booksdb;
+
+-- Per-member borrowing standing, recomputed from LOAN on borrow/return/overdue and cached in memory
+-- so the borrow eligibility check does not scan the member's loans.
+CREATE TABLE IF NOT EXISTS MEMBER_STANDING (
+  MEMBER_ID BIGINT PRIMARY KEY,
+  OPEN_LOANS INT NOT NULL DEFAULT 0,
+  EARLIEST_DUE DATETIME NULL,
+  OUTSTANDING_FINE DECIMAL(12,2) NOT NULL DEFAULT 0.00,
+  UPDATED_AT DATETIME NOT NULL DEFAULT CURRENT_TIMESTAMP,
+  CONSTRAINT FK_STANDING_MEMBER FOREIGN KEY (MEMBER_ID) REFERENCES MEMBER(MEMBER_ID)
+    ON UPDATE CASCADE ON DELETE CASCADE
+);
+
+-- Covers the per-member recompute (open loans, earliest due date, accrued fine).
+ALTER TABLE LOAN
+    ADD INDEX IX_LOAN_MEMBER_OPEN (MEMBER_ID, RETURN_DATE, DUE_DATE);
+
+INSERT INTO MEMBER_STANDING (MEMBER_ID, OPEN_LOANS, EARLIEST_DUE, OUTSTANDING_FINE)
+SELECT MEMBER_ID, COUNT(*), MIN(DUE_DATE), SUM(FINE_AMOUNT)
+FROM LOAN
+WHERE RETURN_DATE IS NULL
+GROUP BY MEMBER_ID
+ON DUPLICATE KEY UPDATE
+  OPEN_LOANS = VALUES(OPEN_LOANS),
+  EARLIEST_DUE = VALUES(EARLIEST_DUE),
+  OUTSTANDING_FINE = VALUES(OUTSTANDING_FINE),
+  UPDATED_AT = CURRENT_TIMESTAMP;
@@ -0,0 +1,39 @@
+USE booksdb;
+
+-- Per-day, per-book loan counters behind the dashboard charts, kept up to date in the borrow/return
+-- transactions and reconciled from LOAN by a nightly job. BORROWED/RETURNED/FINES are bucketed on the
+-- borrow/return day; UNRETURNED on the due day (loans due that day and still out, i.e. overdue once
+-- the day has passed).
+CREATE TABLE IF NOT EXISTS LOAN_DAILY_STATS (
+  STAT_DATE DATE NOT NULL,
+  BOOK_ID BIGINT NOT NULL,
+  BORROWED INT NOT NULL DEFAULT 0,
+  RETURNED INT NOT NULL DEFAULT 0,
+  UNRETURNED INT NOT NULL DEFAULT 0,
+  FINES DECIMAL(14,2) NOT NULL DEFAULT 0.00,
+  PRIMARY KEY (STAT_DATE, BOOK_ID)
+);
+
+-- Day-range scans for the backfill / reconcile job.
+ALTER TABLE LOAN
+    ADD INDEX IX_LOAN_BORROW_DATE (BORROW_DATE),
+    ADD INDEX IX_LOAN_RETURN_DATE (RETURN_DATE);
+
+INSERT INTO LOAN_DAILY_STATS (STAT_DATE, BOOK_ID, BORROWED, RETURNED, UNRETURNED, FINES)
+SELECT STAT_DATE, BOOK_ID, SUM(BORROWED), SUM(RETURNED), SUM(UNRETURNED), SUM(FINES)
+FROM (
+  SELECT DATE(BORROW_DATE) AS STAT_DATE, BOOK_ID, COUNT(*) AS BORROWED, 0 AS RETURNED, 0 AS UNRETURNED, 0 AS FINES
+  FROM LOAN WHERE BORROW_DATE IS NOT NULL GROUP BY DATE(BORROW_DATE), BOOK_ID
+  UNION ALL
+  SELECT DATE(RETURN_DATE), BOOK_ID, 0, COUNT(*), 0, SUM(FINE_AMOUNT)
+  FROM LOAN WHERE RETURN_DATE IS NOT NULL GROUP BY DATE(RETURN_DATE), BOOK_ID
+  UNION ALL
+  SELECT DATE(DUE_DATE), BOOK_ID, 0, 0, COUNT(*), 0
+  FROM LOAN WHERE RETURN_DATE IS NULL AND DUE_DATE IS NOT NULL GROUP BY DATE(DUE_DATE), BOOK_ID
+) d
+GROUP BY STAT_DATE, BOOK_ID
+ON DUPLICATE KEY UPDATE
+  BORROWED = VALUES(BORROWED),
+  RETURNED = VALUES(RETURNED),
+  UNRETURNED = VALUES(UNRETURNED),
+  FINES = VALUES(FINES);
@@ -0,0 +1,16 @@
+USE booksdb;
+
+-- Fine terms are fixed per loan at checkout (daily rate after category / member-tier overrides, grace
+-- days, cap), so the accrued fine of an open loan is derived from its due date when read instead of
+-- being rewritten by the overdue job every day. FINE_AMOUNT now holds the fine settled at return.
+-- Existing loans keep the previous flat policy: 5,000 VND per late day, no grace, no cap.
+ALTER TABLE LOAN
+    ADD COLUMN FINE_RATE DECIMAL(12,2) NOT NULL DEFAULT 5000.00,
+    ADD COLUMN FINE_GRACE_DAYS INT NOT NULL DEFAULT 0,
+    ADD COLUMN FINE_CAP DECIMAL(12,2) NULL;
+
+-- Member tier for per-tier rates (library.fines.tier-percent).
+ALTER TABLE MEMBER
+    ADD COLUMN TIER VARCHAR(32) NOT NULL DEFAULT 'STANDARD';
+
+UPDATE LOAN SET FINE_AMOUNT = 0.00 WHERE RETURN_DATE IS NULL AND FINE_AMOUNT <> 0.00;
@@ -3,14 +3,25 @@ package com.example.library.config;
 import org.jooq.DSLContext;
 import org.jooq.SQLDialect;
 import org.jooq.impl.DSL;
+import org.jooq.impl.DefaultConfiguration;
+import org.jooq.impl.DefaultExecuteListenerProvider;
+import org.springframework.beans.factory.annotation.Value;
 import org.springframework.context.annotation.Bean;
 import org.springframework.context.annotation.Configuration;
+import org.springframework.jdbc.datasource.TransactionAwareDataSourceProxy;
 import javax.sql.DataSource;
 
 @Configuration
 public class JooqConfig {
     @Bean
-    public DSLContext dslContext(DataSource dataSource) {
-        return DSL.using(dataSource, SQLDialect.MYSQL);
+    public DSLContext dslContext(DataSource dataSource,
+                                 QueryMetricsListener queryMetrics,
+                                 @Value("${library.jooq.dialect:MYSQL}") SQLDialect dialect) {
+        DefaultConfiguration configuration = new DefaultConfiguration();
+        // Proxy so jOOQ statements join Spring-managed transactions (@Transactional, TransactionTemplate).
+        configuration.set(new TransactionAwareDataSourceProxy(dataSource));
+        configuration.set(dialect);
+        configuration.set(new DefaultExecuteListenerProvider(queryMetrics));
+        return DSL.using(configuration);
     }
 }
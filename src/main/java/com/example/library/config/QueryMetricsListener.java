@@ -0,0 +1,139 @@
+package com.example.library.config;
+
+import io.micrometer.core.instrument.DistributionSummary;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Timer;
+import java.util.Locale;
+import java.util.concurrent.TimeUnit;
+import org.jooq.ExecuteContext;
+import org.jooq.ExecuteListener;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+
+/**
+ * Times every jOOQ execution as {@code library.db.query}, tagged by statement kind and by the
+ * application method that issued it, records fetched/affected rows as {@code library.db.query.rows},
+ * and logs the SQL of anything slower than {@code library.db.slow-query-ms}. Lazy fetches are timed
+ * until their cursor closes, so export queries include the time spent streaming.
+ */
+@Component
+public class QueryMetricsListener implements ExecuteListener {
+    private static final long serialVersionUID = 1L;
+    private static final Logger log = LoggerFactory.getLogger(QueryMetricsListener.class);
+    private static final String APP_PACKAGE = "com.example.library.";
+    private static final String OWN_PACKAGE = QueryMetricsListener.class.getPackageName() + ".";
+    private static final String STATE = QueryMetricsListener.class.getName();
+    private static final int MAX_LOGGED_SQL = 2_000;
+    private static final StackWalker WALKER = StackWalker.getInstance();
+
+    // ExecuteListener is Serializable, but this listener lives in the Spring context and is never serialized
+    private final transient MeterRegistry meterRegistry;
+    private final long slowQueryNanos;
+
+    public QueryMetricsListener(MeterRegistry meterRegistry,
+                                @Value("${library.db.slow-query-ms:200}") long slowQueryMs) {
+        this.meterRegistry = meterRegistry;
+        this.slowQueryNanos = TimeUnit.MILLISECONDS.toNanos(Math.max(slowQueryMs, 0));
+    }
+
+    @Override
+    public void start(ExecuteContext ctx) {
+        ctx.data(STATE, new Execution(caller(), System.nanoTime()));
+    }
+
+    @Override
+    public void recordEnd(ExecuteContext ctx) {
+        if (ctx.data(STATE) instanceof Execution execution) {
+            execution.fetched++;
+        }
+    }
+
+    @Override
+    public void exception(ExecuteContext ctx) {
+        if (ctx.data(STATE) instanceof Execution execution) {
+            execution.failed = true;
+        }
+    }
+
+    @Override
+    public void end(ExecuteContext ctx) {
+        if (!(ctx.data(STATE) instanceof Execution execution)) {
+            return;
+        }
+        long elapsed = System.nanoTime() - execution.startedAt;
+        String sql = ctx.sql();
+        String statement = statementKind(sql);
+        long rows = ctx.rows() >= 0 ? ctx.rows() : execution.fetched;
+
+        Timer.builder("library.db.query")
+                .tag("statement", statement)
+                .tag("caller", execution.caller)
+                .tag("outcome", execution.failed ? "error" : "success")
+                .register(meterRegistry)
+                .record(elapsed, TimeUnit.NANOSECONDS);
+        DistributionSummary.builder("library.db.query.rows")
+                .tag("statement", statement)
+                .tag("caller", execution.caller)
+                .register(meterRegistry)
+                .record(rows);
+
+        if (elapsed >= slowQueryNanos && sql != null) {
+            log.warn("Slow {} from {} took {} ms ({} rows): {}",
+                    statement, execution.caller, TimeUnit.NANOSECONDS.toMillis(elapsed), rows, abbreviate(sql));
+        }
+    }
+
+    /** First application frame outside this package, e.g. {@code LoanService.borrowLocked}. */
+    private static String caller() {
+        return WALKER.walk(frames -> frames
+                .filter(f -> f.getClassName().startsWith(APP_PACKAGE)
+                        && !f.getClassName().startsWith(OWN_PACKAGE)
+                        && !f.getClassName().contains("$$"))
+                .findFirst()
+                .map(f -> simpleName(f.getClassName()) + "." + methodName(f.getMethodName()))
+                .orElse("other"));
+    }
+
+    private static String simpleName(String className) {
+        return className.substring(className.lastIndexOf('.') + 1);
+    }
+
+    /** {@code lambda$borrow$0} is reported as {@code borrow}. */
+    private static String methodName(String method) {
+        if (method.startsWith("lambda$")) {
+            int end = method.indexOf('$', 7);
+            return end > 7 ? method.substring(7, end) : method;
+        }
+        return method;
+    }
+
+    private static String statementKind(String sql) {
+        if (sql == null) {
+            return "batch";
+        }
+        String trimmed = sql.stripLeading();
+        int end = 0;
+        while (end < trimmed.length() && Character.isLetter(trimmed.charAt(end))) {
+            end++;
+        }
+        return end == 0 ? "other" : trimmed.substring(0, end).toLowerCase(Locale.ROOT);
+    }
+
+    private static String abbreviate(String sql) {
+        return sql.length() <= MAX_LOGGED_SQL ? sql : sql.substring(0, MAX_LOGGED_SQL) + "... (" + sql.length() + " chars)";
+    }
+
+    private static final class Execution {
+        private final String caller;
+        private final long startedAt;
+        private long fetched;
+        private boolean failed;
+
+        private Execution(String caller, long startedAt) {
+            this.caller = caller;
+            this.startedAt = startedAt;
+        }
+    }
+}
@@ -0,0 +1,21 @@
+package com.example.library.config;
+
+import java.lang.annotation.Documented;
+import java.lang.annotation.ElementType;
+import java.lang.annotation.Retention;
+import java.lang.annotation.RetentionPolicy;
+import java.lang.annotation.Target;
+import org.springframework.transaction.annotation.Transactional;
+
+/**
+ * Runs the method in a read-only transaction, which {@link ReplicaDataSourceConfig} routes to a
+ * read replica that is within the lag bound (primary otherwise). Called from inside a read-write
+ * transaction it joins that transaction and stays on the primary, so borrow/return never read from
+ * a replica. Only for reads that tolerate a few seconds of staleness: lists, exports, charts.
+ */
+@Target({ElementType.METHOD, ElementType.TYPE})
+@Retention(RetentionPolicy.RUNTIME)
+@Documented
+@Transactional(readOnly = true)
+public @interface ReadReplica {
+}
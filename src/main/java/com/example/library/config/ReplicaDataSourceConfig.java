@@ -0,0 +1,73 @@
+package com.example.library.config;
+
+import com.zaxxer.hikari.HikariDataSource;
+import com.zaxxer.hikari.metrics.micrometer.MicrometerMetricsTrackerFactory;
+import io.micrometer.core.instrument.MeterRegistry;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import javax.sql.DataSource;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnExpression;
+import org.springframework.boot.autoconfigure.jdbc.DataSourceProperties;
+import org.springframework.boot.context.properties.ConfigurationProperties;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+import org.springframework.context.annotation.Primary;
+import org.springframework.jdbc.datasource.LazyConnectionDataSourceProxy;
+
+/**
+ * Read replicas, active once {@code library.datasource.replica.urls} lists at least one JDBC url.
+ * The primary pool is built from {@code spring.datasource.*} as Boot would; the exposed
+ * {@link DataSource} routes read-only transactions ({@link ReadReplica}) to a replica picked by
+ * {@link ReplicaLagMonitor} and everything else to the primary. The lazy proxy defers fetching the
+ * physical connection to the first statement, after Spring has marked the transaction read-only.
+ */
+@Configuration
+@ConditionalOnExpression("!'${library.datasource.replica.urls:}'.isBlank()")
+public class ReplicaDataSourceConfig {
+
+    @Bean
+    @ConfigurationProperties("spring.datasource.hikari")
+    public HikariDataSource primaryDataSource(DataSourceProperties properties) {
+        return properties.initializeDataSourceBuilder().type(HikariDataSource.class).build();
+    }
+
+    @Bean
+    public ReplicaLagMonitor replicaLagMonitor(DataSourceProperties properties,
+                                               MeterRegistry meterRegistry,
+                                               @Value("${library.datasource.replica.urls}") String urls,
+                                               @Value("${library.datasource.replica.username:}") String username,
+                                               @Value("${library.datasource.replica.password:}") String password,
+                                               @Value("${library.datasource.replica.pool-size:10}") int poolSize,
+                                               @Value("${library.datasource.replica.max-lag-seconds:5}") long maxLagSeconds,
+                                               @Value("${library.datasource.replica.connection-timeout-ms:1000}") long connectionTimeoutMs,
+                                               @Value("${library.datasource.replica.check-interval-ms:5000}") long checkIntervalMs,
+                                               @Value("${library.scheduling.enabled:true}") boolean periodicChecks) {
+        List<ReplicaLagMonitor.Replica> replicas = new ArrayList<>();
+        List<String> jdbcUrls = Arrays.stream(urls.split(",")).map(String::trim).filter(u -> !u.isEmpty()).toList();
+        for (int i = 0; i < jdbcUrls.size(); i++) {
+            HikariDataSource pool = new HikariDataSource();
+            pool.setPoolName("library-replica-" + i);
+            pool.setJdbcUrl(jdbcUrls.get(i));
+            pool.setUsername(username.isBlank() ? properties.determineUsername() : username);
+            pool.setPassword(password.isBlank() ? properties.determinePassword() : password);
+            pool.setMaximumPoolSize(Math.max(poolSize, 1));
+            pool.setReadOnly(true);
+            // a replica that is down at startup must not stop the application; the monitor skips it
+            pool.setInitializationFailTimeout(-1);
+            // ... nor stall a read or the lag check for Hikari's 30s default while it stays down
+            pool.setConnectionTimeout(Math.max(connectionTimeoutMs, 250));
+            pool.setValidationTimeout(Math.max(connectionTimeoutMs, 250));
+            pool.setMetricsTrackerFactory(new MicrometerMetricsTrackerFactory(meterRegistry));
+            replicas.add(new ReplicaLagMonitor.Replica("replica-" + i, pool));
+        }
+        return new ReplicaLagMonitor(replicas, maxLagSeconds, periodicChecks ? checkIntervalMs : 0, meterRegistry);
+    }
+
+    @Bean
+    @Primary
+    public DataSource dataSource(HikariDataSource primaryDataSource, ReplicaLagMonitor replicaLagMonitor) {
+        return new LazyConnectionDataSourceProxy(new ReplicaRoutingDataSource(primaryDataSource, replicaLagMonitor));
+    }
+}
@@ -0,0 +1,150 @@
+package com.example.library.config;
+
+import com.zaxxer.hikari.HikariDataSource;
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import jakarta.annotation.PreDestroy;
+import java.sql.Connection;
+import java.sql.ResultSet;
+import java.sql.SQLException;
+import java.sql.Statement;
+import java.util.List;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.event.EventListener;
+
+/**
+ * Polls each replica's replication lag and hands out the healthy ones round-robin. A replica is
+ * healthy while it answers and is at most {@code library.datasource.replica.max-lag-seconds}
+ * behind; one that is down, lagging or has its replication thread stopped is skipped until a later
+ * check finds it caught up. Replicas start unhealthy, so reads stay on the primary until the first
+ * check (also when scheduling is disabled and only the startup check runs). Checks run on the
+ * monitor's own thread, so a slow or unreachable replica never holds up the shared task scheduler.
+ */
+public class ReplicaLagMonitor {
+    private static final Logger log = LoggerFactory.getLogger(ReplicaLagMonitor.class);
+
+    private final List<Replica> replicas;
+    private final long maxLagSeconds;
+    private final Counter fallbacks;
+    private final long checkIntervalMs;
+    private final AtomicInteger next = new AtomicInteger();
+    private final ScheduledExecutorService checker = Executors.newSingleThreadScheduledExecutor(
+            Thread.ofPlatform().name("replica-lag-check").daemon().factory());
+
+    /** {@code checkIntervalMs <= 0} runs the startup check only. */
+    ReplicaLagMonitor(List<Replica> replicas, long maxLagSeconds, long checkIntervalMs, MeterRegistry meterRegistry) {
+        this.replicas = List.copyOf(replicas);
+        this.maxLagSeconds = Math.max(maxLagSeconds, 0);
+        this.checkIntervalMs = checkIntervalMs;
+        this.fallbacks = meterRegistry.counter("library.datasource.replica.fallbacks");
+        for (Replica replica : this.replicas) {
+            Gauge.builder("library.datasource.replica.lag", replica, r -> r.lagSeconds)
+                    .tag("replica", replica.name())
+                    .baseUnit("seconds")
+                    .register(meterRegistry);
+        }
+    }
+
+    List<Replica> replicas() {
+        return replicas;
+    }
+
+    /** Name of a healthy replica, or {@code null} when a read has to fall back to the primary. */
+    String pick() {
+        int size = replicas.size();
+        int start = Math.floorMod(next.getAndIncrement(), size);
+        for (int i = 0; i < size; i++) {
+            Replica replica = replicas.get((start + i) % size);
+            if (replica.healthy) {
+                return replica.name();
+            }
+        }
+        fallbacks.increment();
+        return null;
+    }
+
+    @EventListener(ApplicationReadyEvent.class)
+    public void start() {
+        if (checkIntervalMs > 0) {
+            checker.scheduleWithFixedDelay(this::checkSafely, 0, checkIntervalMs, TimeUnit.MILLISECONDS);
+        } else {
+            checker.execute(this::checkSafely);
+        }
+    }
+
+    private void checkSafely() {
+        try {
+            check();
+        } catch (RuntimeException ex) {
+            // an escaping exception would cancel every later check
+            log.warn("Replica lag check failed", ex);
+        }
+    }
+
+    private void check() {
+        for (Replica replica : replicas) {
+            double lag = lagSeconds(replica);
+            boolean healthy = lag >= 0 && lag <= maxLagSeconds;
+            if (healthy != replica.healthy) {
+                if (healthy) {
+                    log.info("Replica {} is serving reads again (lag {}s)", replica.name(), lag);
+                } else {
+                    log.warn("Replica {} taken out of rotation (lag {}s, max {}s)", replica.name(), lag, maxLagSeconds);
+                }
+            }
+            replica.lagSeconds = lag;
+            replica.healthy = healthy;
+        }
+    }
+
+    /** Seconds behind the source; 0 for a server that is not replicating, -1 when unknown. */
+    private double lagSeconds(Replica replica) {
+        try (Connection connection = replica.dataSource().getConnection();
+             Statement statement = connection.createStatement()) {
+            statement.setQueryTimeout(2);
+            try (ResultSet rs = statement.executeQuery("SHOW REPLICA STATUS")) {
+                if (!rs.next()) {
+                    return 0;
+                }
+                long seconds = rs.getLong("Seconds_Behind_Source");
+                return rs.wasNull() ? -1 : seconds;
+            }
+        } catch (SQLException ex) {
+            log.debug("Lag check failed for replica {}", replica.name(), ex);
+            return -1;
+        }
+    }
+
+    @PreDestroy
+    public void close() {
+        checker.shutdownNow();
+        replicas.forEach(replica -> replica.dataSource().close());
+    }
+
+    static final class Replica {
+        private final String name;
+        private final HikariDataSource dataSource;
+        private volatile boolean healthy;
+        private volatile double lagSeconds = -1;
+
+        Replica(String name, HikariDataSource dataSource) {
+            this.name = name;
+            this.dataSource = dataSource;
+        }
+
+        String name() {
+            return name;
+        }
+
+        HikariDataSource dataSource() {
+            return dataSource;
+        }
+    }
+}
@@ -0,0 +1,15 @@
+package com.example.library.config;
+
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.context.annotation.Configuration;
+import org.springframework.scheduling.annotation.EnableScheduling;
+
+/**
+ * Scheduled jobs run unless {@code library.scheduling.enabled=false} (benchmarks, data generation),
+ * on a pool of {@code spring.task.scheduling.pool.size} threads rather than Boot's single one.
+ */
+@Configuration
+@EnableScheduling
+@ConditionalOnProperty(name = "library.scheduling.enabled", havingValue = "true", matchIfMissing = true)
+public class SchedulingConfig {
+}
@@ -1,14 +1,22 @@
 package com.example.library.controller.api;
 
 import com.example.library.dto.BookDto;
+import com.example.library.dto.BookImportResult;
 import com.example.library.dto.BookListItem;
+import com.example.library.dto.CursorPage;
 import com.example.library.dto.PagedResult;
+import com.example.library.dto.Suggestion;
 import com.example.library.jooq.enums.BookStatus;
+import com.example.library.service.BookImportService;
 import com.example.library.service.BookService;
 import com.example.library.service.CoverStorageService;
 import jakarta.validation.Valid;
+import java.io.IOException;
+import java.io.InputStream;
 import java.util.List;
+import java.util.Locale;
 import org.jooq.SortField;
+import org.springframework.http.MediaType;
 import org.springframework.web.bind.annotation.DeleteMapping;
 import org.springframework.web.bind.annotation.GetMapping;
 import org.springframework.web.bind.annotation.PathVariable;
@@ -18,6 +26,7 @@ import org.springframework.web.bind.annotation.RequestBody;
 import org.springframework.web.bind.annotation.RequestMapping;
 import org.springframework.web.bind.annotation.RequestParam;
 import org.springframework.web.bind.annotation.RestController;
+import org.springframework.web.multipart.MultipartFile;
 
 import static com.example.library.jooq.tables.Book.BOOK;
 
@@ -26,10 +35,14 @@ import static com.example.library.jooq.tables.Book.BOOK;
 public class BookApiController {
     private final BookService bookService;
     private final CoverStorageService coverStorageService;
+    private final BookImportService bookImportService;
 
-    public BookApiController(BookService bookService, CoverStorageService coverStorageService) {
+    public BookApiController(BookService bookService,
+                             CoverStorageService coverStorageService,
+                             BookImportService bookImportService) {
         this.bookService = bookService;
         this.coverStorageService = coverStorageService;
+        this.bookImportService = bookImportService;
     }
 
     @GetMapping
@@ -42,6 +55,18 @@ public class BookApiController {
                                           @RequestParam(defaultValue = "0") int page,
                                           @RequestParam(defaultValue = "10") int size,
                                           @RequestParam(required = false, name = "sort") String sort) {
+        if (sort != null && "relevance".equalsIgnoreCase(sort.split(",")[0])) {
+            return bookService.searchByRelevance(
+                    q,
+                    authorId,
+                    categoryId,
+                    parseStatus(status),
+                    parseDecimal(minPrice),
+                    parseDecimal(maxPrice),
+                    page,
+                    size
+            );
+        }
         SortField<?> sortField = null;
         if (sort != null) {
             boolean desc = sort.endsWith(",desc");
@@ -52,19 +77,11 @@ public class BookApiController {
                 sortField = desc ? BOOK.TITLE.desc() : BOOK.TITLE.asc();
             }
         }
-        BookStatus bookStatus = null;
-        if (status != null && !status.isBlank()) {
-            try {
-                bookStatus = BookStatus.valueOf(status.trim().toUpperCase());
-            } catch (IllegalArgumentException ignored) {
-                bookStatus = null;
-            }
-        }
         return bookService.search(
                 q,
                 authorId,
                 categoryId,
-                bookStatus,
+                parseStatus(status),
                 parseDecimal(minPrice),
                 parseDecimal(maxPrice),
                 page,
@@ -73,6 +90,47 @@ public class BookApiController {
         );
     }
 
+    @GetMapping(params = "cursor")
+    public CursorPage<BookListItem> seek(@RequestParam(required = false) String q,
+                                         @RequestParam(required = false) Long authorId,
+                                         @RequestParam(required = false) Long categoryId,
+                                         @RequestParam(required = false) String status,
+                                         @RequestParam(required = false) String minPrice,
+                                         @RequestParam(required = false) String maxPrice,
+                                         @RequestParam String cursor,
+                                         @RequestParam(defaultValue = "10") int size,
+                                         @RequestParam(required = false, name = "sort") String sort) {
+        return bookService.seek(
+                q,
+                authorId,
+                categoryId,
+                parseStatus(status),
+                parseDecimal(minPrice),
+                parseDecimal(maxPrice),
+                sort,
+                cursor,
+                size
+        );
+    }
+
+    @GetMapping("/suggest")
+    public List<Suggestion> suggest(@RequestParam(defaultValue = "") String q,
+                                    @RequestParam(defaultValue = "10") int limit,
+                                    @RequestParam(defaultValue = "false") boolean available) {
+        return bookService.suggest(q, limit, available);
+    }
+
+    @PostMapping(value = "/import", consumes = MediaType.MULTIPART_FORM_DATA_VALUE)
+    public BookImportResult importBooks(@RequestParam("file") MultipartFile file,
+                                        @RequestParam(required = false) Integer chunkSize) throws IOException {
+        String name = file.getOriginalFilename() == null ? "" : file.getOriginalFilename().toLowerCase(Locale.ROOT);
+        boolean json = name.endsWith(".json") || MediaType.APPLICATION_JSON_VALUE.equals(file.getContentType());
+        try (InputStream input = file.getInputStream()) {
+            return bookImportService.importBooks(input,
+                    json ? BookImportService.Format.JSON : BookImportService.Format.CSV, chunkSize);
+        }
+    }
+
     @PostMapping
     public Long create(@Valid @RequestBody BookDto dto) {
         return bookService.create(dto, dto.coverPath());
@@ -89,6 +147,17 @@ public class BookApiController {
         coverStorageService.delete(coverPath);
     }
 
+    private BookStatus parseStatus(String status) {
+        if (status == null || status.isBlank()) {
+            return null;
+        }
+        try {
+            return BookStatus.valueOf(status.trim().toUpperCase());
+        } catch (IllegalArgumentException ignored) {
+            return null;
+        }
+    }
+
     private java.math.BigDecimal parseDecimal(String value) {
         if (value == null || value.isBlank()) {
             return null;
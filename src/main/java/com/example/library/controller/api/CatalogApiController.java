@@ -0,0 +1,29 @@
+package com.example.library.controller.api;
+
+import com.example.library.dto.CatalogCheck;
+import com.example.library.service.BookCatalog;
+import org.springframework.web.bind.annotation.GetMapping;
+import org.springframework.web.bind.annotation.PostMapping;
+import org.springframework.web.bind.annotation.RequestMapping;
+import org.springframework.web.bind.annotation.RequestParam;
+import org.springframework.web.bind.annotation.RestController;
+
+@RestController
+@RequestMapping("/api/catalog")
+public class CatalogApiController {
+    private final BookCatalog bookCatalog;
+
+    public CatalogApiController(BookCatalog bookCatalog) {
+        this.bookCatalog = bookCatalog;
+    }
+
+    @GetMapping("/check")
+    public CatalogCheck check(@RequestParam(defaultValue = "false") boolean repair) {
+        return bookCatalog.check(repair);
+    }
+
+    @PostMapping("/rebuild")
+    public int rebuild() {
+        return bookCatalog.rebuild();
+    }
+}
@@ -1,8 +1,12 @@
 package com.example.library.controller.api;
 
+import com.example.library.dto.CursorPage;
 import com.example.library.dto.LoanBorrowRequest;
 import com.example.library.dto.LoanListItem;
+import com.example.library.dto.LoanReturnBatchRequest;
+import com.example.library.dto.LoanReturnResult;
 import com.example.library.dto.PagedResult;
+import com.example.library.service.LoanDailyStatsService;
 import com.example.library.service.LoanService;
 import jakarta.validation.Valid;
 import java.time.LocalDate;
@@ -20,9 +24,11 @@ import org.springframework.web.bind.annotation.RestController;
 @RequestMapping("/api/loans")
 public class LoanApiController {
     private final LoanService loanService;
+    private final LoanDailyStatsService loanDailyStats;
 
-    public LoanApiController(LoanService loanService) {
+    public LoanApiController(LoanService loanService, LoanDailyStatsService loanDailyStats) {
         this.loanService = loanService;
+        this.loanDailyStats = loanDailyStats;
     }
 
     @PostMapping("/borrow")
@@ -42,6 +48,11 @@ public class LoanApiController {
         loanService.returnBook(loanId, returnDate);
     }
 
+    @PostMapping("/return/batch")
+    public List<LoanReturnResult> returnBatch(@Valid @RequestBody LoanReturnBatchRequest request) {
+        return loanService.returnBooks(request.loanIds(), request.returnDate());
+    }
+
     @GetMapping
     public PagedResult<LoanListItem> list(@RequestParam(required = false) String q,
                                           @RequestParam(required = false) String status,
@@ -49,4 +60,21 @@ public class LoanApiController {
                                           @RequestParam(defaultValue = "10") int size) {
         return loanService.list(q, status, page, size);
     }
+
+    @GetMapping(params = "cursor")
+    public CursorPage<LoanListItem> seek(@RequestParam(required = false) String q,
+                                         @RequestParam(required = false) String status,
+                                         @RequestParam String cursor,
+                                         @RequestParam(defaultValue = "10") int size) {
+        return loanService.seek(q, status, cursor, size);
+    }
+
+    /** Recomputes the chart rollup for {@code [from, to]}; either bound may be left open. */
+    @PostMapping("/stats/rebuild")
+    public long rebuildStats(@RequestParam(required = false)
+                             @DateTimeFormat(iso = DateTimeFormat.ISO.DATE) LocalDate from,
+                             @RequestParam(required = false)
+                             @DateTimeFormat(iso = DateTimeFormat.ISO.DATE) LocalDate to) {
+        return loanDailyStats.rebuild(from, to);
+    }
 }
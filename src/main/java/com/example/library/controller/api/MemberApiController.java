@@ -1,6 +1,7 @@
 package com.example.library.controller.api;
 
 import com.example.library.dto.MemberDto;
+import com.example.library.dto.Suggestion;
 import com.example.library.jooq.tables.records.MemberRecord;
 import com.example.library.service.MemberService;
 import jakarta.validation.Valid;
@@ -31,6 +32,12 @@ public class MemberApiController {
         return memberService.search(q, page, size);
     }
 
+    @GetMapping("/suggest")
+    public List<Suggestion> suggest(@RequestParam(defaultValue = "") String q,
+                                    @RequestParam(defaultValue = "10") int limit) {
+        return memberService.suggest(q, limit);
+    }
+
     @PostMapping
     public Long create(@Valid @RequestBody MemberDto dto) {
         return memberService.create(dto);
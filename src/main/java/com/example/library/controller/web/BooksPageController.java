@@ -11,9 +11,9 @@ import com.example.library.service.AuthorService;
 import com.example.library.service.BookService;
 import com.example.library.service.CategoryService;
 import com.example.library.service.CoverStorageService;
+import com.example.library.util.CsvWriter;
 import jakarta.validation.Valid;
 import java.math.BigDecimal;
-import java.nio.charset.StandardCharsets;
 import java.util.List;
 import org.springframework.stereotype.Controller;
 import org.springframework.ui.Model;
@@ -25,10 +25,8 @@ import org.springframework.web.bind.annotation.PostMapping;
 import org.springframework.web.bind.annotation.RequestMapping;
 import org.springframework.web.bind.annotation.RequestParam;
 import org.springframework.web.multipart.MultipartFile;
-import org.springframework.http.HttpHeaders;
-import org.springframework.http.MediaType;
+import org.springframework.web.servlet.mvc.method.annotation.StreamingResponseBody;
 import org.springframework.http.ResponseEntity;
-import org.springframework.core.io.ByteArrayResource;
 import org.jooq.SortField;
 
 import static com.example.library.jooq.tables.Book.BOOK;
@@ -62,19 +60,21 @@ public class BooksPageController {
                        @RequestParam(defaultValue = "10") int size,
                        @RequestParam(required = false) String sort,
                        Model model) {
-        SortField<?> sortField = resolveSort(sort);
         BookStatus bookStatus = parseStatus(status);
-        PagedResult<BookListItem> result = bookService.search(
-                q,
-                authorId,
-                categoryId,
-                bookStatus,
-                parseDecimal(minPrice),
-                parseDecimal(maxPrice),
-                page,
-                size,
-                sortField
-        );
+        PagedResult<BookListItem> result = isRelevance(sort)
+                ? bookService.searchByRelevance(q, authorId, categoryId, bookStatus,
+                        parseDecimal(minPrice), parseDecimal(maxPrice), page, size)
+                : bookService.search(
+                        q,
+                        authorId,
+                        categoryId,
+                        bookStatus,
+                        parseDecimal(minPrice),
+                        parseDecimal(maxPrice),
+                        page,
+                        size,
+                        resolveSort(sort)
+                );
         model.addAttribute("pageTitle", "Books");
         model.addAttribute("booksPage", result);
         model.addAttribute("books", result.items());
@@ -166,46 +166,29 @@ public class BooksPageController {
     }
 
     @GetMapping("/export")
-    public ResponseEntity<ByteArrayResource> export(@RequestParam(required = false) String q,
-                                                    @RequestParam(required = false) Long authorId,
-                                                    @RequestParam(required = false) Long categoryId,
-                                                    @RequestParam(required = false) String status,
-                                                    @RequestParam(required = false) String minPrice,
-                                                    @RequestParam(required = false) String maxPrice,
-                                                    @RequestParam(required = false) String sort) {
+    public ResponseEntity<StreamingResponseBody> export(@RequestParam(required = false) String q,
+                                                        @RequestParam(required = false) Long authorId,
+                                                        @RequestParam(required = false) Long categoryId,
+                                                        @RequestParam(required = false) String status,
+                                                        @RequestParam(required = false) String minPrice,
+                                                        @RequestParam(required = false) String maxPrice,
+                                                        @RequestParam(required = false) String sort) {
         SortField<?> sortField = resolveSort(sort);
-        List<BookListItem> rows = bookService.searchAll(
-                q,
-                authorId,
-                categoryId,
-                parseStatus(status),
-                parseDecimal(minPrice),
-                parseDecimal(maxPrice),
-                sortField
-        );
-        StringBuilder csv = new StringBuilder("ID,Title,Author,Category,Price,Stock,Status\n");
-        rows.forEach(row -> csv.append(csvEscape(row.bookId()))
-                .append(',')
-                .append(csvEscape(row.title()))
-                .append(',')
-                .append(csvEscape(row.authorName()))
-                .append(',')
-                .append(csvEscape(row.categoryName()))
-                .append(',')
-                .append(csvEscape(row.price()))
-                .append(',')
-                .append(csvEscape(row.stock()))
-                .append(',')
-                .append(csvEscape(row.status()))
-                .append('\n'));
-
-        byte[] bytes = csv.toString().getBytes(StandardCharsets.UTF_8);
-        ByteArrayResource resource = new ByteArrayResource(bytes);
-        return ResponseEntity.ok()
-                .header(HttpHeaders.CONTENT_DISPOSITION, "attachment; filename=books.csv")
-                .contentType(MediaType.TEXT_PLAIN)
-                .contentLength(bytes.length)
-                .body(resource);
+        BookStatus bookStatus = parseStatus(status);
+        BigDecimal min = parseDecimal(minPrice);
+        BigDecimal max = parseDecimal(maxPrice);
+        return CsvWriter.download("books.csv", csv -> {
+            csv.row("ID", "Title", "Author", "Category", "Price", "Stock", "Status");
+            bookService.exportAll(q, authorId, categoryId, bookStatus, min, max, sortField, row -> csv.row(
+                    row.bookId(),
+                    row.title(),
+                    row.authorName(),
+                    row.categoryName(),
+                    row.price(),
+                    row.stock(),
+                    row.status()
+            ));
+        });
     }
 
     private void populateReferenceData(Model model) {
@@ -213,6 +196,10 @@ public class BooksPageController {
         model.addAttribute("categories", categoryService.listAll());
     }
 
+    private boolean isRelevance(String sort) {
+        return sort != null && "relevance".equalsIgnoreCase(sort.split(",")[0]);
+    }
+
     private SortField<?> resolveSort(String sort) {
         if (sort == null || sort.isBlank()) {
             return BOOK.TITLE.asc();
@@ -250,15 +237,4 @@ public class BooksPageController {
             return null;
         }
     }
-
-    private String csvEscape(Object value) {
-        if (value == null) {
-            return "";
-        }
-        String text = value.toString();
-        if (text.contains("\"") || text.contains(",") || text.contains("\n")) {
-            return "\"" + text.replace("\"", "\"\"") + "\"";
-        }
-        return text;
-    }
 }
@@ -2,9 +2,8 @@ package com.example.library.controller.web;
 
 import com.example.library.dto.BorrowReturnStat;
 import com.example.library.dto.ChartDataPoint;
-import com.example.library.service.BookService;
-import com.example.library.service.LoanService;
-import com.example.library.service.MemberService;
+import com.example.library.dto.DashboardStats;
+import com.example.library.service.DashboardStatsService;
 import java.util.List;
 import java.util.Map;
 import java.util.stream.Collectors;
@@ -14,35 +13,30 @@ import org.springframework.web.bind.annotation.GetMapping;
 
 @Controller
 public class DashboardController {
-    private final LoanService loanService;
-    private final BookService bookService;
-    private final MemberService memberService;
+    private final DashboardStatsService dashboardStatsService;
 
-    public DashboardController(LoanService loanService,
-                               BookService bookService,
-                               MemberService memberService) {
-        this.loanService = loanService;
-        this.bookService = bookService;
-        this.memberService = memberService;
+    public DashboardController(DashboardStatsService dashboardStatsService) {
+        this.dashboardStatsService = dashboardStatsService;
     }
 
     @GetMapping({"/", "/dashboard"})
     public String dashboard(Model model) {
         model.addAttribute("pageTitle", "Dashboard");
         model.addAttribute("pageId", "dashboard");
-        model.addAttribute("totalBooks", bookService.countAll());
-        model.addAttribute("availableBooks", bookService.countAvailable());
-        model.addAttribute("totalMembers", memberService.countAll());
-        model.addAttribute("activeMembers", memberService.countActive());
-        model.addAttribute("borrowedToday", loanService.countBorrowedToday());
-        model.addAttribute("overdueLoans", loanService.countOverdue());
-        model.addAttribute("recentLoans", loanService.findRecentLoans(5));
-        model.addAttribute("totalFineAmount", loanService.sumFineAmount());
-        model.addAttribute("borrowReturnData", toBorrowReturnSeries(loanService.borrowReturnStats(30)));
-        model.addAttribute("topBooksData", toChartSeries(loanService.topBorrowedBooks(10)));
-        model.addAttribute("categoryBorrowData", toChartSeries(loanService.borrowByCategory()));
-        model.addAttribute("topMembersData", toChartSeries(loanService.topMembers(10)));
-        model.addAttribute("overdueTimelineData", toChartSeries(loanService.overdueTimeline(12)));
+        DashboardStats stats = dashboardStatsService.current();
+        model.addAttribute("totalBooks", stats.totalBooks());
+        model.addAttribute("availableBooks", stats.availableBooks());
+        model.addAttribute("totalMembers", stats.totalMembers());
+        model.addAttribute("activeMembers", stats.activeMembers());
+        model.addAttribute("borrowedToday", stats.borrowedToday());
+        model.addAttribute("overdueLoans", stats.overdueLoans());
+        model.addAttribute("recentLoans", stats.recentLoans());
+        model.addAttribute("totalFineAmount", stats.totalFineAmount());
+        model.addAttribute("borrowReturnData", toBorrowReturnSeries(stats.borrowReturnStats()));
+        model.addAttribute("topBooksData", toChartSeries(stats.topBooks()));
+        model.addAttribute("categoryBorrowData", toChartSeries(stats.categoryBorrows()));
+        model.addAttribute("topMembersData", toChartSeries(stats.topMembers()));
+        model.addAttribute("overdueTimelineData", toChartSeries(stats.overdueTimeline()));
         return "dashboard/index";
     }
 
@@ -5,14 +5,17 @@ import com.example.library.dto.BookListItem;
 import com.example.library.dto.LoanBorrowForm;
 import com.example.library.dto.LoanListItem;
 import com.example.library.dto.PagedResult;
+import com.example.library.exception.ConflictException;
 import com.example.library.jooq.enums.LoanStatus;
 import com.example.library.jooq.tables.records.MemberRecord;
 import com.example.library.service.BookService;
 import com.example.library.service.LoanService;
 import com.example.library.service.MemberService;
+import com.example.library.util.CsvWriter;
 import jakarta.validation.Valid;
 import java.time.LocalDate;
 import java.util.List;
+import org.springframework.http.ResponseEntity;
 import org.springframework.stereotype.Controller;
 import org.springframework.ui.Model;
 import org.springframework.validation.BindingResult;
@@ -22,6 +25,7 @@ import org.springframework.web.bind.annotation.PathVariable;
 import org.springframework.web.bind.annotation.PostMapping;
 import org.springframework.web.bind.annotation.RequestMapping;
 import org.springframework.web.bind.annotation.RequestParam;
+import org.springframework.web.servlet.mvc.method.annotation.StreamingResponseBody;
 import org.springframework.format.annotation.DateTimeFormat;
 
 @Controller
@@ -58,6 +62,26 @@ public class LoansPageController {
         return "loans/index";
     }
 
+    @GetMapping("/export")
+    public ResponseEntity<StreamingResponseBody> export(@RequestParam(required = false) String q,
+                                                        @RequestParam(required = false) String status) {
+        return CsvWriter.download("loans.csv", csv -> {
+            csv.row("ID", "Member ID", "Member", "Book ID", "Book", "Borrowed", "Due", "Returned", "Status", "Fine");
+            loanService.exportAll(q, status, row -> csv.row(
+                    row.loanId(),
+                    row.memberId(),
+                    row.memberName(),
+                    row.bookId(),
+                    row.bookTitle(),
+                    row.borrowDate(),
+                    row.dueDate(),
+                    row.returnDate(),
+                    row.status(),
+                    row.fineAmount()
+            ));
+        });
+    }
+
     @GetMapping("/borrow")
     public String borrowForm(Model model) {
         LoanBorrowForm form = new LoanBorrowForm();
@@ -66,7 +90,7 @@ public class LoansPageController {
         model.addAttribute("form", form);
         model.addAttribute("pageTitle", "Borrow books");
         model.addAttribute("pageId", "loans");
-        populateBorrowReferences(model);
+        populateBorrowReferences(model, form);
         return "loans/borrow";
     }
 
@@ -77,16 +101,16 @@ public class LoansPageController {
         if (br.hasErrors()) {
             model.addAttribute("pageTitle", "Borrow books");
             model.addAttribute("pageId", "loans");
-            populateBorrowReferences(model);
+            populateBorrowReferences(model, form);
             return "loans/borrow";
         }
         try {
             loanService.borrow(form.getMemberId(), form.getBookIds(), form.getBorrowDate(), form.getDueDate());
-        } catch (IllegalArgumentException | IllegalStateException ex) {
+        } catch (IllegalArgumentException | ConflictException ex) {
             br.reject("borrow.error", ex.getMessage());
             model.addAttribute("pageTitle", "Borrow books");
             model.addAttribute("pageId", "loans");
-            populateBorrowReferences(model);
+            populateBorrowReferences(model, form);
             return "loans/borrow";
         }
         return "redirect:/loans";
@@ -101,10 +125,11 @@ public class LoansPageController {
         return "redirect:/loans";
     }
 
-    private void populateBorrowReferences(Model model) {
-        List<MemberRecord> members = memberService.listActiveMembers();
-        List<BookListItem> books = bookService.listAvailable();
-        model.addAttribute("members", members);
+    /** Only the current selection is rendered; the pickers query the suggest endpoints as staff type. */
+    private void populateBorrowReferences(Model model, LoanBorrowForm form) {
+        MemberRecord member = form.getMemberId() == null ? null : memberService.getById(form.getMemberId());
+        List<BookListItem> books = bookService.findByIds(form.getBookIds());
+        model.addAttribute("selectedMember", member);
         model.addAttribute("books", books);
     }
 }
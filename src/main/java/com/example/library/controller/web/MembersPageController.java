@@ -5,11 +5,14 @@ import com.example.library.dto.MemberDto;
 import com.example.library.jooq.enums.MemberStatus;
 import com.example.library.jooq.tables.records.MemberRecord;
 import com.example.library.service.MemberService;
+import com.example.library.util.CsvWriter;
 import jakarta.validation.Valid;
+import org.springframework.http.ResponseEntity;
 import org.springframework.stereotype.Controller;
 import org.springframework.ui.Model;
 import org.springframework.validation.BindingResult;
 import org.springframework.web.bind.annotation.*;
+import org.springframework.web.servlet.mvc.method.annotation.StreamingResponseBody;
 
 import java.util.List;
 
@@ -30,6 +33,14 @@ public class MembersPageController {
         return "members/index";
     }
 
+    @GetMapping("/export")
+    public ResponseEntity<StreamingResponseBody> export(@RequestParam(required = false) String q) {
+        return CsvWriter.download("members.csv", csv -> {
+            csv.row("ID", "Full name", "Email", "Phone", "Status");
+            memberService.exportAll(q, m -> csv.row(m.getMemberId(), m.getFullName(), m.getEmail(), m.getPhone(), m.getStatus()));
+        });
+    }
+
     @GetMapping("/new")
     public String createForm(Model model) {
         model.addAttribute("member", new MemberDto(null, "", "", "", MemberStatus.ACTIVE.name()));
@@ -0,0 +1,51 @@
+package com.example.library.datagen;
+
+import java.util.Locale;
+import org.jooq.DSLContext;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.CommandLineRunner;
+import org.springframework.boot.SpringApplication;
+import org.springframework.context.ConfigurableApplicationContext;
+import org.springframework.context.annotation.Profile;
+import org.springframework.stereotype.Component;
+
+/**
+ * Runs {@link SyntheticDataGenerator} once and exits when the {@code datagen} profile is active:
+ * {@code java -jar library-borrow-return-1.0.0-exec.jar --spring.profiles.active=datagen --library.datagen.loans=5000000}.
+ */
+@Component
+@Profile("datagen")
+public class DataGeneratorRunner implements CommandLineRunner {
+    private final DSLContext dsl;
+    private final ConfigurableApplicationContext context;
+    private final SyntheticDataGenerator.Settings settings;
+
+    public DataGeneratorRunner(DSLContext dsl,
+                               ConfigurableApplicationContext context,
+                               @Value("${library.datagen.members:100000}") int members,
+                               @Value("${library.datagen.books:50000}") int books,
+                               @Value("${library.datagen.loans:2000000}") long loans,
+                               @Value("${library.datagen.years:3}") int years,
+                               @Value("${library.datagen.pending-notifications:20000}") int pendingNotifications,
+                               @Value("${library.datagen.archived-notifications:200000}") int archivedNotifications,
+                               @Value("${library.datagen.book-skew:1.1}") double bookSkew,
+                               @Value("${library.datagen.member-skew:0.7}") double memberSkew,
+                               @Value("${library.datagen.seed:42}") long seed,
+                               @Value("${library.datagen.load-mode:batch}") String loadMode,
+                               @Value("${library.datagen.chunk-size:5000}") int chunkSize,
+                               @Value("${library.datagen.reset:false}") boolean reset) {
+        this.dsl = dsl;
+        this.context = context;
+        this.settings = new SyntheticDataGenerator.Settings(members, books, loans, years,
+                pendingNotifications, archivedNotifications, bookSkew, memberSkew, seed,
+                SyntheticDataGenerator.LoadMode.valueOf(loadMode.trim().replace('-', '_').toUpperCase(Locale.ROOT)),
+                Math.max(chunkSize, 1), reset);
+    }
+
+    @Override
+    public void run(String... args) {
+        new SyntheticDataGenerator(dsl, settings).generate();
+        // one-shot job: stop before the ready-time index builds and resumable jobs start
+        System.exit(SpringApplication.exit(context, () -> 0));
+    }
+}
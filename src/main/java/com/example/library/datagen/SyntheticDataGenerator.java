@@ -0,0 +1,554 @@
+package com.example.library.datagen;
+
+import com.example.library.dto.FineTerms;
+import com.example.library.jooq.enums.BookStatus;
+import com.example.library.jooq.enums.LoanStatus;
+import com.example.library.jooq.enums.MemberStatus;
+import com.example.library.service.FinePolicy;
+import com.example.library.util.TextNormalizer;
+import java.io.BufferedWriter;
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.math.BigDecimal;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.sql.Statement;
+import java.time.Duration;
+import java.time.LocalDate;
+import java.time.LocalDateTime;
+import java.time.format.DateTimeFormatter;
+import java.time.temporal.ChronoUnit;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.SplittableRandom;
+import org.jooq.DSLContext;
+import org.jooq.EnumType;
+import org.jooq.Field;
+import org.jooq.Record;
+import org.jooq.Table;
+import org.jooq.impl.DSL;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import static com.example.library.jooq.tables.Author.AUTHOR;
+import static com.example.library.jooq.tables.Book.BOOK;
+import static com.example.library.jooq.tables.Category.CATEGORY;
+import static com.example.library.jooq.tables.Loan.LOAN;
+import static com.example.library.jooq.tables.Member.MEMBER;
+import static com.example.library.jooq.tables.Notification.NOTIFICATION;
+import static com.example.library.jooq.tables.NotificationHistory.NOTIFICATION_HISTORY;
+
+/**
+ * Fills the schema with a skewed synthetic dataset: members and books whose borrowing follows a
+ * Zipf distribution, {@code years} of loan history in LOAN_ID/borrow-date order with on-time, late,
+ * overdue and lost loans, and a notification backlog plus archive. Derived state (book stock,
+ * MEMBER_STANDING, LOAN_DAILY_STATS) is recomputed from the loans at the end. Rows are written
+ * either as multi-row INSERTs of {@code chunkSize} rows or through {@code LOAD DATA LOCAL INFILE},
+ * which needs {@code allowLoadLocalInfile=true} on the connection and {@code local_infile=ON} on the
+ * server.
+ */
+public class SyntheticDataGenerator {
+    private static final Logger log = LoggerFactory.getLogger(SyntheticDataGenerator.class);
+    /** The column defaults of sql/011_fine_policy.sql, which generated loans are written with. */
+    private static final FineTerms LOAN_TERMS = new FineTerms(BigDecimal.valueOf(5_000), 0, null);
+    private static final int LOAD_DATA_ROWS = 200_000;
+    private static final DateTimeFormatter SQL_DATETIME = DateTimeFormatter.ofPattern("yyyy-MM-dd HH:mm:ss");
+    private static final Table<Record> MEMBER_STANDING = DSL.table("MEMBER_STANDING");
+    private static final Table<Record> LOAN_DAILY_STATS = DSL.table("LOAN_DAILY_STATS");
+
+    private static final String[] TITLE_WORDS = {
+            "Lịch sử", "Dữ liệu", "Kinh tế", "Tâm lý", "Nghệ thuật", "Khoa học", "Thế giới", "Việt Nam",
+            "Lập trình", "Triết học", "Văn hóa", "Tình yêu", "Chiến tranh", "Hòa bình", "Thành phố", "Biển",
+            "Mùa hè", "Ký ức", "Hành trình", "Bí mật", "Ánh sáng", "Ngôi nhà", "Dòng sông", "Giấc mơ"
+    };
+    private static final String[] CATEGORY_NAMES = {
+            "Văn học", "Lịch sử", "Khoa học", "Kinh tế", "Tâm lý", "Thiếu nhi", "Công nghệ", "Nghệ thuật",
+            "Triết học", "Du lịch", "Nấu ăn", "Y học", "Giáo dục", "Tôn giáo", "Thể thao", "Ngoại ngữ"
+    };
+    private static final String[] LAST_NAMES = {
+            "Nguyễn", "Trần", "Lê", "Phạm", "Hoàng", "Huỳnh", "Phan", "Vũ", "Võ", "Đặng", "Bùi", "Đỗ", "Hồ", "Ngô"
+    };
+    private static final String[] MIDDLE_NAMES = {"Văn", "Thị", "Minh", "Ngọc", "Đức", "Thanh", "Quốc", "Hữu", "Thu"};
+    private static final String[] FIRST_NAMES = {
+            "An", "Bình", "Chi", "Dũng", "Giang", "Hà", "Hải", "Hùng", "Khánh", "Lan", "Linh", "Long",
+            "Mai", "Minh", "Nam", "Phương", "Quân", "Sơn", "Thảo", "Trang", "Tuấn", "Vy", "Yến"
+    };
+
+    public enum LoadMode {
+        BATCH,
+        LOAD_DATA
+    }
+
+    public record Settings(
+            int members,
+            int books,
+            long loans,
+            int years,
+            int pendingNotifications,
+            int archivedNotifications,
+            double bookSkew,
+            double memberSkew,
+            long seed,
+            LoadMode loadMode,
+            int chunkSize,
+            boolean reset
+    ) {}
+
+    public record Summary(
+            int authors,
+            int categories,
+            int books,
+            int members,
+            long loans,
+            long openLoans,
+            long overdueLoans,
+            int pendingNotifications,
+            int archivedNotifications,
+            long elapsedMs
+    ) {}
+
+    private final DSLContext dsl;
+    private final Settings settings;
+    private final SplittableRandom random;
+    private final LocalDateTime now = LocalDateTime.now().truncatedTo(ChronoUnit.SECONDS);
+
+    public SyntheticDataGenerator(DSLContext dsl, Settings settings) {
+        if (settings.members() < 1 || settings.books() < 1 || settings.loans() < 0 || settings.years() < 1) {
+            throw new IllegalArgumentException("members and books must be positive, years at least 1");
+        }
+        this.dsl = dsl;
+        this.settings = settings;
+        this.random = new SplittableRandom(settings.seed());
+    }
+
+    public Summary generate() {
+        long started = System.nanoTime();
+        prepare();
+        long[] categoryIds = insertCategories();
+        long[] authorIds = insertAuthors();
+        int[] copies = new int[settings.books()];
+        long[] bookIds = insertBooks(authorIds, categoryIds, copies);
+        long[] memberIds = insertMembers();
+        long[] loanCounts = insertLoans(bookIds, copies, memberIds);
+        insertNotifications(memberIds);
+        recomputeDerivedState();
+
+        Summary summary = new Summary(authorIds.length, categoryIds.length, settings.books(), settings.members(),
+                settings.loans(), loanCounts[0], loanCounts[1],
+                settings.pendingNotifications(), settings.archivedNotifications(),
+                Duration.ofNanos(System.nanoTime() - started).toMillis());
+        log.info("Synthetic data generated: {}", summary);
+        return summary;
+    }
+
+    private void prepare() {
+        if (settings.reset()) {
+            // one connection so FOREIGN_KEY_CHECKS=0 applies to every TRUNCATE
+            dsl.connection(connection -> {
+                try (Statement statement = connection.createStatement()) {
+                    statement.execute("SET FOREIGN_KEY_CHECKS = 0");
+                    for (Table<?> table : List.of(NOTIFICATION_HISTORY, NOTIFICATION, MEMBER_STANDING,
+                            LOAN_DAILY_STATS, LOAN, MEMBER, BOOK, AUTHOR, CATEGORY)) {
+                        statement.execute("TRUNCATE TABLE " + table.getName());
+                    }
+                    statement.execute("SET FOREIGN_KEY_CHECKS = 1");
+                }
+            });
+            log.info("Existing library data truncated");
+            return;
+        }
+        if (dsl.fetchExists(BOOK) || dsl.fetchExists(MEMBER) || dsl.fetchExists(LOAN)) {
+            throw new IllegalStateException("Library tables are not empty; enable reset to replace their data");
+        }
+    }
+
+    private long[] insertCategories() {
+        long after = maxId(CATEGORY, CATEGORY.CATEGORY_ID);
+        try (RowSink sink = sink(CATEGORY, CATEGORY.NAME)) {
+            for (String name : CATEGORY_NAMES) {
+                sink.add(name);
+            }
+        }
+        return idsAfter(CATEGORY, CATEGORY.CATEGORY_ID, after, CATEGORY_NAMES.length);
+    }
+
+    private long[] insertAuthors() {
+        int authors = Math.max(settings.books() / 20, 1);
+        long after = maxId(AUTHOR, AUTHOR.AUTHOR_ID);
+        try (RowSink sink = sink(AUTHOR, AUTHOR.NAME, AUTHOR.NATIONALITY)) {
+            for (int i = 1; i <= authors; i++) {
+                sink.add(personName() + " " + i, random.nextInt(5) == 0 ? "Nước ngoài" : "Việt Nam");
+            }
+        }
+        return idsAfter(AUTHOR, AUTHOR.AUTHOR_ID, after, authors);
+    }
+
+    /** Returns the generated BOOK_IDs; {@code copies} receives each book's copy count at the same index. */
+    private long[] insertBooks(long[] authorIds, long[] categoryIds, int[] copies) {
+        // authors and categories get their own popularity skew, so a few of each dominate the catalog
+        ZipfSampler authorPick = new ZipfSampler(authorIds.length, 0.8, random);
+        ZipfSampler categoryPick = new ZipfSampler(categoryIds.length, 0.8, random);
+        long after = maxId(BOOK, BOOK.BOOK_ID);
+        try (RowSink sink = sink(BOOK, BOOK.TITLE, BOOK.AUTHOR_ID, BOOK.CATEGORY_ID, BOOK.PUBLISHER,
+                BOOK.PUBLISHED_YEAR, BOOK.ISBN, BOOK.PRICE, BOOK.STOCK, BOOK.STATUS)) {
+            for (int i = 0; i < copies.length; i++) {
+                copies[i] = 1 + random.nextInt(random.nextInt(10) == 0 ? 30 : 8);
+                sink.add(
+                        pick(TITLE_WORDS) + " " + pick(TITLE_WORDS).toLowerCase() + " " + (i + 1),
+                        authorIds[authorPick.next(random)],
+                        categoryIds[categoryPick.next(random)],
+                        "NXB " + pick(CATEGORY_NAMES),
+                        1970 + random.nextInt(56),
+                        String.format("978%010d", i + 1),
+                        BigDecimal.valueOf(20_000 + random.nextInt(100) * 5_000L),
+                        copies[i],
+                        random.nextInt(100) == 0 ? BookStatus.UNAVAILABLE : BookStatus.AVAILABLE);
+            }
+        }
+        return idsAfter(BOOK, BOOK.BOOK_ID, after, copies.length);
+    }
+
+    private long[] insertMembers() {
+        long after = maxId(MEMBER, MEMBER.MEMBER_ID);
+        try (RowSink sink = sink(MEMBER, MEMBER.FULL_NAME, MEMBER.EMAIL, MEMBER.PHONE, MEMBER.STATUS)) {
+            for (int i = 1; i <= settings.members(); i++) {
+                String name = personName();
+                String email = TextNormalizer.fold(name).replace(' ', '.') + "." + i + "@example.com";
+                sink.add(name, email, String.format("09%08d", i),
+                        random.nextInt(50) == 0 ? MemberStatus.SUSPENDED : MemberStatus.ACTIVE);
+            }
+        }
+        return idsAfter(MEMBER, MEMBER.MEMBER_ID, after, settings.members());
+    }
+
+    private long maxId(Table<?> table, Field<Long> id) {
+        Long max = dsl.select(DSL.max(id)).from(table).fetchOne(0, Long.class);
+        return max == null ? 0 : max;
+    }
+
+    /**
+     * The ids a sink just generated, in insertion order. AUTO_INCREMENT need not start at 1 (a
+     * table emptied with DELETE keeps its counter, and {@code auto_increment_increment} may skip),
+     * so rows are referenced by these ids rather than by their position.
+     */
+    private long[] idsAfter(Table<?> table, Field<Long> id, long after, int expected) {
+        long[] ids = dsl.select(id).from(table).where(id.gt(after)).orderBy(id)
+                .fetch(id).stream().mapToLong(Long::longValue).toArray();
+        if (ids.length != expected) {
+            throw new IllegalStateException(table.getName() + ": expected " + expected
+                    + " generated rows but found " + ids.length + "; was the table written concurrently?");
+        }
+        return ids;
+    }
+
+    /**
+     * Writes loans day by day from {@code years} ago to today with volume growing over time. Returns
+     * {open, overdue} counts. A loan stays open only while its book has a copy left.
+     */
+    private long[] insertLoans(long[] bookIds, int[] copies, long[] memberIds) {
+        ZipfSampler bookPick = new ZipfSampler(bookIds.length, settings.bookSkew(), random);
+        ZipfSampler memberPick = new ZipfSampler(memberIds.length, settings.memberSkew(), random);
+        int[] openByBook = new int[copies.length];
+        LocalDate first = now.toLocalDate().minusYears(settings.years());
+        int days = (int) ChronoUnit.DAYS.between(first, now.toLocalDate()) + 1;
+        double totalWeight = 0;
+        for (int d = 0; d < days; d++) {
+            totalWeight += dayWeight(d, days);
+        }
+
+        long written = 0;
+        long open = 0;
+        long overdue = 0;
+        double carry = 0;
+        try (RowSink sink = sink(LOAN, LOAN.BOOK_ID, LOAN.MEMBER_ID, LOAN.BORROW_DATE, LOAN.DUE_DATE,
+                LOAN.RETURN_DATE, LOAN.STATUS, LOAN.FINE_AMOUNT)) {
+            for (int d = 0; d < days && written < settings.loans(); d++) {
+                carry += settings.loans() * dayWeight(d, days) / totalWeight;
+                int today = (int) carry;
+                carry -= today;
+                LocalDateTime dayStart = first.plusDays(d).atTime(8, 0);
+                for (int n = 0; n < today && written < settings.loans(); n++, written++) {
+                    LocalDateTime borrowAt = dayStart.plusSeconds(random.nextInt(12 * 3600));
+                    if (borrowAt.isAfter(now)) {
+                        borrowAt = now.minusMinutes(1 + random.nextInt(60));
+                    }
+                    LocalDateTime dueAt = borrowAt.plusDays(random.nextInt(10) == 0 ? 28 : 14);
+                    LocalDateTime returnAt = returnTime(borrowAt, dueAt);
+                    int book = bookPick.next(random);
+
+                    if (returnAt == null || returnAt.isAfter(now)) {
+                        if (openByBook[book] < copies[book]) {
+                            openByBook[book]++;
+                            returnAt = null;
+                        } else {
+                            returnAt = now;
+                        }
+                    }
+                    boolean late = returnAt == null && now.isAfter(dueAt);
+                    LoanStatus status = returnAt != null
+                            ? LoanStatus.RETURNED
+                            : late ? LoanStatus.OVERDUE : LoanStatus.BORROWED;
+                    if (returnAt == null) {
+                        open++;
+                        if (late) {
+                            overdue++;
+                        }
+                    }
+                    sink.add(bookIds[book], memberIds[memberPick.next(random)], borrowAt, dueAt, returnAt, status,
+                            returnAt == null ? BigDecimal.ZERO : LOAN_TERMS.fineFor(dueAt, returnAt));
+                }
+            }
+        }
+        return new long[]{open, overdue};
+    }
+
+    /** Loan volume ramps up over the history and dips at weekends. */
+    private static double dayWeight(int day, int days) {
+        double trend = 0.5 + (double) day / days;
+        int dayOfWeek = day % 7;
+        return dayOfWeek >= 5 ? trend * 0.6 : trend;
+    }
+
+    /** Mostly on time, a tail of late returns, and a few loans never returned. */
+    private LocalDateTime returnTime(LocalDateTime borrowAt, LocalDateTime dueAt) {
+        int roll = random.nextInt(1000);
+        if (roll < 3) {
+            return null;
+        }
+        if (roll < 800) {
+            long window = ChronoUnit.MINUTES.between(borrowAt, dueAt);
+            return borrowAt.plusMinutes(60 + random.nextLong(Math.max(window - 60, 1)));
+        }
+        if (roll < 960) {
+            return dueAt.plusHours(1 + random.nextInt(30 * 24));
+        }
+        return dueAt.plusDays(31 + random.nextInt(90));
+    }
+
+    private void insertNotifications(long[] memberIds) {
+        try (RowSink sink = sink(NOTIFICATION, NOTIFICATION.MEMBER_ID, NOTIFICATION.EMAIL, NOTIFICATION.SUBJECT,
+                NOTIFICATION.BODY, NOTIFICATION.CREATED_AT, NOTIFICATION.RETRY_COUNT, NOTIFICATION.LAST_ERROR)) {
+            for (int i = 1; i <= settings.pendingNotifications(); i++) {
+                int retries = random.nextInt(10) == 0 ? 1 + random.nextInt(2) : 0;
+                long memberId = memberIds[random.nextInt(memberIds.length)];
+                sink.add(memberId, "member" + memberId + "@example.com",
+                        "[Library] Reminder #" + i,
+                        "Thông báo thử nghiệm #" + i,
+                        now.minusSeconds(random.nextInt(2 * 24 * 3600)),
+                        retries,
+                        retries > 0 ? "Connection timed out" : null);
+            }
+        }
+        long historySeconds = ChronoUnit.SECONDS.between(now.minusYears(settings.years()), now);
+        try (RowSink sink = sink(NOTIFICATION_HISTORY, NOTIFICATION_HISTORY.MEMBER_ID, NOTIFICATION_HISTORY.EMAIL,
+                NOTIFICATION_HISTORY.SUBJECT, NOTIFICATION_HISTORY.BODY, NOTIFICATION_HISTORY.SUCCESS,
+                NOTIFICATION_HISTORY.ERROR_MESSAGE, NOTIFICATION_HISTORY.CREATED_AT, NOTIFICATION_HISTORY.ARCHIVED_AT)) {
+            for (int i = 1; i <= settings.archivedNotifications(); i++) {
+                boolean success = random.nextInt(20) != 0;
+                long memberId = memberIds[random.nextInt(memberIds.length)];
+                LocalDateTime created = now.minusSeconds(random.nextLong(historySeconds));
+                sink.add(memberId, "member" + memberId + "@example.com",
+                        "[Library] Notice #" + i,
+                        "Thông báo đã gửi #" + i,
+                        success,
+                        success ? null : "Mailbox unavailable",
+                        created,
+                        created.plusMinutes(5 + random.nextInt(120)));
+            }
+        }
+    }
+
+    /**
+     * Stock is copies minus open loans; MEMBER_STANDING is rebuilt from the open loans and
+     * LOAN_DAILY_STATS from the whole history.
+     */
+    private void recomputeDerivedState() {
+        var openByBook = DSL.select(LOAN.BOOK_ID, DSL.count().as("OPEN_LOANS"))
+                .from(LOAN)
+                .where(LOAN.RETURN_DATE.isNull())
+                .groupBy(LOAN.BOOK_ID)
+                .asTable("OPEN_BY_BOOK");
+        dsl.update(BOOK.join(openByBook).on(BOOK.BOOK_ID.eq(openByBook.field(LOAN.BOOK_ID))))
+                .set(BOOK.STOCK, DSL.greatest(DSL.inline(0),
+                        BOOK.STOCK.minus(openByBook.field("OPEN_LOANS", Integer.class))))
+                .execute();
+        dsl.execute("""
+                INSERT INTO MEMBER_STANDING (MEMBER_ID, OPEN_LOANS, EARLIEST_DUE, OUTSTANDING_FINE)
+                SELECT MEMBER_ID, COUNT(*), MIN(DUE_DATE), SUM({0})
+                FROM LOAN
+                WHERE RETURN_DATE IS NULL
+                GROUP BY MEMBER_ID
+                ON DUPLICATE KEY UPDATE
+                  OPEN_LOANS = VALUES(OPEN_LOANS),
+                  EARLIEST_DUE = VALUES(EARLIEST_DUE),
+                  OUTSTANDING_FINE = VALUES(OUTSTANDING_FINE)""", FinePolicy.accruedFine(now));
+        dsl.execute("""
+                INSERT INTO LOAN_DAILY_STATS (STAT_DATE, BOOK_ID, BORROWED, RETURNED, UNRETURNED, FINES)
+                SELECT STAT_DATE, BOOK_ID, SUM(BORROWED), SUM(RETURNED), SUM(UNRETURNED), SUM(FINES)
+                FROM (
+                  SELECT DATE(BORROW_DATE) AS STAT_DATE, BOOK_ID, COUNT(*) AS BORROWED, 0 AS RETURNED,
+                         0 AS UNRETURNED, 0 AS FINES
+                  FROM LOAN GROUP BY DATE(BORROW_DATE), BOOK_ID
+                  UNION ALL
+                  SELECT DATE(RETURN_DATE), BOOK_ID, 0, COUNT(*), 0, SUM(FINE_AMOUNT)
+                  FROM LOAN WHERE RETURN_DATE IS NOT NULL GROUP BY DATE(RETURN_DATE), BOOK_ID
+                  UNION ALL
+                  SELECT DATE(DUE_DATE), BOOK_ID, 0, 0, COUNT(*), 0
+                  FROM LOAN WHERE RETURN_DATE IS NULL GROUP BY DATE(DUE_DATE), BOOK_ID
+                ) d
+                GROUP BY STAT_DATE, BOOK_ID
+                ON DUPLICATE KEY UPDATE
+                  BORROWED = VALUES(BORROWED),
+                  RETURNED = VALUES(RETURNED),
+                  UNRETURNED = VALUES(UNRETURNED),
+                  FINES = VALUES(FINES)""");
+        dsl.execute("ANALYZE TABLE BOOK, MEMBER, LOAN, NOTIFICATION, NOTIFICATION_HISTORY, MEMBER_STANDING, LOAN_DAILY_STATS");
+    }
+
+    private String personName() {
+        return pick(LAST_NAMES) + " " + pick(MIDDLE_NAMES) + " " + pick(FIRST_NAMES);
+    }
+
+    private String pick(String[] values) {
+        return values[random.nextInt(values.length)];
+    }
+
+    private RowSink sink(Table<?> table, Field<?>... fields) {
+        return settings.loadMode() == LoadMode.LOAD_DATA
+                ? new LoadDataSink(table, fields)
+                : new InsertSink(table, fields);
+    }
+
+    private abstract static class RowSink implements AutoCloseable {
+        protected final Table<?> table;
+        protected final Field<?>[] fields;
+        private final long started = System.nanoTime();
+        private long rows;
+
+        RowSink(Table<?> table, Field<?>[] fields) {
+            this.table = table;
+            this.fields = fields;
+        }
+
+        final void add(Object... row) {
+            append(row);
+            rows++;
+        }
+
+        abstract void append(Object[] row);
+
+        abstract void flush();
+
+        @Override
+        public final void close() {
+            flush();
+            long ms = Math.max(Duration.ofNanos(System.nanoTime() - started).toMillis(), 1);
+            log.info("{}: {} rows in {} ms ({} rows/s)", table.getName(), rows, ms, rows * 1000 / ms);
+        }
+    }
+
+    /** Multi-row INSERT per {@code chunkSize} rows, each auto-committed. */
+    private final class InsertSink extends RowSink {
+        private final List<Object[]> pending = new ArrayList<>();
+
+        InsertSink(Table<?> table, Field<?>[] fields) {
+            super(table, fields);
+        }
+
+        @Override
+        void append(Object[] row) {
+            pending.add(row);
+            if (pending.size() >= settings.chunkSize()) {
+                flush();
+            }
+        }
+
+        @Override
+        void flush() {
+            if (pending.isEmpty()) {
+                return;
+            }
+            var insert = dsl.insertInto(table, fields);
+            for (Object[] row : pending) {
+                insert = insert.values(row);
+            }
+            insert.execute();
+            pending.clear();
+        }
+    }
+
+    /** Spools rows to a tab-separated temp file and loads it with one LOAD DATA per 200k rows. */
+    private final class LoadDataSink extends RowSink {
+        private Path file;
+        private BufferedWriter out;
+        private int spooled;
+
+        LoadDataSink(Table<?> table, Field<?>[] fields) {
+            super(table, fields);
+        }
+
+        @Override
+        void append(Object[] row) {
+            try {
+                if (out == null) {
+                    file = Files.createTempFile("datagen-" + table.getName(), ".tsv");
+                    out = Files.newBufferedWriter(file, StandardCharsets.UTF_8);
+                }
+                for (int i = 0; i < row.length; i++) {
+                    if (i > 0) {
+                        out.write('\t');
+                    }
+                    out.write(tsv(row[i]));
+                }
+                out.write('\n');
+            } catch (IOException e) {
+                throw new UncheckedIOException(e);
+            }
+            if (++spooled >= LOAD_DATA_ROWS) {
+                flush();
+            }
+        }
+
+        @Override
+        void flush() {
+            if (out == null) {
+                return;
+            }
+            try {
+                out.close();
+                dsl.execute("LOAD DATA LOCAL INFILE {0} INTO TABLE {1} CHARACTER SET utf8mb4 ({2})",
+                        DSL.inline(file.toAbsolutePath().toString()),
+                        table,
+                        DSL.list(Arrays.stream(fields).map(f -> DSL.name(f.getName())).toList()));
+                Files.deleteIfExists(file);
+            } catch (IOException e) {
+                throw new UncheckedIOException(e);
+            } finally {
+                out = null;
+                spooled = 0;
+            }
+        }
+
+        /** MySQL's default LOAD DATA format: tab-separated, backslash escapes, \N for NULL. */
+        private String tsv(Object value) {
+            if (value == null) {
+                return "\\N";
+            }
+            String text;
+            if (value instanceof LocalDateTime time) {
+                text = SQL_DATETIME.format(time);
+            } else if (value instanceof BigDecimal decimal) {
+                text = decimal.toPlainString();
+            } else if (value instanceof Boolean flag) {
+                text = flag ? "1" : "0";
+            } else if (value instanceof EnumType literal) {
+                text = literal.getLiteral();
+            } else {
+                text = value.toString();
+            }
+            return text.replace("\\", "\\\\").replace("\t", "\\t").replace("\n", "\\n");
+        }
+    }
+}
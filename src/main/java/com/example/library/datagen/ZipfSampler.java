@@ -0,0 +1,44 @@
+package com.example.library.datagen;
+
+import java.util.Arrays;
+import java.util.SplittableRandom;
+
+/**
+ * Draws ranks 1..n with probability proportional to {@code 1 / rank^exponent} from a precomputed
+ * CDF, then maps each rank to a position in {@code [0, n)} through a fixed shuffle so the popular
+ * rows are spread out. Callers index their generated ids with the position.
+ */
+final class ZipfSampler {
+    private final double[] cdf;
+    private final int[] positions;
+
+    ZipfSampler(int n, double exponent, SplittableRandom random) {
+        cdf = new double[n];
+        double sum = 0;
+        for (int rank = 1; rank <= n; rank++) {
+            sum += 1.0 / Math.pow(rank, exponent);
+            cdf[rank - 1] = sum;
+        }
+        for (int i = 0; i < n; i++) {
+            cdf[i] /= sum;
+        }
+        positions = new int[n];
+        for (int i = 0; i < n; i++) {
+            positions[i] = i;
+        }
+        for (int i = n - 1; i > 0; i--) {
+            int j = random.nextInt(i + 1);
+            int tmp = positions[i];
+            positions[i] = positions[j];
+            positions[j] = tmp;
+        }
+    }
+
+    int next(SplittableRandom random) {
+        int index = Arrays.binarySearch(cdf, random.nextDouble());
+        if (index < 0) {
+            index = -index - 1;
+        }
+        return positions[Math.min(index, positions.length - 1)];
+    }
+}
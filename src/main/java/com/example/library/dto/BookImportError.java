@@ -0,0 +1,6 @@
+package com.example.library.dto;
+
+public record BookImportError(
+        long row,
+        String message
+) {}
@@ -0,0 +1,14 @@
+package com.example.library.dto;
+
+import java.util.List;
+
+public record BookImportResult(
+        long rows,
+        long imported,
+        long failed,
+        int authorsCreated,
+        int categoriesCreated,
+        long elapsedMs,
+        double rowsPerSecond,
+        List<BookImportError> errors
+) {}
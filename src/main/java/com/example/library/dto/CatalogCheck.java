@@ -0,0 +1,12 @@
+package com.example.library.dto;
+
+import java.util.List;
+
+public record CatalogCheck(
+        int checked,
+        int missing,
+        int stale,
+        int extra,
+        List<Long> sampleIds,
+        boolean rebuilt
+) {}
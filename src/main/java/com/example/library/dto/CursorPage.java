@@ -0,0 +1,9 @@
+package com.example.library.dto;
+
+import java.util.List;
+
+public record CursorPage<T>(List<T> items, String nextCursor, int size) {
+    public boolean hasNext() {
+        return nextCursor != null;
+    }
+}
@@ -0,0 +1,22 @@
+package com.example.library.dto;
+
+import java.math.BigDecimal;
+import java.time.LocalDateTime;
+import java.util.List;
+
+public record DashboardStats(
+        long totalBooks,
+        long availableBooks,
+        long totalMembers,
+        long activeMembers,
+        long borrowedToday,
+        long overdueLoans,
+        BigDecimal totalFineAmount,
+        List<LoanListItem> recentLoans,
+        List<BorrowReturnStat> borrowReturnStats,
+        List<ChartDataPoint> topBooks,
+        List<ChartDataPoint> categoryBorrows,
+        List<ChartDataPoint> topMembers,
+        List<ChartDataPoint> overdueTimeline,
+        LocalDateTime refreshedAt
+) {}
@@ -0,0 +1,29 @@
+package com.example.library.dto;
+
+import java.math.BigDecimal;
+import java.time.LocalDateTime;
+import java.time.temporal.ChronoUnit;
+
+/** Fine terms a loan was checked out under; {@code cap} is {@code null} when the fine is uncapped. */
+public record FineTerms(
+        BigDecimal dailyRate,
+        int graceDays,
+        BigDecimal cap
+) {
+    /**
+     * Fine for a loan due at {@code due} and returned (or still out) at {@code at}: every started
+     * late day counts, the first {@code graceDays} are free, and the total never exceeds the cap.
+     */
+    public BigDecimal fineFor(LocalDateTime due, LocalDateTime at) {
+        if (due == null || at == null || !at.isAfter(due)) {
+            return BigDecimal.ZERO;
+        }
+        long lateDays = Math.max(1, ChronoUnit.DAYS.between(due.toLocalDate(), at.toLocalDate()));
+        long charged = lateDays - graceDays;
+        if (charged <= 0) {
+            return BigDecimal.ZERO;
+        }
+        BigDecimal fine = dailyRate.multiply(BigDecimal.valueOf(charged));
+        return cap != null && fine.compareTo(cap) > 0 ? cap : fine;
+    }
+}
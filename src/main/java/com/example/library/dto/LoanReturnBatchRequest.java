@@ -0,0 +1,12 @@
+package com.example.library.dto;
+
+import com.fasterxml.jackson.annotation.JsonFormat;
+import jakarta.validation.constraints.NotEmpty;
+import jakarta.validation.constraints.Size;
+import java.time.LocalDate;
+import java.util.List;
+
+public record LoanReturnBatchRequest(
+        @NotEmpty @Size(max = 10_000) List<Long> loanIds,
+        @JsonFormat(pattern = "yyyy-MM-dd") LocalDate returnDate
+) {}
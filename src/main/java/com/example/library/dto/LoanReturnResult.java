@@ -0,0 +1,15 @@
+package com.example.library.dto;
+
+import java.math.BigDecimal;
+
+public record LoanReturnResult(
+        Long loanId,
+        Outcome outcome,
+        BigDecimal fine
+) {
+    public enum Outcome {
+        RETURNED,
+        ALREADY_RETURNED,
+        NOT_FOUND
+    }
+}
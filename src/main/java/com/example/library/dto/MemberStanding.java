@@ -0,0 +1,16 @@
+package com.example.library.dto;
+
+import java.math.BigDecimal;
+import java.time.LocalDateTime;
+
+public record MemberStanding(
+        int openLoans,
+        LocalDateTime earliestDue,
+        BigDecimal outstandingFine
+) {
+    public static final MemberStanding NONE = new MemberStanding(0, null, BigDecimal.ZERO);
+
+    public boolean hasOverdueLoans(LocalDateTime now) {
+        return earliestDue != null && earliestDue.isBefore(now);
+    }
+}
@@ -0,0 +1,14 @@
+package com.example.library.dto;
+
+public record NotificationDraft(
+        Long memberId,
+        String email,
+        String subject,
+        String body,
+        NotificationKind kind,
+        Long loanId
+) {
+    public NotificationDraft(Long memberId, String email, String subject, String body) {
+        this(memberId, email, subject, body, null, null);
+    }
+}
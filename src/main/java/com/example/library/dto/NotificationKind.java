@@ -0,0 +1,7 @@
+package com.example.library.dto;
+
+public enum NotificationKind {
+    DUE_SOON,
+    OVERDUE,
+    FINE
+}
@@ -2,7 +2,11 @@ package com.example.library.dto;
 
 import java.util.List;
 
-public record PagedResult<T>(List<T> items, long total, int page, int size) {
+public record PagedResult<T>(List<T> items, long total, int page, int size, boolean estimated) {
+    public PagedResult(List<T> items, long total, int page, int size) {
+        this(items, total, page, size, false);
+    }
+
     public long totalPages() {
         if (size <= 0) {
             return 1;
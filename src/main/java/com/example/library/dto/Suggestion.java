@@ -0,0 +1,7 @@
+package com.example.library.dto;
+
+public record Suggestion(
+        Long id,
+        String label,
+        String detail
+) {}
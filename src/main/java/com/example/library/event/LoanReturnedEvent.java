@@ -0,0 +1,15 @@
+package com.example.library.event;
+
+import java.math.BigDecimal;
+import java.time.LocalDateTime;
+
+public record LoanReturnedEvent(
+        Long loanId,
+        Long memberId,
+        Long bookId,
+        LocalDateTime borrowedAt,
+        LocalDateTime dueAt,
+        LocalDateTime returnedAt,
+        BigDecimal previousFine,
+        BigDecimal fine
+) {}
@@ -0,0 +1,13 @@
+package com.example.library.event;
+
+import java.time.LocalDateTime;
+import java.util.List;
+
+public record LoansBorrowedEvent(
+        Long memberId,
+        List<Long> loanIds,
+        List<Long> bookIds,
+        LocalDateTime borrowedAt,
+        LocalDateTime dueAt,
+        int booksOutOfStock
+) {}
@@ -0,0 +1,8 @@
+package com.example.library.event;
+
+import java.util.List;
+
+/** Published once per batch return instead of one {@link LoanReturnedEvent} per loan. */
+public record LoansReturnedEvent(
+        List<LoanReturnedEvent> returns
+) {}
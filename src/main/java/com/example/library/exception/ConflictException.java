@@ -0,0 +1,13 @@
+package com.example.library.exception;
+
+/**
+ * A well-formed request that the current state of the library refuses: the last copy is already
+ * taken, or the member may not borrow more books. Mapped to 409 rather than 400.
+ */
+public class ConflictException extends RuntimeException {
+    private static final long serialVersionUID = 1L;
+
+    public ConflictException(String message) {
+        super(message);
+    }
+}
@@ -27,6 +27,14 @@ public class GlobalExceptionHandler {
         ));
     }
 
+    /** Business-rule rejections (member not eligible, stock taken concurrently): the request was valid. */
+    @ExceptionHandler(ConflictException.class)
+    public ResponseEntity<ApiError> handleConflict(ConflictException ex, HttpServletRequest req) {
+        return ResponseEntity.status(HttpStatus.CONFLICT).body(new ApiError(
+                req.getRequestURI(), 409, "Conflict", ex.getMessage(), Instant.now()
+        ));
+    }
+
     @ExceptionHandler(Exception.class)
     public ResponseEntity<ApiError> handleAny(Exception ex, HttpServletRequest req) {
         return ResponseEntity.status(HttpStatus.INTERNAL_SERVER_ERROR).body(new ApiError(
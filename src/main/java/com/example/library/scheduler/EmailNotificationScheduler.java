@@ -2,29 +2,131 @@
 package com.example.library.scheduler;
 
 import com.example.library.service.NotificationService;
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Timer;
+import java.util.List;
+import java.util.Map;
+import java.util.Queue;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Semaphore;
+import java.util.concurrent.TimeUnit;
 import org.jooq.Record;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Value;
 import org.springframework.scheduling.annotation.Scheduled;
 import org.springframework.stereotype.Component;
-import java.util.List;
+
+import static com.example.library.jooq.tables.Notification.NOTIFICATION;
 
 @Component
 public class EmailNotificationScheduler {
+    private static final Logger log = LoggerFactory.getLogger(EmailNotificationScheduler.class);
+
     private final NotificationService notificationService;
-    public EmailNotificationScheduler(NotificationService notificationService) {
+    private final int batchSize;
+    private final int lockTimeoutSec;
+    private final int retryDelaySec;
+    private final int maxWaves;
+    private final Semaphore smtpSessions;
+    private final Counter sent;
+    private final Counter failed;
+    private final Timer sendLatency;
+
+    public EmailNotificationScheduler(NotificationService notificationService,
+                                      MeterRegistry meterRegistry,
+                                      @Value("${library.notifications.batch-size:200}") int batchSize,
+                                      @Value("${library.notifications.lock-timeout-seconds:300}") int lockTimeoutSec,
+                                      @Value("${library.notifications.retry-delay-seconds:240}") int retryDelaySec,
+                                      @Value("${library.notifications.max-in-flight:8}") int maxInFlight,
+                                      @Value("${library.notifications.max-waves-per-run:50}") int maxWaves) {
         this.notificationService = notificationService;
+        this.batchSize = Math.max(batchSize, 1);
+        this.lockTimeoutSec = Math.max(lockTimeoutSec, 1);
+        this.retryDelaySec = Math.max(retryDelaySec, 0);
+        this.maxWaves = Math.max(maxWaves, 1);
+        this.smtpSessions = new Semaphore(Math.max(maxInFlight, 1));
+        this.sent = meterRegistry.counter("library.notifications.sent");
+        this.failed = meterRegistry.counter("library.notifications.failed");
+        this.sendLatency = meterRegistry.timer("library.notifications.send.latency");
     }
 
     @Scheduled(cron = "0 */5 * * * *", zone = "Asia/Ho_Chi_Minh")
     public void sendPendingNotifications() {
-        String pid = NotificationService.newProcessId();
-        List<Record> batch = notificationService.claimBatch(pid, 300, 50);
-        for (Record r : batch) {
-            try {
-                notificationService.sendEmail(r);
-                notificationService.markSuccessAndArchive(r);
-            } catch (Exception e) {
-                notificationService.markFailureAndMaybeArchive(r, e.getMessage());
+        int waves = 0;
+        while (waves < maxWaves) {
+            String pid = NotificationService.newProcessId();
+            List<Record> batch = notificationService.claimBatch(pid, lockTimeoutSec, retryDelaySec, batchSize);
+            if (batch.isEmpty()) {
+                break;
+            }
+            dispatch(batch);
+            waves++;
+            if (batch.size() < batchSize) {
+                break;
+            }
+        }
+        if (waves > 0) {
+            log.info("Notification run finished after {} waves (sent {}, failed {} so far)",
+                    waves, (long) sent.count(), (long) failed.count());
+        }
+    }
+
+    private void dispatch(List<Record> batch) {
+        Queue<Long> delivered = new ConcurrentLinkedQueue<>();
+        Map<Long, String> errors = new ConcurrentHashMap<>();
+        try (ExecutorService executor = Executors.newVirtualThreadPerTaskExecutor()) {
+            for (Record r : batch) {
+                executor.submit(() -> send(r, delivered, errors));
             }
         }
+        // independent transactions: failing to archive the sent mails must not keep the failures locked
+        try {
+            notificationService.archiveSent(List.copyOf(delivered));
+        } catch (RuntimeException e) {
+            log.warn("Could not archive {} sent notifications; they stay locked until the lock times out",
+                    delivered.size(), e);
+        }
+        try {
+            notificationService.recordFailures(errors);
+        } catch (RuntimeException e) {
+            log.warn("Could not record {} failed notifications", errors.size(), e);
+        }
+    }
+
+    private void send(Record r, Queue<Long> delivered, Map<Long, String> errors) {
+        Long id = r.get(NOTIFICATION.ID);
+        Exception error;
+        try {
+            error = deliver(r);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            return;
+        }
+        if (error == null) {
+            sent.increment();
+            delivered.add(id);
+        } else {
+            failed.increment();
+            errors.put(id, error.getMessage() == null ? error.getClass().getSimpleName() : error.getMessage());
+        }
+    }
+
+    private Exception deliver(Record r) throws InterruptedException {
+        smtpSessions.acquire();
+        long started = System.nanoTime();
+        try {
+            notificationService.sendEmail(r);
+            return null;
+        } catch (Exception e) {
+            return e;
+        } finally {
+            sendLatency.record(System.nanoTime() - started, TimeUnit.NANOSECONDS);
+            smtpSessions.release();
+        }
     }
 }
@@ -1,17 +1,39 @@
 package com.example.library.scheduler;
 
+import com.example.library.dto.NotificationDraft;
+import com.example.library.dto.NotificationKind;
 import com.example.library.jooq.enums.LoanStatus;
+import com.example.library.service.CountCache;
+import com.example.library.service.FinePolicy;
+import com.example.library.service.JobCheckpointService;
 import com.example.library.service.NotificationService;
+import com.example.library.util.JdbcStreaming;
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Timer;
 import java.math.BigDecimal;
 import java.text.NumberFormat;
+import java.time.LocalDate;
 import java.time.LocalDateTime;
 import java.time.temporal.ChronoUnit;
+import java.util.ArrayList;
 import java.util.List;
 import java.util.Locale;
+import java.util.concurrent.TimeUnit;
+import java.util.function.ToIntFunction;
+import org.jooq.Condition;
+import org.jooq.Cursor;
 import org.jooq.DSLContext;
-import org.jooq.Record6;
+import org.jooq.Record7;
+import org.jooq.Result;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.event.EventListener;
 import org.springframework.scheduling.annotation.Scheduled;
 import org.springframework.stereotype.Component;
+import org.springframework.transaction.support.TransactionTemplate;
 
 import static com.example.library.jooq.tables.Book.BOOK;
 import static com.example.library.jooq.tables.Loan.LOAN;
@@ -19,15 +41,37 @@ import static com.example.library.jooq.tables.Member.MEMBER;
 
 @Component
 public class OverdueScheduler {
-    private static final long FINE_PER_DAY = 5_000L;
+    private static final Logger log = LoggerFactory.getLogger(OverdueScheduler.class);
+    private static final String JOB_DUE_SOON = "DUE_SOON";
+    private static final String JOB_OVERDUE = "OVERDUE";
 
     private final DSLContext dsl;
     private final NotificationService notificationService;
+    private final CountCache countCache;
+    private final JobCheckpointService checkpoints;
+    private final TransactionTemplate transactionTemplate;
+    private final int chunkSize;
+    private final Counter loansMarked;
+    private final Counter noticesQueued;
+    private final Timer overdueRun;
     private final NumberFormat currencyFormat = NumberFormat.getInstance(new Locale("vi", "VN"));
 
-    public OverdueScheduler(DSLContext dsl, NotificationService notificationService) {
+    public OverdueScheduler(DSLContext dsl,
+                            NotificationService notificationService,
+                            CountCache countCache,
+                            JobCheckpointService checkpoints,
+                            TransactionTemplate transactionTemplate,
+                            MeterRegistry meterRegistry,
+                            @Value("${library.overdue.chunk-size:500}") int chunkSize) {
         this.dsl = dsl;
         this.notificationService = notificationService;
+        this.countCache = countCache;
+        this.checkpoints = checkpoints;
+        this.transactionTemplate = transactionTemplate;
+        this.chunkSize = Math.max(chunkSize, 1);
+        this.loansMarked = meterRegistry.counter("library.overdue.loans.marked");
+        this.noticesQueued = meterRegistry.counter("library.overdue.notices.queued");
+        this.overdueRun = meterRegistry.timer("library.overdue.run");
         currencyFormat.setMaximumFractionDigits(0);
     }
 
@@ -37,6 +81,27 @@ public class OverdueScheduler {
 
         handleDueSoonLoans(now);
         handleOverdueLoans(now);
+        countCache.invalidate(CountCache.LOANS);
+    }
+
+    /** Finishes whichever of today's jobs was interrupted; a job that already completed is not rerun. */
+    @EventListener(ApplicationReadyEvent.class)
+    public void resumeInterruptedRun() {
+        LocalDateTime now = LocalDateTime.now();
+        boolean dueSoon = checkpoints.isUnfinished(JOB_DUE_SOON, now.toLocalDate());
+        boolean overdue = checkpoints.isUnfinished(JOB_OVERDUE, now.toLocalDate());
+        if (!dueSoon && !overdue) {
+            return;
+        }
+        log.info("Resuming today's interrupted jobs from their last committed chunk (due-soon: {}, overdue: {})",
+                dueSoon, overdue);
+        if (dueSoon) {
+            handleDueSoonLoans(now);
+        }
+        if (overdue) {
+            handleOverdueLoans(now);
+        }
+        countCache.invalidate(CountCache.LOANS);
     }
 
     private long calculateLateDays(LocalDateTime due, LocalDateTime reference) {
@@ -48,99 +113,141 @@ public class OverdueScheduler {
     }
 
     private void handleDueSoonLoans(LocalDateTime now) {
-        LocalDateTime threshold = now.plusDays(1);
-        List<Record6<Long, LocalDateTime, String, Long, String, String>> dueSoon = dsl.select(
-                        LOAN.LOAN_ID,
-                        LOAN.DUE_DATE,
-                        BOOK.TITLE,
-                        LOAN.MEMBER_ID,
-                        MEMBER.FULL_NAME,
-                        MEMBER.EMAIL)
-                .from(LOAN)
-                .join(BOOK).on(LOAN.BOOK_ID.eq(BOOK.BOOK_ID))
-                .join(MEMBER).on(LOAN.MEMBER_ID.eq(MEMBER.MEMBER_ID))
-                .where(LOAN.RETURN_DATE.isNull()
-                        .and(LOAN.STATUS.eq(LoanStatus.BORROWED))
-                        .and(LOAN.DUE_DATE.gt(now))
-                        .and(LOAN.DUE_DATE.le(threshold)))
-                .fetch();
-
-        for (Record6<Long, LocalDateTime, String, Long, String, String> record : dueSoon) {
-            Long loanId = record.get(LOAN.LOAN_ID);
-            LocalDateTime due = record.get(LOAN.DUE_DATE);
-            String bookTitle = record.get(BOOK.TITLE);
-            Long memberId = record.get(LOAN.MEMBER_ID);
-            String memberName = record.get(MEMBER.FULL_NAME);
-            String email = record.get(MEMBER.EMAIL);
-
-            long daysRemaining = Math.max(0, ChronoUnit.DAYS.between(now.toLocalDate(), due.toLocalDate()));
-            String subject = "[Library] Reminder loan #" + loanId + " due soon";
-            String body = String.format(
-                    Locale.ENGLISH,
-                    "Xin chào %s,%n%n" +
-                            "Phiếu mượn #%d cho cuốn sách \"%s\" sẽ đến hạn vào %s." +
-                            " Còn %d ngày để trả sách.%n%n" +
-                            "Vui lòng trả sách đúng hạn để tránh phát sinh phí phạt. Cảm ơn bạn!",
-                    memberName,
-                    loanId,
-                    bookTitle,
-                    due.toLocalDate(),
-                    daysRemaining);
-
-            notificationService.queueNotification(memberId, email, subject, body);
-        }
+        Condition dueSoon = LOAN.RETURN_DATE.isNull()
+                .and(LOAN.STATUS.eq(LoanStatus.BORROWED))
+                .and(LOAN.DUE_DATE.gt(now))
+                .and(LOAN.DUE_DATE.le(now.plusDays(1)));
+
+        long queued = streamInChunks(JOB_DUE_SOON, now, dueSoon, chunk -> {
+            List<NotificationDraft> reminders = new ArrayList<>(chunk.size());
+            for (Record7<Long, LocalDateTime, String, Long, String, String, BigDecimal> record : chunk) {
+                reminders.add(dueSoonReminder(record, now));
+            }
+            return notificationService.queueNotifications(reminders);
+        });
+        log.info("Due-soon run finished: {} reminders queued", queued);
     }
 
+    /**
+     * Flags loans that fell overdue since the last run and queues today's notice for every overdue
+     * loan. Fines are not written here: an open loan's fine follows from its stored terms and due
+     * date ({@link FinePolicy#accruedFine}), so loans already flagged are only read.
+     */
     private void handleOverdueLoans(LocalDateTime now) {
-        List<Record6<Long, LocalDateTime, String, Long, String, String>> overdues = dsl.select(
+        Condition overdue = LOAN.RETURN_DATE.isNull().and(LOAN.DUE_DATE.lt(now));
+        long started = System.nanoTime();
+
+        long queued = streamInChunks(JOB_OVERDUE, now, overdue, chunk -> {
+            long firstLoanId = chunk.get(0).get(LOAN.LOAN_ID);
+            long lastLoanId = chunk.get(chunk.size() - 1).get(LOAN.LOAN_ID);
+            int marked = dsl.update(LOAN)
+                    .set(LOAN.STATUS, LoanStatus.OVERDUE)
+                    .where(LOAN.LOAN_ID.between(firstLoanId, lastLoanId)
+                            .and(overdue)
+                            .and(LOAN.STATUS.eq(LoanStatus.BORROWED)))
+                    .execute();
+
+            List<NotificationDraft> notices = new ArrayList<>(chunk.size());
+            for (Record7<Long, LocalDateTime, String, Long, String, String, BigDecimal> record : chunk) {
+                notices.add(overdueNotice(record, now));
+            }
+            int notified = notificationService.queueNotifications(notices);
+            loansMarked.increment(marked);
+            noticesQueued.increment(notified);
+            log.info("Overdue chunk (loans {}..{}): marked {}, queued {} notices",
+                    firstLoanId, lastLoanId, marked, notified);
+            return notified;
+        });
+        overdueRun.record(System.nanoTime() - started, TimeUnit.NANOSECONDS);
+        log.info("Overdue run finished: {} notices queued", queued);
+    }
+
+    /**
+     * Streams loans matching {@code condition} row by row in LOAN_ID order and hands them to
+     * {@code handler} {@code chunkSize} rows at a time. Each chunk and its checkpoint commit together in
+     * a transaction of their own (the stream keeps its connection), so a rerun on the same day continues
+     * after the last committed chunk.
+     */
+    private long streamInChunks(String job,
+                                LocalDateTime now,
+                                Condition condition,
+                                ToIntFunction<Result<Record7<Long, LocalDateTime, String, Long, String, String, BigDecimal>>> handler) {
+        LocalDate runDate = now.toLocalDate();
+        long resumeAfter = checkpoints.resumeFrom(job, runDate);
+        long handled = 0;
+        try (Cursor<Record7<Long, LocalDateTime, String, Long, String, String, BigDecimal>> cursor = dsl.select(
                         LOAN.LOAN_ID,
                         LOAN.DUE_DATE,
                         BOOK.TITLE,
                         LOAN.MEMBER_ID,
                         MEMBER.FULL_NAME,
-                        MEMBER.EMAIL)
+                        MEMBER.EMAIL,
+                        FinePolicy.accruedFine(now))
                 .from(LOAN)
                 .join(BOOK).on(LOAN.BOOK_ID.eq(BOOK.BOOK_ID))
                 .join(MEMBER).on(LOAN.MEMBER_ID.eq(MEMBER.MEMBER_ID))
-                .where(LOAN.RETURN_DATE.isNull().and(LOAN.DUE_DATE.lt(now)))
-                .fetch();
-
-        for (Record6<Long, LocalDateTime, String, Long, String, String> record : overdues) {
-            Long loanId = record.get(LOAN.LOAN_ID);
-            LocalDateTime due = record.get(LOAN.DUE_DATE);
-            String bookTitle = record.get(BOOK.TITLE);
-            Long memberId = record.get(LOAN.MEMBER_ID);
-            String memberName = record.get(MEMBER.FULL_NAME);
-            String email = record.get(MEMBER.EMAIL);
-
-            long lateDays = calculateLateDays(due, now);
-            if (lateDays <= 0) {
-                continue;
+                .where(condition.and(LOAN.LOAN_ID.gt(resumeAfter)))
+                .orderBy(LOAN.LOAN_ID.asc())
+                .fetchSize(JdbcStreaming.ROW_BY_ROW)
+                .fetchLazy()) {
+            while (cursor.hasNext()) {
+                Result<Record7<Long, LocalDateTime, String, Long, String, String, BigDecimal>> chunk = cursor.fetchNext(chunkSize);
+                long lastLoanId = chunk.get(chunk.size() - 1).get(LOAN.LOAN_ID);
+                Integer result = transactionTemplate.execute(status -> {
+                    int count = handler.applyAsInt(chunk);
+                    checkpoints.advance(job, runDate, lastLoanId, chunk.size());
+                    return count;
+                });
+                handled += result == null ? 0 : result;
             }
-            BigDecimal fine = BigDecimal.valueOf(lateDays * FINE_PER_DAY);
+        }
+        checkpoints.complete(job, runDate);
+        return handled;
+    }
 
-            dsl.update(LOAN)
-                    .set(LOAN.STATUS, LoanStatus.OVERDUE)
-                    .set(LOAN.FINE_AMOUNT, fine)
-                    .where(LOAN.LOAN_ID.eq(loanId))
-                    .execute();
+    private NotificationDraft dueSoonReminder(Record7<Long, LocalDateTime, String, Long, String, String, BigDecimal> record,
+                                              LocalDateTime now) {
+        Long loanId = record.get(LOAN.LOAN_ID);
+        LocalDateTime due = record.get(LOAN.DUE_DATE);
+        long daysRemaining = Math.max(0, ChronoUnit.DAYS.between(now.toLocalDate(), due.toLocalDate()));
+        String subject = "[Library] Reminder loan #" + loanId + " due soon";
+        String body = String.format(
+                Locale.ENGLISH,
+                "Xin chào %s,%n%n" +
+                        "Phiếu mượn #%d cho cuốn sách \"%s\" sẽ đến hạn vào %s." +
+                        " Còn %d ngày để trả sách.%n%n" +
+                        "Vui lòng trả sách đúng hạn để tránh phát sinh phí phạt. Cảm ơn bạn!",
+                record.get(MEMBER.FULL_NAME),
+                loanId,
+                record.get(BOOK.TITLE),
+                due.toLocalDate(),
+                daysRemaining);
+        return new NotificationDraft(record.get(LOAN.MEMBER_ID), record.get(MEMBER.EMAIL), subject, body,
+                NotificationKind.DUE_SOON, loanId);
+    }
 
-            String subject = "[Library] Overdue loan #" + loanId;
-            String body = String.format(
-                    Locale.ENGLISH,
-                    "Xin chào %s,%n%n" +
-                            "Phiếu mượn #%d cho cuốn sách \"%s\" đã quá hạn %d ngày (đến hạn từ %s).%n" +
-                            "Phí phạt hiện tại: %s VND.%n%n" +
-                            "Vui lòng sắp xếp trả sách sớm nhất có thể. Cảm ơn bạn!",
-                    memberName,
-                    loanId,
-                    bookTitle,
-                    lateDays,
-                    due.toLocalDate(),
-                    currencyFormat.format(fine.longValue())
-            );
-
-            notificationService.queueNotification(memberId, email, subject, body);
-        }
+    private NotificationDraft overdueNotice(Record7<Long, LocalDateTime, String, Long, String, String, BigDecimal> record,
+                                            LocalDateTime now) {
+        Long loanId = record.get(LOAN.LOAN_ID);
+        LocalDateTime due = record.get(LOAN.DUE_DATE);
+        long lateDays = calculateLateDays(due, now);
+        BigDecimal fine = record.value7();
+
+        String subject = "[Library] Overdue loan #" + loanId;
+        String body = String.format(
+                Locale.ENGLISH,
+                "Xin chào %s,%n%n" +
+                        "Phiếu mượn #%d cho cuốn sách \"%s\" đã quá hạn %d ngày (đến hạn từ %s).%n" +
+                        "Phí phạt hiện tại: %s VND.%n%n" +
+                        "Vui lòng sắp xếp trả sách sớm nhất có thể. Cảm ơn bạn!",
+                record.get(MEMBER.FULL_NAME),
+                loanId,
+                record.get(BOOK.TITLE),
+                lateDays,
+                due.toLocalDate(),
+                currencyFormat.format(fine.longValue())
+        );
+        return new NotificationDraft(record.get(LOAN.MEMBER_ID), record.get(MEMBER.EMAIL), subject, body,
+                NotificationKind.OVERDUE, loanId);
     }
 }
@@ -15,9 +15,21 @@ import static com.example.library.jooq.tables.Author.AUTHOR;
 @Service
 public class AuthorService {
     private final DSLContext dsl;
+    private final CountCache countCache;
+    private final BookSearchIndex searchIndex;
+    private final BookCatalog catalog;
+    private final SuggestIndex suggestIndex;
 
-    public AuthorService(DSLContext dsl) {
+    public AuthorService(DSLContext dsl,
+                         CountCache countCache,
+                         BookSearchIndex searchIndex,
+                         BookCatalog catalog,
+                         SuggestIndex suggestIndex) {
         this.dsl = dsl;
+        this.countCache = countCache;
+        this.searchIndex = searchIndex;
+        this.catalog = catalog;
+        this.suggestIndex = suggestIndex;
     }
 
     public Result<AuthorRecord> search(String q, int page, int size) {
@@ -68,6 +80,10 @@ public class AuthorService {
         if (rows == 0) {
             throw new IllegalArgumentException("Author not found: " + id);
         }
+        countCache.invalidate(CountCache.BOOKS);
+        searchIndex.reindexAuthor(id);
+        catalog.renameAuthor(id, dto.name());
+        suggestIndex.refreshAuthor(id);
     }
 
     @Transactional
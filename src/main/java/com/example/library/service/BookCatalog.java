@@ -0,0 +1,624 @@
+package com.example.library.service;
+
+import com.example.library.dto.BookListItem;
+import com.example.library.dto.CatalogCheck;
+import com.example.library.dto.PagedResult;
+import com.example.library.event.LoanReturnedEvent;
+import com.example.library.event.LoansBorrowedEvent;
+import com.example.library.event.LoansReturnedEvent;
+import com.example.library.jooq.enums.BookStatus;
+import com.example.library.util.AfterCommit;
+import com.example.library.util.JdbcStreaming;
+import com.example.library.util.TextNormalizer;
+import java.math.BigDecimal;
+import java.math.RoundingMode;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collection;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.locks.ReentrantReadWriteLock;
+import java.util.stream.IntStream;
+import org.jooq.Condition;
+import org.jooq.DSLContext;
+import org.jooq.Field;
+import org.jooq.Record;
+import org.jooq.SelectConditionStep;
+import org.jooq.impl.DSL;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.event.EventListener;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.event.TransactionalEventListener;
+
+import static com.example.library.jooq.tables.Author.AUTHOR;
+import static com.example.library.jooq.tables.Book.BOOK;
+import static com.example.library.jooq.tables.Category.CATEGORY;
+
+/**
+ * Optional in-process copy of the {@link BookListItem} projection, stored column-wise in
+ * primitive arrays (price as unscaled cents, status as ordinal) with author and category names
+ * kept once per id. Filter/sort/page queries scan the columns without touching MySQL. Book writes
+ * and borrow/return events reload the affected rows after commit; {@link #check(boolean)} compares
+ * against the database and {@link #rebuild()} reloads everything (queries fall back to MySQL meanwhile).
+ */
+@Service
+public class BookCatalog {
+    private static final Logger log = LoggerFactory.getLogger(BookCatalog.class);
+
+    private static final Field<String> COVER_PATH = DSL.field("COVER_PATH", String.class);
+    private static final int PRICE_SCALE = 2;
+    private static final long NO_PRICE = Long.MIN_VALUE;
+    private static final BookStatus[] STATUSES = BookStatus.values();
+    private static final int MAX_SAMPLE_IDS = 20;
+
+    private final DSLContext dsl;
+    private final BookSearchIndex searchIndex;
+    private final boolean enabled;
+    private final ReentrantReadWriteLock lock = new ReentrantReadWriteLock();
+
+    private final Map<Long, Integer> slots = new HashMap<>();
+    private final Map<Long, String> authorNames = new HashMap<>();
+    private final Map<Long, String> categoryNames = new HashMap<>();
+    private long[] ids = new long[0];
+    private String[] titles = new String[0];
+    private String[] foldedTitles = new String[0];
+    private long[] authorIds = new long[0];
+    private long[] categoryIds = new long[0];
+    private long[] prices = new long[0];
+    private int[] stocks = new int[0];
+    private byte[] statuses = new byte[0];
+    private String[] coverPaths = new String[0];
+    private int rows;
+    private volatile boolean ready;
+
+    public BookCatalog(DSLContext dsl,
+                       BookSearchIndex searchIndex,
+                       @Value("${library.catalog.enabled:false}") boolean enabled) {
+        this.dsl = dsl;
+        this.searchIndex = searchIndex;
+        this.enabled = enabled;
+    }
+
+    public boolean isReady() {
+        return enabled && ready;
+    }
+
+    @EventListener(ApplicationReadyEvent.class)
+    public void onStartup() {
+        if (enabled) {
+            rebuild();
+        }
+    }
+
+    public int rebuild() {
+        if (!enabled) {
+            throw new IllegalStateException("Book catalog is disabled (library.catalog.enabled=false)");
+        }
+        long started = System.nanoTime();
+        ready = false;
+        lock.writeLock().lock();
+        try {
+            slots.clear();
+            authorNames.clear();
+            categoryNames.clear();
+            rows = 0;
+            int expected = dsl.fetchCount(BOOK);
+            ensureCapacity(expected + 16);
+            load(DSL.trueCondition());
+            ready = true;
+        } finally {
+            lock.writeLock().unlock();
+        }
+        log.info("Book catalog loaded {} books in {} ms", rows, (System.nanoTime() - started) / 1_000_000);
+        return rows;
+    }
+
+    public void refreshBook(Long bookId) {
+        afterCommit(() -> reload(List.of(bookId)));
+    }
+
+    public void remove(Long bookId) {
+        afterCommit(() -> {
+            lock.writeLock().lock();
+            try {
+                removeSlot(bookId);
+            } finally {
+                lock.writeLock().unlock();
+            }
+        });
+    }
+
+    public void renameAuthor(Long authorId, String name) {
+        afterCommit(() -> {
+            lock.writeLock().lock();
+            try {
+                authorNames.put(authorId, name);
+            } finally {
+                lock.writeLock().unlock();
+            }
+        });
+    }
+
+    public void renameCategory(Long categoryId, String name) {
+        afterCommit(() -> {
+            lock.writeLock().lock();
+            try {
+                categoryNames.put(categoryId, name);
+            } finally {
+                lock.writeLock().unlock();
+            }
+        });
+    }
+
+    /** Stock changes reload the borrowed rows rather than applying a delta, so a replay is harmless. */
+    @TransactionalEventListener(fallbackExecution = true)
+    public void onBorrowed(LoansBorrowedEvent event) {
+        if (enabled) {
+            reload(event.bookIds());
+        }
+    }
+
+    @TransactionalEventListener(fallbackExecution = true)
+    public void onReturned(LoanReturnedEvent event) {
+        if (enabled) {
+            reload(List.of(event.bookId()));
+        }
+    }
+
+    @TransactionalEventListener(fallbackExecution = true)
+    public void onReturnedBatch(LoansReturnedEvent event) {
+        if (enabled) {
+            reload(event.returns().stream().map(LoanReturnedEvent::bookId).distinct().toList());
+        }
+    }
+
+    public PagedResult<BookListItem> page(String q,
+                                          Long authorId,
+                                          Long categoryId,
+                                          BookStatus status,
+                                          BigDecimal minPrice,
+                                          BigDecimal maxPrice,
+                                          BookSort sort,
+                                          boolean desc,
+                                          int page,
+                                          int size) {
+        lock.readLock().lock();
+        try {
+            int[] matched = match(q, authorId, categoryId, status, minPrice, maxPrice, false);
+            int pageSize = Math.max(size, 1);
+            int from = (int) Math.min((long) Math.max(page, 0) * pageSize, matched.length);
+            int to = Math.min(from + pageSize, matched.length);
+            int[] leading = sorted(matched, to, sort, desc);
+            return new PagedResult<>(materialize(Arrays.copyOfRange(leading, from, to)), matched.length, page, size);
+        } finally {
+            lock.readLock().unlock();
+        }
+    }
+
+    public List<BookListItem> list(String q,
+                                   Long authorId,
+                                   Long categoryId,
+                                   BookStatus status,
+                                   BigDecimal minPrice,
+                                   BigDecimal maxPrice,
+                                   BookSort sort,
+                                   boolean desc) {
+        lock.readLock().lock();
+        try {
+            int[] matched = match(q, authorId, categoryId, status, minPrice, maxPrice, false);
+            return materialize(sorted(matched, matched.length, sort, desc));
+        } finally {
+            lock.readLock().unlock();
+        }
+    }
+
+    public List<BookListItem> listAvailable() {
+        lock.readLock().lock();
+        try {
+            int[] matched = match(null, null, null, BookStatus.AVAILABLE, null, null, true);
+            return materialize(sorted(matched, matched.length, BookSort.TITLE, false));
+        } finally {
+            lock.readLock().unlock();
+        }
+    }
+
+    /** Applies the filters to already ranked ids, keeping their order. */
+    public PagedResult<BookListItem> pageRanked(List<Long> ranked,
+                                                Long authorId,
+                                                Long categoryId,
+                                                BookStatus status,
+                                                BigDecimal minPrice,
+                                                BigDecimal maxPrice,
+                                                int page,
+                                                int size) {
+        lock.readLock().lock();
+        try {
+            Filter filter = new Filter(authorId, categoryId, status, minPrice, maxPrice, false);
+            int[] matched = ranked.stream()
+                    .map(slots::get)
+                    .filter(slot -> slot != null && filter.test(slot))
+                    .mapToInt(Integer::intValue)
+                    .toArray();
+            int pageSize = Math.max(size, 1);
+            int from = (int) Math.min((long) Math.max(page, 0) * pageSize, matched.length);
+            int to = Math.min(from + pageSize, matched.length);
+            return new PagedResult<>(materialize(Arrays.copyOfRange(matched, from, to)), matched.length, page, size);
+        } finally {
+            lock.readLock().unlock();
+        }
+    }
+
+    /**
+     * Compares every catalog row with the database. Writes that commit while the check runs can be
+     * reported as stale; {@code repair} rebuilds the catalog when any difference is found.
+     */
+    public CatalogCheck check(boolean repair) {
+        if (!isReady()) {
+            throw new IllegalStateException("Book catalog is not loaded");
+        }
+        Set<Long> seen = new HashSet<>();
+        List<Long> sample = new ArrayList<>();
+        int[] counts = new int[3];
+        try (var cursor = projection(DSL.trueCondition()).fetchSize(JdbcStreaming.ROW_BY_ROW).fetchLazy()) {
+            for (Record record : cursor) {
+                BookListItem expected = toItem(record);
+                seen.add(expected.bookId());
+                BookListItem actual = get(expected.bookId());
+                if (actual == null || !actual.equals(expected)) {
+                    counts[actual == null ? 0 : 1]++;
+                    if (sample.size() < MAX_SAMPLE_IDS) {
+                        sample.add(expected.bookId());
+                    }
+                }
+            }
+        }
+        lock.readLock().lock();
+        try {
+            for (int slot = 0; slot < rows; slot++) {
+                if (!seen.contains(ids[slot])) {
+                    counts[2]++;
+                    if (sample.size() < MAX_SAMPLE_IDS) {
+                        sample.add(ids[slot]);
+                    }
+                }
+            }
+        } finally {
+            lock.readLock().unlock();
+        }
+        boolean drifted = counts[0] + counts[1] + counts[2] > 0;
+        if (drifted) {
+            log.warn("Book catalog drift: {} missing, {} stale, {} extra (e.g. {})", counts[0], counts[1], counts[2], sample);
+        }
+        boolean rebuilt = drifted && repair;
+        if (rebuilt) {
+            rebuild();
+        }
+        return new CatalogCheck(seen.size(), counts[0], counts[1], counts[2], sample, rebuilt);
+    }
+
+    private BookListItem get(Long bookId) {
+        lock.readLock().lock();
+        try {
+            Integer slot = slots.get(bookId);
+            return slot == null ? null : item(slot);
+        } finally {
+            lock.readLock().unlock();
+        }
+    }
+
+    private int[] match(String q,
+                        Long authorId,
+                        Long categoryId,
+                        BookStatus status,
+                        BigDecimal minPrice,
+                        BigDecimal maxPrice,
+                        boolean inStockOnly) {
+        Filter filter = new Filter(authorId, categoryId, status, minPrice, maxPrice, inStockOnly);
+        if (q == null || q.isBlank()) {
+            return IntStream.range(0, rows).filter(filter::test).toArray();
+        }
+        if (searchIndex.isReady()) {
+            return searchIndex.search(q).stream()
+                    .map(slots::get)
+                    .filter(slot -> slot != null && filter.test(slot))
+                    .mapToInt(Integer::intValue)
+                    .toArray();
+        }
+        String needle = TextNormalizer.fold(q.trim());
+        Set<Long> authorHits = namesContaining(authorNames, needle);
+        Set<Long> categoryHits = namesContaining(categoryNames, needle);
+        return IntStream.range(0, rows)
+                .filter(filter::test)
+                .filter(slot -> foldedTitles[slot].contains(needle)
+                        || authorHits.contains(authorIds[slot])
+                        || categoryHits.contains(categoryIds[slot]))
+                .toArray();
+    }
+
+    private static Set<Long> namesContaining(Map<Long, String> names, String needle) {
+        Set<Long> hits = new HashSet<>();
+        names.forEach((id, name) -> {
+            if (TextNormalizer.fold(name).contains(needle)) {
+                hits.add(id);
+            }
+        });
+        return hits;
+    }
+
+    /**
+     * The first {@code limit} matched slots in sort order. A bounded max-heap of primitive slots keeps
+     * the best {@code limit} seen so far, so a page costs O(n log (page end)) comparisons with no
+     * boxing; draining the heap back to front leaves it sorted.
+     */
+    private int[] sorted(int[] matched, int limit, BookSort sort, boolean desc) {
+        SlotOrder order = order(sort, desc);
+        int k = Math.min(limit, matched.length);
+        int[] heap = new int[k];
+        int size = 0;
+        for (int slot : matched) {
+            if (size < k) {
+                heap[size] = slot;
+                siftUp(heap, size++, order);
+            } else if (k > 0 && order.compare(slot, heap[0]) < 0) {
+                heap[0] = slot;
+                siftDown(heap, 0, k, order);
+            }
+        }
+        for (int end = k - 1; end > 0; end--) {
+            int worst = heap[0];
+            heap[0] = heap[end];
+            heap[end] = worst;
+            siftDown(heap, 0, end, order);
+        }
+        return heap;
+    }
+
+    /** Ties are broken by BOOK_ID ascending in both directions, so pages never overlap. */
+    private SlotOrder order(BookSort sort, boolean desc) {
+        SlotOrder byKey = switch (sort == null ? BookSort.TITLE : sort) {
+            case PRICE -> (a, b) -> Long.compare(prices[a], prices[b]);
+            case STOCK -> (a, b) -> Integer.compare(stocks[a], stocks[b]);
+            case TITLE -> (a, b) -> foldedTitles[a].compareTo(foldedTitles[b]);
+        };
+        return (a, b) -> {
+            int byValue = desc ? byKey.compare(b, a) : byKey.compare(a, b);
+            return byValue != 0 ? byValue : Long.compare(ids[a], ids[b]);
+        };
+    }
+
+    private static void siftUp(int[] heap, int index, SlotOrder order) {
+        while (index > 0) {
+            int parent = (index - 1) >>> 1;
+            if (order.compare(heap[index], heap[parent]) <= 0) {
+                return;
+            }
+            int slot = heap[index];
+            heap[index] = heap[parent];
+            heap[parent] = slot;
+            index = parent;
+        }
+    }
+
+    private static void siftDown(int[] heap, int index, int size, SlotOrder order) {
+        while (true) {
+            int child = 2 * index + 1;
+            if (child >= size) {
+                return;
+            }
+            if (child + 1 < size && order.compare(heap[child + 1], heap[child]) > 0) {
+                child++;
+            }
+            if (order.compare(heap[child], heap[index]) <= 0) {
+                return;
+            }
+            int slot = heap[index];
+            heap[index] = heap[child];
+            heap[child] = slot;
+            index = child;
+        }
+    }
+
+    @FunctionalInterface
+    private interface SlotOrder {
+        int compare(int a, int b);
+    }
+
+    private List<BookListItem> materialize(int[] matched) {
+        List<BookListItem> items = new ArrayList<>(matched.length);
+        for (int slot : matched) {
+            items.add(item(slot));
+        }
+        return items;
+    }
+
+    private BookListItem item(int slot) {
+        return new BookListItem(
+                ids[slot],
+                titles[slot],
+                authorIds[slot],
+                authorNames.get(authorIds[slot]),
+                categoryIds[slot],
+                categoryNames.get(categoryIds[slot]),
+                prices[slot] == NO_PRICE ? null : BigDecimal.valueOf(prices[slot], PRICE_SCALE),
+                stocks[slot],
+                STATUSES[statuses[slot]],
+                coverPaths[slot]
+        );
+    }
+
+    private void reload(Collection<Long> bookIds) {
+        lock.writeLock().lock();
+        try {
+            bookIds.forEach(this::removeSlot);
+            load(BOOK.BOOK_ID.in(bookIds));
+        } finally {
+            lock.writeLock().unlock();
+        }
+    }
+
+    private void afterCommit(Runnable task) {
+        if (enabled) {
+            AfterCommit.run(task);
+        }
+    }
+
+    private void load(Condition condition) {
+        try (var cursor = projection(condition).fetchSize(JdbcStreaming.ROW_BY_ROW).fetchLazy()) {
+            for (Record record : cursor) {
+                put(toItem(record));
+            }
+        }
+    }
+
+    private void put(BookListItem item) {
+        Integer existing = slots.get(item.bookId());
+        int slot;
+        if (existing != null) {
+            slot = existing;
+        } else {
+            ensureCapacity(rows + 1);
+            slot = rows++;
+            slots.put(item.bookId(), slot);
+        }
+        ids[slot] = item.bookId();
+        titles[slot] = item.title();
+        foldedTitles[slot] = TextNormalizer.fold(item.title());
+        authorIds[slot] = item.authorId();
+        categoryIds[slot] = item.categoryId();
+        prices[slot] = item.price() == null
+                ? NO_PRICE
+                : item.price().setScale(PRICE_SCALE, RoundingMode.HALF_UP).unscaledValue().longValueExact();
+        stocks[slot] = item.stock() == null ? 0 : item.stock();
+        statuses[slot] = (byte) (item.status() == null ? BookStatus.AVAILABLE : item.status()).ordinal();
+        coverPaths[slot] = item.coverPath();
+        if (item.authorName() != null) {
+            authorNames.put(item.authorId(), item.authorName());
+        }
+        if (item.categoryName() != null) {
+            categoryNames.put(item.categoryId(), item.categoryName());
+        }
+    }
+
+    /** Moves the last row into the freed slot so the columns stay dense. */
+    private void removeSlot(Long bookId) {
+        Integer slot = slots.remove(bookId);
+        if (slot == null) {
+            return;
+        }
+        int last = --rows;
+        if (slot != last) {
+            ids[slot] = ids[last];
+            titles[slot] = titles[last];
+            foldedTitles[slot] = foldedTitles[last];
+            authorIds[slot] = authorIds[last];
+            categoryIds[slot] = categoryIds[last];
+            prices[slot] = prices[last];
+            stocks[slot] = stocks[last];
+            statuses[slot] = statuses[last];
+            coverPaths[slot] = coverPaths[last];
+            slots.put(ids[slot], slot);
+        }
+        titles[last] = null;
+        foldedTitles[last] = null;
+        coverPaths[last] = null;
+    }
+
+    private void ensureCapacity(int capacity) {
+        if (capacity <= ids.length) {
+            return;
+        }
+        int grown = Math.max(capacity, ids.length + (ids.length >> 1));
+        ids = Arrays.copyOf(ids, grown);
+        titles = Arrays.copyOf(titles, grown);
+        foldedTitles = Arrays.copyOf(foldedTitles, grown);
+        authorIds = Arrays.copyOf(authorIds, grown);
+        categoryIds = Arrays.copyOf(categoryIds, grown);
+        prices = Arrays.copyOf(prices, grown);
+        stocks = Arrays.copyOf(stocks, grown);
+        statuses = Arrays.copyOf(statuses, grown);
+        coverPaths = Arrays.copyOf(coverPaths, grown);
+    }
+
+    private SelectConditionStep<?> projection(Condition condition) {
+        return dsl.select(
+                        BOOK.BOOK_ID,
+                        BOOK.TITLE,
+                        BOOK.AUTHOR_ID,
+                        AUTHOR.NAME,
+                        BOOK.CATEGORY_ID,
+                        CATEGORY.NAME,
+                        BOOK.PRICE,
+                        BOOK.STOCK,
+                        BOOK.STATUS,
+                        COVER_PATH
+                )
+                .from(BOOK)
+                .leftJoin(AUTHOR).on(BOOK.AUTHOR_ID.eq(AUTHOR.AUTHOR_ID))
+                .leftJoin(CATEGORY).on(BOOK.CATEGORY_ID.eq(CATEGORY.CATEGORY_ID))
+                .where(condition);
+    }
+
+    private static BookListItem toItem(Record record) {
+        return new BookListItem(
+                record.get(BOOK.BOOK_ID),
+                record.get(BOOK.TITLE),
+                record.get(BOOK.AUTHOR_ID),
+                record.get(AUTHOR.NAME),
+                record.get(BOOK.CATEGORY_ID),
+                record.get(CATEGORY.NAME),
+                record.get(BOOK.PRICE),
+                record.get(BOOK.STOCK),
+                record.get(BOOK.STATUS),
+                record.get(COVER_PATH, String.class)
+        );
+    }
+
+    private final class Filter {
+        private final Long authorId;
+        private final Long categoryId;
+        private final int status;
+        private final long minPrice;
+        private final long maxPrice;
+        private final boolean priceFiltered;
+        private final boolean inStockOnly;
+
+        Filter(Long authorId, Long categoryId, BookStatus status, BigDecimal minPrice, BigDecimal maxPrice, boolean inStockOnly) {
+            this.authorId = authorId;
+            this.categoryId = categoryId;
+            this.status = status == null ? -1 : status.ordinal();
+            this.minPrice = minPrice == null ? Long.MIN_VALUE + 1 : cents(minPrice, RoundingMode.CEILING);
+            this.maxPrice = maxPrice == null ? Long.MAX_VALUE : cents(maxPrice, RoundingMode.FLOOR);
+            this.priceFiltered = minPrice != null || maxPrice != null;
+            this.inStockOnly = inStockOnly;
+        }
+
+        boolean test(int slot) {
+            if (authorId != null && authorIds[slot] != authorId) {
+                return false;
+            }
+            if (categoryId != null && categoryIds[slot] != categoryId) {
+                return false;
+            }
+            if (status >= 0 && statuses[slot] != status) {
+                return false;
+            }
+            if (inStockOnly && stocks[slot] <= 0) {
+                return false;
+            }
+            if (priceFiltered && (prices[slot] == NO_PRICE || prices[slot] < minPrice || prices[slot] > maxPrice)) {
+                return false;
+            }
+            return true;
+        }
+
+        private static long cents(BigDecimal value, RoundingMode rounding) {
+            return value.setScale(PRICE_SCALE, rounding).unscaledValue().longValueExact();
+        }
+    }
+}
@@ -0,0 +1,449 @@
+package com.example.library.service;
+
+import com.example.library.dto.BookImportError;
+import com.example.library.dto.BookImportResult;
+import com.example.library.jooq.enums.BookStatus;
+import com.example.library.jooq.tables.records.BookRecord;
+import com.example.library.util.CsvReader;
+import com.fasterxml.jackson.core.JsonParser;
+import com.fasterxml.jackson.core.JsonToken;
+import com.fasterxml.jackson.databind.JsonNode;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.InputStreamReader;
+import java.math.BigDecimal;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+import java.util.Objects;
+import java.util.Set;
+import java.util.function.Function;
+import org.jooq.DSLContext;
+import org.jooq.InsertValuesStep9;
+import org.jooq.Record;
+import org.jooq.TableField;
+import org.jooq.exception.DataAccessException;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import static com.example.library.jooq.tables.Author.AUTHOR;
+import static com.example.library.jooq.tables.Book.BOOK;
+import static com.example.library.jooq.tables.Category.CATEGORY;
+
+/**
+ * Bulk book import from CSV (header row) or a JSON array of objects. The upload is read row by
+ * row; author and category names resolve through in-memory name→id maps (missing ones are created
+ * on first sight), and valid rows are written as one multi-row INSERT per chunk, each chunk in its
+ * own transaction so a bad chunk does not undo the rest.
+ */
+@Service
+public class BookImportService {
+    private static final Logger log = LoggerFactory.getLogger(BookImportService.class);
+
+    private static final int MAX_REPORTED_ERRORS = 1_000;
+    private static final int BOUND_COLUMNS = 9;
+    /** A prepared statement takes at most 65,535 placeholders, {@link #BOUND_COLUMNS} per row. */
+    private static final int MAX_CHUNK_SIZE = 65_535 / BOUND_COLUMNS;
+
+    public enum Format {
+        CSV,
+        JSON
+    }
+
+    private final DSLContext dsl;
+    private final ObjectMapper objectMapper;
+    private final TransactionTemplate transactionTemplate;
+    private final CountCache countCache;
+    private final BookSearchIndex searchIndex;
+    private final BookCatalog catalog;
+    private final SuggestIndex suggestIndex;
+    private final int defaultChunkSize;
+
+    public BookImportService(DSLContext dsl,
+                             ObjectMapper objectMapper,
+                             TransactionTemplate transactionTemplate,
+                             CountCache countCache,
+                             BookSearchIndex searchIndex,
+                             BookCatalog catalog,
+                             SuggestIndex suggestIndex,
+                             @Value("${library.import.chunk-size:1000}") int defaultChunkSize) {
+        this.dsl = dsl;
+        this.objectMapper = objectMapper;
+        this.transactionTemplate = transactionTemplate;
+        this.countCache = countCache;
+        this.searchIndex = searchIndex;
+        this.catalog = catalog;
+        this.suggestIndex = suggestIndex;
+        this.defaultChunkSize = Math.min(Math.max(defaultChunkSize, 1), MAX_CHUNK_SIZE);
+    }
+
+    public BookImportResult importBooks(InputStream input, Format format, Integer chunkSize) throws IOException {
+        int chunk = chunkSize == null ? defaultChunkSize : Math.min(Math.max(chunkSize, 1), MAX_CHUNK_SIZE);
+        Run run = new Run(chunk);
+        long started = System.nanoTime();
+        try {
+            RowSource source = format == Format.JSON ? jsonRows(input) : csvRows(input);
+            Map<String, String> row;
+            while ((row = source.next()) != null) {
+                run.accept(source.rowNumber(), row);
+            }
+            run.flush();
+        } finally {
+            // Chunks committed before a malformed row aborted the upload stay imported
+            if (run.imported > 0) {
+                countCache.invalidate(CountCache.BOOKS);
+                refreshIndexes();
+            }
+        }
+
+        long elapsedNanos = Math.max(System.nanoTime() - started, 1);
+        double rowsPerSecond = run.rows * 1_000_000_000d / elapsedNanos;
+        log.info("Book import: {} rows, {} imported, {} failed, {} authors and {} categories created, {} rows/s",
+                run.rows, run.imported, run.failed, run.authorsCreated, run.categoriesCreated, Math.round(rowsPerSecond));
+        return new BookImportResult(
+                run.rows,
+                run.imported,
+                run.failed,
+                run.authorsCreated,
+                run.categoriesCreated,
+                elapsedNanos / 1_000_000,
+                rowsPerSecond,
+                run.errors
+        );
+    }
+
+    private void refreshIndexes() {
+        searchIndex.rebuild();
+        suggestIndex.rebuildBooks();
+        if (catalog.isReady()) {
+            catalog.rebuild();
+        }
+    }
+
+    private interface RowSource {
+        /** Next row keyed by normalised column name, or null at end of input. */
+        Map<String, String> next() throws IOException;
+
+        long rowNumber();
+    }
+
+    private RowSource csvRows(InputStream input) throws IOException {
+        CsvReader reader = new CsvReader(new InputStreamReader(input, StandardCharsets.UTF_8));
+        List<String> header = reader.next();
+        if (header == null) {
+            throw new IllegalArgumentException("CSV file is empty");
+        }
+        List<String> columns = header.stream().map(BookImportService::columnKey).toList();
+        return new RowSource() {
+            @Override
+            public Map<String, String> next() throws IOException {
+                List<String> values;
+                do {
+                    values = reader.next();
+                } while (values != null && values.size() == 1 && values.get(0).isBlank());
+                if (values == null) {
+                    return null;
+                }
+                Map<String, String> row = new HashMap<>();
+                for (int i = 0; i < columns.size() && i < values.size(); i++) {
+                    row.put(columns.get(i), values.get(i));
+                }
+                return row;
+            }
+
+            @Override
+            public long rowNumber() {
+                return reader.recordLine();
+            }
+        };
+    }
+
+    private RowSource jsonRows(InputStream input) throws IOException {
+        JsonParser parser = objectMapper.getFactory().createParser(input);
+        if (parser.nextToken() != JsonToken.START_ARRAY) {
+            throw new IllegalArgumentException("JSON import must be an array of book objects");
+        }
+        return new RowSource() {
+            private long index;
+
+            @Override
+            public Map<String, String> next() throws IOException {
+                JsonToken token = parser.nextToken();
+                if (token == JsonToken.END_ARRAY || token == null) {
+                    return null;
+                }
+                index++;
+                if (token != JsonToken.START_OBJECT) {
+                    throw new IllegalArgumentException("Element " + index + " is not a JSON object");
+                }
+                JsonNode node = objectMapper.readTree(parser);
+                Map<String, String> row = new HashMap<>();
+                node.fields().forEachRemaining(e -> row.put(
+                        columnKey(e.getKey()),
+                        e.getValue().isNull() ? null : e.getValue().asText()));
+                return row;
+            }
+
+            @Override
+            public long rowNumber() {
+                return index;
+            }
+        };
+    }
+
+    /** "Published Year", "published_year" and "publishedYear" all map to "publishedyear". */
+    private static String columnKey(String name) {
+        return name == null ? "" : name.replaceAll("[^\\p{Alnum}]", "").toLowerCase(Locale.ROOT);
+    }
+
+    private record PendingBook(
+            long row,
+            String title,
+            long authorId,
+            long categoryId,
+            String publisher,
+            Integer publishedYear,
+            String isbn,
+            BigDecimal price,
+            int stock,
+            BookStatus status
+    ) {}
+
+    /** State of one import: lookup maps, the pending chunk and the counters reported back. */
+    private final class Run {
+        private final int chunkSize;
+        private final Map<String, Long> authorIds;
+        private final Map<String, Long> categoryIds;
+        private final Set<String> seenIsbns = new HashSet<>();
+        private final List<PendingBook> pending = new ArrayList<>();
+        private final List<BookImportError> errors = new ArrayList<>();
+        private long rows;
+        private long imported;
+        private long failed;
+        private int authorsCreated;
+        private int categoriesCreated;
+
+        Run(int chunkSize) {
+            this.chunkSize = chunkSize;
+            this.authorIds = loadNames(AUTHOR.NAME, AUTHOR.AUTHOR_ID);
+            this.categoryIds = loadNames(CATEGORY.NAME, CATEGORY.CATEGORY_ID);
+        }
+
+        void accept(long rowNumber, Map<String, String> row) {
+            rows++;
+            try {
+                pending.add(validate(rowNumber, row));
+            } catch (IllegalArgumentException ex) {
+                fail(rowNumber, ex.getMessage());
+                return;
+            }
+            if (pending.size() >= chunkSize) {
+                flush();
+            }
+        }
+
+        private PendingBook validate(long rowNumber, Map<String, String> row) {
+            String title = required(row, "title", 255);
+            String authorName = required(row, "author", 255);
+            String categoryName = required(row, "category", 100);
+            String publisher = optional(row, "publisher", 255);
+            String isbn = optional(row, "isbn", 32);
+            Integer publishedYear = parse(row, "publishedyear", Integer::valueOf);
+            BigDecimal price = parse(row, "price", BigDecimal::new);
+            if (price != null && price.signum() < 0) {
+                throw new IllegalArgumentException("price must not be negative");
+            }
+            Integer stock = parse(row, "stock", Integer::valueOf);
+            if (stock != null && stock < 0) {
+                throw new IllegalArgumentException("stock must not be negative");
+            }
+            BookStatus status = parse(row, "status", value -> BookStatus.valueOf(value.toUpperCase(Locale.ROOT)));
+            if (isbn != null && !seenIsbns.add(isbn)) {
+                throw new IllegalArgumentException("Duplicate ISBN in file: " + isbn);
+            }
+            long authorId = resolve(authorIds, authorName, AUTHOR.NAME, AUTHOR.AUTHOR_ID, true);
+            long categoryId = resolve(categoryIds, categoryName, CATEGORY.NAME, CATEGORY.CATEGORY_ID, false);
+            return new PendingBook(
+                    rowNumber,
+                    title,
+                    authorId,
+                    categoryId,
+                    publisher,
+                    publishedYear,
+                    isbn,
+                    price,
+                    stock == null ? 0 : stock,
+                    status == null ? BookStatus.AVAILABLE : status
+            );
+        }
+
+        void flush() {
+            if (pending.isEmpty()) {
+                return;
+            }
+            List<PendingBook> chunk = rejectExistingIsbns(new ArrayList<>(pending));
+            pending.clear();
+            if (chunk.isEmpty()) {
+                return;
+            }
+            try {
+                Integer inserted = transactionTemplate.execute(status -> insert(chunk));
+                int written = inserted == null ? 0 : inserted;
+                imported += written;
+                if (written < chunk.size()) {
+                    // ISBNs claimed by a concurrent writer between the check and the insert
+                    failed += chunk.size() - written;
+                    addError(chunk.get(0).row(), (chunk.size() - written)
+                            + " row(s) in this chunk skipped: ISBN inserted concurrently");
+                }
+            } catch (DataAccessException ex) {
+                String message = "Chunk rolled back: " + ex.getMessage();
+                chunk.forEach(book -> fail(book.row(), message));
+            }
+        }
+
+        private List<PendingBook> rejectExistingIsbns(List<PendingBook> chunk) {
+            List<String> isbns = chunk.stream().map(PendingBook::isbn).filter(Objects::nonNull).toList();
+            if (isbns.isEmpty()) {
+                return chunk;
+            }
+            Set<String> existing = new HashSet<>(dsl.select(BOOK.ISBN)
+                    .from(BOOK)
+                    .where(BOOK.ISBN.in(isbns))
+                    .fetch(BOOK.ISBN));
+            if (existing.isEmpty()) {
+                return chunk;
+            }
+            List<PendingBook> accepted = new ArrayList<>(chunk.size());
+            for (PendingBook book : chunk) {
+                if (book.isbn() != null && existing.contains(book.isbn())) {
+                    fail(book.row(), "ISBN already exists: " + book.isbn());
+                } else {
+                    accepted.add(book);
+                }
+            }
+            return accepted;
+        }
+
+        private int insert(List<PendingBook> chunk) {
+            InsertValuesStep9<BookRecord, String, Long, Long, String, Integer, String, BigDecimal, Integer, BookStatus> insert =
+                    dsl.insertInto(BOOK,
+                            BOOK.TITLE,
+                            BOOK.AUTHOR_ID,
+                            BOOK.CATEGORY_ID,
+                            BOOK.PUBLISHER,
+                            BOOK.PUBLISHED_YEAR,
+                            BOOK.ISBN,
+                            BOOK.PRICE,
+                            BOOK.STOCK,
+                            BOOK.STATUS);
+            for (PendingBook book : chunk) {
+                insert = insert.values(
+                        book.title(),
+                        book.authorId(),
+                        book.categoryId(),
+                        book.publisher(),
+                        book.publishedYear(),
+                        book.isbn(),
+                        book.price(),
+                        book.stock(),
+                        book.status());
+            }
+            return insert.onDuplicateKeyIgnore().execute();
+        }
+
+        /** Looks {@code name} up case-insensitively, creating the row (outside any chunk transaction) on a miss. */
+        private <R extends Record> long resolve(Map<String, Long> ids,
+                                                String name,
+                                                TableField<R, String> nameField,
+                                                TableField<R, Long> idField,
+                                                boolean author) {
+            String key = name.toLowerCase(Locale.ROOT);
+            Long id = ids.get(key);
+            if (id != null) {
+                return id;
+            }
+            int created = dsl.insertInto(nameField.getTable())
+                    .set(nameField, name)
+                    .onDuplicateKeyIgnore()
+                    .execute();
+            id = dsl.select(idField)
+                    .from(nameField.getTable())
+                    .where(nameField.eq(name))
+                    .fetchOne(idField);
+            if (id == null) {
+                throw new IllegalArgumentException("Could not create " + (author ? "author" : "category") + ": " + name);
+            }
+            if (created > 0) {
+                if (author) {
+                    authorsCreated++;
+                } else {
+                    categoriesCreated++;
+                }
+            }
+            ids.put(key, id);
+            return id;
+        }
+
+        private Map<String, Long> loadNames(TableField<?, String> nameField, TableField<?, Long> idField) {
+            Map<String, Long> ids = new LinkedHashMap<>();
+            dsl.select(nameField, idField)
+                    .from(nameField.getTable())
+                    .fetch()
+                    .forEach(r -> ids.put(r.value1().trim().toLowerCase(Locale.ROOT), r.value2()));
+            return ids;
+        }
+
+        private void fail(long row, String message) {
+            failed++;
+            addError(row, message);
+        }
+
+        private void addError(long row, String message) {
+            if (errors.size() < MAX_REPORTED_ERRORS) {
+                errors.add(new BookImportError(row, message));
+            }
+        }
+    }
+
+    private static String required(Map<String, String> row, String column, int maxLength) {
+        String value = optional(row, column, maxLength);
+        if (value == null) {
+            throw new IllegalArgumentException(column + " is required");
+        }
+        return value;
+    }
+
+    private static String optional(Map<String, String> row, String column, int maxLength) {
+        String value = row.get(column);
+        if (value == null || value.isBlank()) {
+            return null;
+        }
+        String trimmed = value.trim();
+        if (trimmed.length() > maxLength) {
+            throw new IllegalArgumentException(column + " is longer than " + maxLength + " characters");
+        }
+        return trimmed;
+    }
+
+    private static <T> T parse(Map<String, String> row, String column, Function<String, T> parser) {
+        String value = optional(row, column, Integer.MAX_VALUE);
+        if (value == null) {
+            return null;
+        }
+        try {
+            return parser.apply(value);
+        } catch (IllegalArgumentException ex) {
+            throw new IllegalArgumentException("Invalid " + column + ": " + value);
+        }
+    }
+}
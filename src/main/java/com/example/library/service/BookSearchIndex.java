@@ -0,0 +1,238 @@
+package com.example.library.service;
+
+import com.example.library.util.AfterCommit;
+import com.example.library.util.JdbcStreaming;
+import com.example.library.util.TextNormalizer;
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.NavigableMap;
+import java.util.Set;
+import java.util.TreeMap;
+import java.util.concurrent.locks.ReentrantReadWriteLock;
+import org.jooq.Condition;
+import org.jooq.DSLContext;
+import org.jooq.impl.DSL;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.event.EventListener;
+import org.springframework.stereotype.Service;
+
+import static com.example.library.jooq.tables.Author.AUTHOR;
+import static com.example.library.jooq.tables.Book.BOOK;
+import static com.example.library.jooq.tables.Category.CATEGORY;
+
+/**
+ * In-process inverted index over book title, author name and category name. Terms are
+ * diacritic-folded; every query term must match (the last one as a prefix, for typing) and hits
+ * are ranked by field weight times inverse document frequency.
+ */
+@Service
+public class BookSearchIndex {
+    private static final Logger log = LoggerFactory.getLogger(BookSearchIndex.class);
+
+    private static final float TITLE_WEIGHT = 3f;
+    private static final float AUTHOR_WEIGHT = 2f;
+    private static final float CATEGORY_WEIGHT = 1f;
+
+    private final DSLContext dsl;
+    private final boolean enabled;
+    private final ReentrantReadWriteLock lock = new ReentrantReadWriteLock();
+    private final NavigableMap<String, Postings> terms = new TreeMap<>();
+    private final Map<Long, Map<String, Float>> documents = new HashMap<>();
+    private volatile boolean ready;
+
+    public BookSearchIndex(DSLContext dsl,
+                           @Value("${library.search.enabled:true}") boolean enabled) {
+        this.dsl = dsl;
+        this.enabled = enabled;
+    }
+
+    public boolean isReady() {
+        return enabled && ready;
+    }
+
+    @EventListener(ApplicationReadyEvent.class)
+    public void rebuild() {
+        if (!enabled) {
+            return;
+        }
+        long started = System.nanoTime();
+        lock.writeLock().lock();
+        try {
+            terms.clear();
+            documents.clear();
+            load(DSL.trueCondition());
+            ready = true;
+        } finally {
+            lock.writeLock().unlock();
+        }
+        log.info("Book search index built: {} books, {} terms in {} ms",
+                documents.size(), terms.size(), (System.nanoTime() - started) / 1_000_000);
+    }
+
+    public void reindexBook(Long bookId) {
+        afterCommit(() -> reindex(BOOK.BOOK_ID.eq(bookId), Set.of(bookId)));
+    }
+
+    public void reindexAuthor(Long authorId) {
+        afterCommit(() -> reindex(BOOK.AUTHOR_ID.eq(authorId), Set.of()));
+    }
+
+    public void reindexCategory(Long categoryId) {
+        afterCommit(() -> reindex(BOOK.CATEGORY_ID.eq(categoryId), Set.of()));
+    }
+
+    public void remove(Long bookId) {
+        afterCommit(() -> reindex(DSL.falseCondition(), Set.of(bookId)));
+    }
+
+    /**
+     * Every book id matching every term of {@code query}, best first. The last term matches all
+     * indexed terms it is a prefix of, so the list is complete and its size is the exact hit count.
+     */
+    public List<Long> search(String query) {
+        List<String> queryTerms = TextNormalizer.tokens(query);
+        if (queryTerms.isEmpty()) {
+            return List.of();
+        }
+        lock.readLock().lock();
+        try {
+            int total = Math.max(documents.size(), 1);
+            Map<Long, Float> scores = null;
+            for (int i = 0; i < queryTerms.size(); i++) {
+                boolean prefix = i == queryTerms.size() - 1;
+                Map<Long, Float> termScores = score(queryTerms.get(i), prefix, total);
+                if (scores == null) {
+                    scores = termScores;
+                } else {
+                    scores.keySet().retainAll(termScores.keySet());
+                    scores.replaceAll((id, score) -> score + termScores.get(id));
+                }
+                if (scores.isEmpty()) {
+                    return List.of();
+                }
+            }
+            return scores.entrySet().stream()
+                    .sorted(Map.Entry.<Long, Float>comparingByValue().reversed()
+                            .thenComparing(Map.Entry.comparingByKey()))
+                    .map(Map.Entry::getKey)
+                    .toList();
+        } finally {
+            lock.readLock().unlock();
+        }
+    }
+
+    private Map<Long, Float> score(String term, boolean prefix, int totalDocuments) {
+        Map<String, Postings> matches = new LinkedHashMap<>();
+        Postings exact = terms.get(term);
+        if (exact != null) {
+            matches.put(term, exact);
+        }
+        if (prefix) {
+            matches.putAll(terms.subMap(term, false, term + Character.MAX_VALUE, false));
+        }
+        Map<Long, Float> scores = new HashMap<>();
+        for (Postings postings : matches.values()) {
+            float idf = (float) Math.log(1 + (double) totalDocuments / postings.size);
+            for (int i = 0; i < postings.size; i++) {
+                scores.merge(postings.ids[i], postings.weights[i] * idf, Math::max);
+            }
+        }
+        return scores;
+    }
+
+    private void reindex(Condition condition, Set<Long> knownIds) {
+        if (!isReady()) {
+            return;
+        }
+        lock.writeLock().lock();
+        try {
+            knownIds.forEach(this::unindex);
+            load(condition);
+        } finally {
+            lock.writeLock().unlock();
+        }
+    }
+
+    private void afterCommit(Runnable task) {
+        if (isReady()) {
+            AfterCommit.run(task);
+        }
+    }
+
+    private void load(Condition condition) {
+        dsl.select(BOOK.BOOK_ID, BOOK.TITLE, AUTHOR.NAME, CATEGORY.NAME)
+                .from(BOOK)
+                .leftJoin(AUTHOR).on(BOOK.AUTHOR_ID.eq(AUTHOR.AUTHOR_ID))
+                .leftJoin(CATEGORY).on(BOOK.CATEGORY_ID.eq(CATEGORY.CATEGORY_ID))
+                .where(condition)
+                .fetchSize(JdbcStreaming.ROW_BY_ROW)
+                .fetchLazy()
+                .forEach(r -> {
+                    Long bookId = r.value1();
+                    unindex(bookId);
+                    Map<String, Float> weights = new HashMap<>();
+                    addTerms(weights, r.value2(), TITLE_WEIGHT);
+                    addTerms(weights, r.value3(), AUTHOR_WEIGHT);
+                    addTerms(weights, r.value4(), CATEGORY_WEIGHT);
+                    documents.put(bookId, weights);
+                    weights.forEach((term, weight) -> terms.computeIfAbsent(term, t -> new Postings()).add(bookId, weight));
+                });
+    }
+
+    private void addTerms(Map<String, Float> weights, String text, float weight) {
+        Set<String> seen = new HashSet<>();
+        for (String term : TextNormalizer.tokens(text)) {
+            if (seen.add(term)) {
+                weights.merge(term, weight, Float::sum);
+            }
+        }
+    }
+
+    private void unindex(Long bookId) {
+        Map<String, Float> previous = documents.remove(bookId);
+        if (previous == null) {
+            return;
+        }
+        for (String term : previous.keySet()) {
+            Postings postings = terms.get(term);
+            if (postings != null && postings.remove(bookId) && postings.size == 0) {
+                terms.remove(term);
+            }
+        }
+    }
+
+    private static final class Postings {
+        private long[] ids = new long[4];
+        private float[] weights = new float[4];
+        private int size;
+
+        void add(long id, float weight) {
+            if (size == ids.length) {
+                ids = Arrays.copyOf(ids, size * 2);
+                weights = Arrays.copyOf(weights, size * 2);
+            }
+            ids[size] = id;
+            weights[size] = weight;
+            size++;
+        }
+
+        boolean remove(long id) {
+            for (int i = 0; i < size; i++) {
+                if (ids[i] == id) {
+                    size--;
+                    ids[i] = ids[size];
+                    weights[i] = weights[size];
+                    return true;
+                }
+            }
+            return false;
+        }
+    }
+}
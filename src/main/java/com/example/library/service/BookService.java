@@ -1,20 +1,35 @@
 package com.example.library.service;
 
+import com.example.library.config.ReadReplica;
 import com.example.library.dto.BookDto;
+import com.example.library.dto.CursorPage;
 import com.example.library.dto.BookListItem;
 import com.example.library.dto.PagedResult;
+import com.example.library.dto.Suggestion;
 import com.example.library.jooq.enums.BookStatus;
 import com.example.library.jooq.tables.records.BookRecord;
+import com.example.library.util.JdbcStreaming;
+import com.example.library.util.SeekCursor;
 import java.math.BigDecimal;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.HashSet;
 import java.util.List;
 import java.util.Locale;
+import java.util.Map;
+import java.util.Objects;
+import java.util.Set;
+import java.util.function.Consumer;
 import org.jooq.Condition;
+import org.jooq.Cursor;
 import org.jooq.DSLContext;
 import org.jooq.Field;
 import org.jooq.Record;
 import org.jooq.SelectJoinStep;
 import org.jooq.SortField;
+import org.jooq.SortOrder;
 import org.jooq.impl.DSL;
+import org.springframework.beans.factory.annotation.Value;
 import org.springframework.stereotype.Service;
 import org.springframework.transaction.annotation.Transactional;
 
@@ -25,17 +40,36 @@ import static com.example.library.jooq.tables.Category.CATEGORY;
 @Service
 public class BookService {
     private static final Field<String> COVER_PATH = DSL.field("COVER_PATH", String.class);
+    private static final int MAX_SUGGESTIONS = 50;
 
     private final DSLContext dsl;
+    private final CountCache countCache;
+    private final BookSearchIndex searchIndex;
+    private final BookCatalog catalog;
+    private final SuggestIndex suggestIndex;
+    /** Most search-index hits bound into one {@code BOOK_ID IN (...)}; broader queries use the LIKE predicate. */
+    private final int maxCandidates;
 
-    public BookService(DSLContext dsl) {
+    public BookService(DSLContext dsl,
+                       CountCache countCache,
+                       BookSearchIndex searchIndex,
+                       BookCatalog catalog,
+                       SuggestIndex suggestIndex,
+                       @Value("${library.search.max-candidates:1000}") int maxCandidates) {
         this.dsl = dsl;
+        this.countCache = countCache;
+        this.searchIndex = searchIndex;
+        this.catalog = catalog;
+        this.suggestIndex = suggestIndex;
+        this.maxCandidates = Math.max(maxCandidates, 1);
     }
 
+    @ReadReplica
     public List<BookListItem> search(String q, int page, int size, SortField<?> sortField) {
         return search(q, null, null, null, null, null, page, size, sortField).items();
     }
 
+    @ReadReplica
     public PagedResult<BookListItem> search(String q,
                                             Long authorId,
                                             Long categoryId,
@@ -45,6 +79,11 @@ public class BookService {
                                             int page,
                                             int size,
                                             SortField<?> sortField) {
+        BookSort catalogSort = catalogSort(sortField);
+        if (catalogSort != null && catalog.isReady()) {
+            return catalog.page(q, authorId, categoryId, status, minPrice, maxPrice,
+                    catalogSort, isDescending(sortField), page, size);
+        }
         Condition condition = buildCondition(q, authorId, categoryId, status, minPrice, maxPrice);
         int offset = Math.max(page, 0) * Math.max(size, 1);
         SortField<?> order = sortField == null ? BOOK.TITLE.asc() : sortField;
@@ -56,22 +95,197 @@ public class BookService {
                 .offset(offset)
                 .fetch(this::mapToBookListItem);
 
+        String filterKey = CountCache.key(q, authorId, categoryId, status, minPrice, maxPrice);
+        CountCache.Count total = countCache.resolve(CountCache.BOOKS, filterKey, page, size, items.size(),
+                () -> countBooks(condition));
+
+        return new PagedResult<>(items, total.total(), page, size, total.estimated());
+    }
+
+    /**
+     * Ranks matches for {@code q} by search-index relevance, then applies the remaining filters to
+     * the ranked ids. Falls back to title order when the index is disabled or still building.
+     */
+    @ReadReplica
+    public PagedResult<BookListItem> searchByRelevance(String q,
+                                                       Long authorId,
+                                                       Long categoryId,
+                                                       BookStatus status,
+                                                       BigDecimal minPrice,
+                                                       BigDecimal maxPrice,
+                                                       int page,
+                                                       int size) {
+        if (q == null || q.isBlank() || !searchIndex.isReady()) {
+            return search(q, authorId, categoryId, status, minPrice, maxPrice, page, size, BOOK.TITLE.asc());
+        }
+        List<Long> ranked = searchIndex.search(q);
+        if (catalog.isReady()) {
+            return catalog.pageRanked(ranked, authorId, categoryId, status, minPrice, maxPrice, page, size);
+        }
+        int pageSize = Math.max(size, 1);
+        int offset = Math.max(page, 0) * pageSize;
+        boolean filtered = authorId != null || categoryId != null || status != null
+                || minPrice != null || maxPrice != null;
+        long total = ranked.size();
+        boolean estimated = false;
+        if (!ranked.isEmpty() && filtered) {
+            Condition filter = filterCondition(authorId, categoryId, status, minPrice, maxPrice);
+            List<Long> matching = new ArrayList<>();
+            int scanned = filterRanked(ranked, filter, offset + pageSize, matching);
+            estimated = scanned < ranked.size();
+            total = estimated
+                    ? Math.round(matching.size() * (double) ranked.size() / scanned)
+                    : matching.size();
+            ranked = matching;
+        }
+
+        int from = Math.min(offset, ranked.size());
+        List<BookListItem> items = findByIds(ranked.subList(from, Math.min(from + pageSize, ranked.size())));
+        return new PagedResult<>(items, Math.max(total, from + items.size()), page, size, estimated);
+    }
+
+    /**
+     * Adds the ids of {@code ranked} that pass {@code filter} to {@code matching}, in rank order, and
+     * returns how many ranked ids were checked. A filter matching at most {@code max-candidates} books
+     * is resolved by one query and checks everything. Otherwise the ranked ids are checked
+     * {@code max-candidates} at a time until {@code needed} ids match, so a broad query does not cost
+     * one query per thousand hits on every page.
+     */
+    private int filterRanked(List<Long> ranked, Condition filter, int needed, List<Long> matching) {
+        List<Long> narrow = dsl.select(BOOK.BOOK_ID)
+                .from(BOOK)
+                .where(filter)
+                .limit(maxCandidates + 1)
+                .fetch(BOOK.BOOK_ID);
+        if (narrow.size() <= maxCandidates) {
+            Set<Long> allowed = new HashSet<>(narrow);
+            ranked.stream().filter(allowed::contains).forEach(matching::add);
+            return ranked.size();
+        }
+        int scanned = 0;
+        while (scanned < ranked.size() && matching.size() < needed) {
+            List<Long> chunk = ranked.subList(scanned, Math.min(scanned + maxCandidates, ranked.size()));
+            Set<Long> allowed = new HashSet<>(dsl.select(BOOK.BOOK_ID)
+                    .from(BOOK)
+                    .where(BOOK.BOOK_ID.in(chunk))
+                    .and(filter)
+                    .fetch(BOOK.BOOK_ID));
+            chunk.stream().filter(allowed::contains).forEach(matching::add);
+            scanned += chunk.size();
+        }
+        return scanned;
+    }
+
+    private long countBooks(Condition condition) {
         Long total = dsl.select(DSL.count())
                 .from(BOOK)
                 .leftJoin(AUTHOR).on(BOOK.AUTHOR_ID.eq(AUTHOR.AUTHOR_ID))
                 .leftJoin(CATEGORY).on(BOOK.CATEGORY_ID.eq(CATEGORY.CATEGORY_ID))
                 .where(condition)
                 .fetchOne(0, Long.class);
+        return total == null ? 0 : total;
+    }
 
-        return new PagedResult<>(items, total == null ? 0 : total, page, size);
+    @ReadReplica
+    public CursorPage<BookListItem> seek(String q,
+                                         Long authorId,
+                                         Long categoryId,
+                                         BookStatus status,
+                                         BigDecimal minPrice,
+                                         BigDecimal maxPrice,
+                                         String sort,
+                                         String cursor,
+                                         int size) {
+        Condition condition = buildCondition(q, authorId, categoryId, status, minPrice, maxPrice);
+        BookSort sortKey = BookSort.parse(sort);
+        boolean desc = BookSort.isDescending(sort);
+        String sortToken = sortKey.token(desc);
+        int pageSize = Math.max(size, 1);
+
+        if (cursor != null && !cursor.isBlank()) {
+            SeekCursor after = SeekCursor.decode(cursor);
+            if (!sortToken.equals(after.sort())) {
+                throw new IllegalArgumentException("Cursor was issued for a different sort: " + after.sort());
+            }
+            condition = condition.and(seekCondition(sortKey, desc, after));
+        }
+
+        SortOrder direction = desc ? SortOrder.DESC : SortOrder.ASC;
+        List<BookListItem> rows = baseSelect()
+                .where(condition)
+                .orderBy(sortField(sortKey).sort(direction), BOOK.BOOK_ID.sort(direction))
+                .limit(pageSize + 1)
+                .fetch(this::mapToBookListItem);
+
+        String nextCursor = null;
+        if (rows.size() > pageSize) {
+            rows = rows.subList(0, pageSize);
+            BookListItem last = rows.get(pageSize - 1);
+            nextCursor = new SeekCursor(sortToken, sortValue(sortKey, last), last.bookId()).encode();
+        }
+        return new CursorPage<>(rows, nextCursor, pageSize);
     }
 
+    @ReadReplica
     public List<BookListItem> listAvailable() {
+        if (catalog.isReady()) {
+            return catalog.listAvailable();
+        }
         Condition condition = BOOK.STOCK.gt(0)
                 .and(BOOK.STATUS.eq(BookStatus.AVAILABLE));
         return fetchBooks(condition, BOOK.TITLE.asc(), Integer.MAX_VALUE, 0);
     }
 
+    /**
+     * Books whose title or author has a word starting with {@code prefix}. With {@code availableOnly}
+     * a few extra candidates are looked up so borrowed-out titles do not leave the list short.
+     */
+    public List<Suggestion> suggest(String prefix, int limit, boolean availableOnly) {
+        if (prefix == null || prefix.isBlank()) {
+            return List.of();
+        }
+        int capped = Math.min(Math.max(limit, 1), MAX_SUGGESTIONS);
+        Condition condition = availableOnly
+                ? BOOK.STOCK.gt(0).and(BOOK.STATUS.eq(BookStatus.AVAILABLE))
+                : DSL.trueCondition();
+        List<BookListItem> rows;
+        if (suggestIndex.isReady()) {
+            rows = findByIds(suggestIndex.books(prefix, availableOnly ? capped * 4 : capped), condition);
+        } else {
+            rows = fetchBooks(condition.and(BOOK.TITLE.like(DSL.escape(prefix.trim(), '!') + "%", '!')),
+                    BOOK.TITLE.asc(), capped, 0);
+        }
+        return rows.stream()
+                .limit(capped)
+                .map(book -> new Suggestion(
+                        book.bookId(),
+                        book.title(),
+                        (book.authorName() == null ? "Unknown author" : book.authorName()) + " · Stock: " + book.stock()))
+                .toList();
+    }
+
+    /** Rows for {@code ids} in the order given; ids that no longer exist are skipped. */
+    public List<BookListItem> findByIds(List<Long> ids) {
+        return findByIds(ids, DSL.trueCondition());
+    }
+
+    private List<BookListItem> findByIds(List<Long> ids, Condition condition) {
+        if (ids == null || ids.isEmpty()) {
+            return List.of();
+        }
+        Map<Long, BookListItem> rows = new HashMap<>();
+        baseSelect()
+                .where(BOOK.BOOK_ID.in(ids))
+                .and(condition)
+                .fetch(this::mapToBookListItem)
+                .forEach(item -> rows.put(item.bookId(), item));
+        return ids.stream()
+                .map(rows::get)
+                .filter(Objects::nonNull)
+                .toList();
+    }
+
+    @ReadReplica
     public List<BookListItem> searchAll(String q,
                                         Long authorId,
                                         Long categoryId,
@@ -79,6 +293,10 @@ public class BookService {
                                         BigDecimal minPrice,
                                         BigDecimal maxPrice,
                                         SortField<?> sortField) {
+        BookSort catalogSort = catalogSort(sortField);
+        if (catalogSort != null && catalog.isReady()) {
+            return catalog.list(q, authorId, categoryId, status, minPrice, maxPrice, catalogSort, isDescending(sortField));
+        }
         Condition condition = buildCondition(q, authorId, categoryId, status, minPrice, maxPrice);
         SortField<?> order = sortField == null ? BOOK.TITLE.asc() : sortField;
         return baseSelect()
@@ -87,6 +305,28 @@ public class BookService {
                 .fetch(this::mapToBookListItem);
     }
 
+    /** Streams every matching row to {@code sink} as a row-by-row result stream instead of materialising the list. */
+    @ReadReplica
+    public void exportAll(String q,
+                          Long authorId,
+                          Long categoryId,
+                          BookStatus status,
+                          BigDecimal minPrice,
+                          BigDecimal maxPrice,
+                          SortField<?> sortField,
+                          Consumer<BookListItem> sink) {
+        Condition condition = buildCondition(q, authorId, categoryId, status, minPrice, maxPrice);
+        try (Cursor<?> cursor = baseSelect()
+                .where(condition)
+                .orderBy(sortField == null ? BOOK.TITLE.asc() : sortField)
+                .fetchSize(JdbcStreaming.ROW_BY_ROW)
+                .fetchLazy()) {
+            for (Record record : cursor) {
+                sink.accept(mapToBookListItem(record));
+            }
+        }
+    }
+
     private List<BookListItem> fetchBooks(Condition condition, SortField<?> sortField, int limit, int offset) {
         return baseSelect()
                 .where(condition)
@@ -96,6 +336,54 @@ public class BookService {
                 .fetch(this::mapToBookListItem);
     }
 
+    /** The catalog sort matching {@code sortField}, or null when only MySQL can order by it. */
+    private BookSort catalogSort(SortField<?> sortField) {
+        if (sortField == null) {
+            return BookSort.TITLE;
+        }
+        try {
+            return BookSort.valueOf(sortField.getName().toUpperCase(Locale.ROOT));
+        } catch (IllegalArgumentException ex) {
+            return null;
+        }
+    }
+
+    private boolean isDescending(SortField<?> sortField) {
+        return sortField != null && sortField.getOrder() == SortOrder.DESC;
+    }
+
+    private Field<?> sortField(BookSort sortKey) {
+        return switch (sortKey) {
+            case PRICE -> BOOK.PRICE;
+            case STOCK -> BOOK.STOCK;
+            case TITLE -> BOOK.TITLE;
+        };
+    }
+
+    private Condition seekCondition(BookSort sortKey, boolean desc, SeekCursor after) {
+        String value = after.value();
+        try {
+            return switch (sortKey) {
+                case PRICE -> SeekCursor.after(BOOK.PRICE, value == null ? null : new BigDecimal(value),
+                        BOOK.BOOK_ID, after.id(), desc);
+                case STOCK -> SeekCursor.after(BOOK.STOCK, value == null ? null : Integer.valueOf(value),
+                        BOOK.BOOK_ID, after.id(), desc);
+                case TITLE -> SeekCursor.after(BOOK.TITLE, value, BOOK.BOOK_ID, after.id(), desc);
+            };
+        } catch (NumberFormatException ex) {
+            throw new IllegalArgumentException("Invalid cursor", ex);
+        }
+    }
+
+    private String sortValue(BookSort sortKey, BookListItem item) {
+        Object value = switch (sortKey) {
+            case PRICE -> item.price() == null ? null : item.price().toPlainString();
+            case STOCK -> item.stock();
+            case TITLE -> item.title();
+        };
+        return value == null ? null : value.toString();
+    }
+
     private SelectJoinStep<?> baseSelect() {
         return dsl.select(
                         BOOK.BOOK_ID,
@@ -120,15 +408,30 @@ public class BookService {
                                      BookStatus status,
                                      BigDecimal minPrice,
                                      BigDecimal maxPrice) {
-        Condition condition = DSL.trueCondition();
-        if (q != null && !q.isBlank()) {
-            String keyword = "%" + q.trim() + "%";
-            condition = condition.and(
-                    BOOK.TITLE.likeIgnoreCase(keyword)
-                            .or(AUTHOR.NAME.likeIgnoreCase(keyword))
-                            .or(CATEGORY.NAME.likeIgnoreCase(keyword))
-            );
+        Condition condition = filterCondition(authorId, categoryId, status, minPrice, maxPrice);
+        if (q == null || q.isBlank()) {
+            return condition;
         }
+        if (searchIndex.isReady()) {
+            List<Long> hits = searchIndex.search(q);
+            if (hits.size() <= maxCandidates) {
+                return condition.and(BOOK.BOOK_ID.in(hits));
+            }
+        }
+        String keyword = "%" + q.trim() + "%";
+        return condition.and(
+                BOOK.TITLE.likeIgnoreCase(keyword)
+                        .or(AUTHOR.NAME.likeIgnoreCase(keyword))
+                        .or(CATEGORY.NAME.likeIgnoreCase(keyword))
+        );
+    }
+
+    private Condition filterCondition(Long authorId,
+                                      Long categoryId,
+                                      BookStatus status,
+                                      BigDecimal minPrice,
+                                      BigDecimal maxPrice) {
+        Condition condition = DSL.trueCondition();
         if (authorId != null) {
             condition = condition.and(BOOK.AUTHOR_ID.eq(authorId));
         }
@@ -186,7 +489,12 @@ public class BookService {
         if (inserted == null) {
             throw new IllegalStateException("Failed to create book");
         }
-        return inserted.get(BOOK.BOOK_ID);
+        Long bookId = inserted.get(BOOK.BOOK_ID);
+        countCache.invalidate(CountCache.BOOKS);
+        searchIndex.reindexBook(bookId);
+        catalog.refreshBook(bookId);
+        suggestIndex.refreshBook(bookId);
+        return bookId;
     }
 
     @Transactional
@@ -207,6 +515,10 @@ public class BookService {
         if (rowsUpdated == 0) {
             throw new IllegalArgumentException("Book not found: " + id);
         }
+        countCache.invalidate(CountCache.BOOKS);
+        searchIndex.reindexBook(id);
+        catalog.refreshBook(id);
+        suggestIndex.refreshBook(id);
     }
 
     @Transactional
@@ -219,6 +531,10 @@ public class BookService {
         dsl.deleteFrom(BOOK)
                 .where(BOOK.BOOK_ID.eq(id))
                 .execute();
+        countCache.invalidate(CountCache.BOOKS);
+        searchIndex.remove(id);
+        catalog.remove(id);
+        suggestIndex.removeBook(id);
         return coverPath;
     }
 
@@ -0,0 +1,33 @@
+package com.example.library.service;
+
+import java.util.Locale;
+
+public enum BookSort {
+    TITLE,
+    PRICE,
+    STOCK;
+
+    public static BookSort parse(String sort) {
+        if (sort == null || sort.isBlank()) {
+            return TITLE;
+        }
+        String field = sort.split(",")[0].trim();
+        try {
+            return BookSort.valueOf(field.toUpperCase(Locale.ROOT));
+        } catch (IllegalArgumentException ex) {
+            return TITLE;
+        }
+    }
+
+    public static boolean isDescending(String sort) {
+        if (sort == null) {
+            return false;
+        }
+        String[] parts = sort.split(",");
+        return parts.length > 1 && "desc".equalsIgnoreCase(parts[1].trim());
+    }
+
+    public String token(boolean desc) {
+        return name().toLowerCase(Locale.ROOT) + (desc ? ",desc" : ",asc");
+    }
+}
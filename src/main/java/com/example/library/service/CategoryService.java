@@ -15,9 +15,15 @@ import static com.example.library.jooq.tables.Category.CATEGORY;
 @Service
 public class CategoryService {
     private final DSLContext dsl;
+    private final CountCache countCache;
+    private final BookSearchIndex searchIndex;
+    private final BookCatalog catalog;
 
-    public CategoryService(DSLContext dsl) {
+    public CategoryService(DSLContext dsl, CountCache countCache, BookSearchIndex searchIndex, BookCatalog catalog) {
         this.dsl = dsl;
+        this.countCache = countCache;
+        this.searchIndex = searchIndex;
+        this.catalog = catalog;
     }
 
     public Result<CategoryRecord> search(String q, int page, int size) {
@@ -62,6 +68,9 @@ public class CategoryService {
         if (rows == 0) {
             throw new IllegalArgumentException("Category not found: " + id);
         }
+        countCache.invalidate(CountCache.BOOKS);
+        searchIndex.reindexCategory(id);
+        catalog.renameCategory(id, dto.name());
     }
 
     @Transactional
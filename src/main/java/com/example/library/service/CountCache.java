@@ -0,0 +1,108 @@
+package com.example.library.service;
+
+import java.math.BigDecimal;
+import java.util.Locale;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.function.LongSupplier;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+
+/**
+ * Total-count strategy for paged lists. A short last page yields the exact total for free;
+ * otherwise the total comes from a TTL cache keyed by scope + normalized filter, and only a
+ * miss runs the real COUNT(*). Writes call {@link #invalidate(String)} for their scope.
+ */
+@Component
+public class CountCache {
+    public static final String BOOKS = "books";
+    public static final String LOANS = "loans";
+
+    private static final int MAX_ENTRIES_PER_SCOPE = 10_000;
+
+    private final long ttlNanos;
+    private final Map<String, Map<String, Entry>> scopes = new ConcurrentHashMap<>();
+    private final Map<String, AtomicLong> generations = new ConcurrentHashMap<>();
+
+    public CountCache(@Value("${library.count-cache.ttl-seconds:60}") long ttlSeconds) {
+        this.ttlNanos = TimeUnit.SECONDS.toNanos(Math.max(ttlSeconds, 0));
+    }
+
+    public Count resolve(String scope, String filterKey, int page, int size, int fetched, LongSupplier exactCount) {
+        long offset = (long) Math.max(page, 0) * Math.max(size, 1);
+        long generation = generation(scope).get();
+        if (fetched < size && (fetched > 0 || offset == 0)) {
+            long total = offset + fetched;
+            store(scope, filterKey, total, generation);
+            return new Count(total, false);
+        }
+        Entry cached = entries(scope).get(filterKey);
+        if (cached != null && cached.expiresAt - System.nanoTime() > 0) {
+            return new Count(Math.max(cached.count, offset + fetched), true);
+        }
+        long total = exactCount.getAsLong();
+        store(scope, filterKey, total, generation);
+        return new Count(total, false);
+    }
+
+    public void invalidate(String scope) {
+        bump(scope);
+        if (TransactionSynchronizationManager.isSynchronizationActive()) {
+            TransactionSynchronizationManager.registerSynchronization(new TransactionSynchronization() {
+                @Override
+                public void afterCompletion(int status) {
+                    bump(scope);
+                }
+            });
+        }
+    }
+
+    private void bump(String scope) {
+        generation(scope).incrementAndGet();
+        scopes.remove(scope);
+    }
+
+    private void store(String scope, String filterKey, long total, long generation) {
+        if (ttlNanos == 0 || generation(scope).get() != generation) {
+            return;
+        }
+        Map<String, Entry> entries = entries(scope);
+        if (entries.size() >= MAX_ENTRIES_PER_SCOPE) {
+            entries.clear();
+        }
+        entries.put(filterKey, new Entry(total, System.nanoTime() + ttlNanos));
+    }
+
+    private Map<String, Entry> entries(String scope) {
+        return scopes.computeIfAbsent(scope, s -> new ConcurrentHashMap<>());
+    }
+
+    private AtomicLong generation(String scope) {
+        return generations.computeIfAbsent(scope, s -> new AtomicLong());
+    }
+
+    public static String key(Object... parts) {
+        StringBuilder key = new StringBuilder();
+        for (Object part : parts) {
+            if (key.length() > 0) {
+                key.append('|');
+            }
+            if (part instanceof String text) {
+                key.append(text.trim().toLowerCase(Locale.ROOT));
+            } else if (part instanceof BigDecimal decimal) {
+                key.append(decimal.stripTrailingZeros().toPlainString());
+            } else if (part != null) {
+                key.append(part);
+            }
+        }
+        return key.toString();
+    }
+
+    public record Count(long total, boolean estimated) {}
+
+    private record Entry(long count, long expiresAt) {}
+}
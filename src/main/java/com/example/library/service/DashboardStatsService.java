@@ -0,0 +1,331 @@
+package com.example.library.service;
+
+import com.example.library.dto.BorrowReturnStat;
+import com.example.library.dto.ChartDataPoint;
+import com.example.library.dto.DashboardStats;
+import com.example.library.dto.LoanListItem;
+import com.example.library.event.LoanReturnedEvent;
+import com.example.library.event.LoansBorrowedEvent;
+import com.example.library.event.LoansReturnedEvent;
+import com.example.library.jooq.enums.BookStatus;
+import com.example.library.jooq.enums.LoanStatus;
+import com.example.library.jooq.enums.MemberStatus;
+import jakarta.annotation.PreDestroy;
+import java.math.BigDecimal;
+import java.time.Duration;
+import java.time.LocalDate;
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.Callable;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.Semaphore;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.TimeoutException;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.locks.ReentrantLock;
+import org.jooq.DSLContext;
+import org.jooq.Record;
+import org.jooq.Table;
+import org.jooq.impl.DSL;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.event.TransactionalEventListener;
+
+import static com.example.library.jooq.tables.Book.BOOK;
+import static com.example.library.jooq.tables.Loan.LOAN;
+import static com.example.library.jooq.tables.Member.MEMBER;
+
+/**
+ * Keeps the dashboard in memory. A full refresh runs on a fixed delay (and on read once the
+ * snapshot is older than the staleness bound); borrow/return events adjust the counters in between.
+ * The queries behind a refresh run on virtual threads, at most {@code max-parallel-queries} at a
+ * time so a refresh never holds more pool connections than that, each with a JDBC statement timeout.
+ * One that fails or misses the deadline keeps its value from the previous snapshot; a snapshot with
+ * a part that never loaded is served but counts as stale, so the next read retries the refresh.
+ */
+@Service
+public class DashboardStatsService {
+    private static final Logger log = LoggerFactory.getLogger(DashboardStatsService.class);
+    private static final int REFRESH_QUERIES = 7;
+
+    private final DSLContext dsl;
+    private final LoanService loanService;
+    private final Duration maxStaleness;
+    /** Deadline for a whole refresh: one statement timeout per wave of {@code max-parallel-queries}. */
+    private final long refreshTimeoutNanos;
+    private final ExecutorService queryExecutor = Executors.newVirtualThreadPerTaskExecutor();
+    private final Semaphore queryPermits;
+
+    private final ReentrantLock refreshLock = new ReentrantLock();
+
+    private volatile DashboardStats snapshot;
+    /** False while some part of {@link #snapshot} is a placeholder rather than a loaded value. */
+    private volatile boolean snapshotComplete;
+
+    public DashboardStatsService(DSLContext dsl,
+                                 LoanService loanService,
+                                 @Value("${library.dashboard.max-staleness-seconds:60}") long maxStalenessSeconds,
+                                 @Value("${library.dashboard.query-timeout-ms:3000}") long queryTimeoutMs,
+                                 @Value("${library.dashboard.max-parallel-queries:3}") int maxParallelQueries) {
+        long timeoutMs = Math.max(queryTimeoutMs, 1);
+        this.dsl = dsl.configuration()
+                .deriveSettings(s -> s.withQueryTimeout((int) Math.max((timeoutMs + 999) / 1000, 1)))
+                .dsl();
+        this.loanService = loanService;
+        this.maxStaleness = Duration.ofSeconds(Math.max(maxStalenessSeconds, 1));
+        int parallel = Math.max(maxParallelQueries, 1);
+        this.refreshTimeoutNanos = TimeUnit.MILLISECONDS.toNanos(timeoutMs) * Math.ceilDiv(REFRESH_QUERIES, parallel);
+        this.queryPermits = new Semaphore(parallel);
+    }
+
+    public DashboardStats current() {
+        DashboardStats stats = snapshot;
+        if (!isStale(stats)) {
+            return stats;
+        }
+        if (stats != null && refreshLock.isLocked()) {
+            return stats;
+        }
+        return refresh();
+    }
+
+    @Scheduled(fixedDelayString = "${library.dashboard.max-staleness-seconds:60}", timeUnit = TimeUnit.SECONDS)
+    public void scheduledRefresh() {
+        refresh();
+    }
+
+    public DashboardStats refresh() {
+        refreshLock.lock();
+        try {
+            AtomicInteger failures = new AtomicInteger();
+            boolean previousComplete = snapshotComplete;
+            DashboardStats stats = load(failures);
+            synchronized (this) {
+                snapshot = stats;
+                snapshotComplete = failures.get() == 0 || previousComplete;
+            }
+            return stats;
+        } finally {
+            refreshLock.unlock();
+        }
+    }
+
+    private DashboardStats load(AtomicInteger failures) {
+        LocalDateTime now = LocalDateTime.now();
+        DashboardStats previous = snapshot;
+        long deadline = System.nanoTime() + refreshTimeoutNanos;
+
+        Future<Counters> counters = fork(() -> loadCounters(now));
+        Future<List<LoanListItem>> recentLoans = fork(() -> loanService.findRecentLoans(5));
+        Future<List<BorrowReturnStat>> borrowReturnStats = fork(() -> loanService.borrowReturnStats(30));
+        Future<List<ChartDataPoint>> topBooks = fork(() -> loanService.topBorrowedBooks(10, 30));
+        Future<List<ChartDataPoint>> categoryBorrows = fork(() -> loanService.borrowByCategory(30));
+        Future<List<ChartDataPoint>> topMembers = fork(() -> loanService.topMembers(10));
+        Future<List<ChartDataPoint>> overdueTimeline = fork(() -> loanService.overdueTimeline(12));
+
+        Counters c = join("counters", counters, deadline, Counters.from(previous), failures);
+        return new DashboardStats(
+                c.totalBooks(),
+                c.availableBooks(),
+                c.totalMembers(),
+                c.activeMembers(),
+                c.borrowedToday(),
+                c.overdueLoans(),
+                c.totalFineAmount(),
+                join("recentLoans", recentLoans, deadline,
+                        previous == null ? List.of() : previous.recentLoans(), failures),
+                join("borrowReturnStats", borrowReturnStats, deadline,
+                        previous == null ? List.of() : previous.borrowReturnStats(), failures),
+                join("topBooks", topBooks, deadline,
+                        previous == null ? List.of() : previous.topBooks(), failures),
+                join("categoryBorrows", categoryBorrows, deadline,
+                        previous == null ? List.of() : previous.categoryBorrows(), failures),
+                join("topMembers", topMembers, deadline,
+                        previous == null ? List.of() : previous.topMembers(), failures),
+                join("overdueTimeline", overdueTimeline, deadline,
+                        previous == null ? List.of() : previous.overdueTimeline(), failures),
+                now
+        );
+    }
+
+    private Counters loadCounters(LocalDateTime now) {
+        LocalDate today = now.toLocalDate();
+        Table<?> books = dsl.select(
+                        DSL.count().as("totalBooks"),
+                        DSL.count().filterWhere(BOOK.STOCK.gt(0).and(BOOK.STATUS.eq(BookStatus.AVAILABLE)))
+                                .as("availableBooks"))
+                .from(BOOK)
+                .asTable("b");
+        Table<?> members = dsl.select(
+                        DSL.count().as("totalMembers"),
+                        DSL.count().filterWhere(MEMBER.STATUS.eq(MemberStatus.ACTIVE)).as("activeMembers"))
+                .from(MEMBER)
+                .asTable("m");
+        Table<?> loans = dsl.select(
+                        DSL.count().filterWhere(LOAN.BORROW_DATE.between(today.atStartOfDay(), today.plusDays(1).atStartOfDay())
+                                .and(LOAN.STATUS.eq(LoanStatus.BORROWED))).as("borrowedToday"),
+                        DSL.count().filterWhere(LOAN.RETURN_DATE.isNull().and(LOAN.DUE_DATE.lt(now))).as("overdueLoans"),
+                        DSL.coalesce(DSL.sum(FinePolicy.accruedFine(now)), BigDecimal.ZERO).as("totalFineAmount"))
+                .from(LOAN)
+                .asTable("l");
+        Record record = dsl.select()
+                .from(books)
+                .crossJoin(members)
+                .crossJoin(loans)
+                .fetchOne();
+        return new Counters(
+                record.get("totalBooks", Long.class),
+                record.get("availableBooks", Long.class),
+                record.get("totalMembers", Long.class),
+                record.get("activeMembers", Long.class),
+                record.get("borrowedToday", Long.class),
+                record.get("overdueLoans", Long.class),
+                record.get("totalFineAmount", BigDecimal.class)
+        );
+    }
+
+    /** Runs {@code query} once a permit is free; cancelling the future while it waits releases its slot. */
+    private <T> Future<T> fork(Callable<T> query) {
+        return queryExecutor.submit(() -> {
+            queryPermits.acquire();
+            try {
+                return query.call();
+            } finally {
+                queryPermits.release();
+            }
+        });
+    }
+
+    private <T> T join(String name, Future<T> future, long deadline, T fallback, AtomicInteger failures) {
+        try {
+            return future.get(Math.max(deadline - System.nanoTime(), 0), TimeUnit.NANOSECONDS);
+        } catch (TimeoutException ex) {
+            future.cancel(true);
+            log.warn("Dashboard query '{}' timed out; serving previous value", name);
+        } catch (ExecutionException ex) {
+            log.warn("Dashboard query '{}' failed; serving previous value", name, ex.getCause());
+        } catch (InterruptedException ex) {
+            future.cancel(true);
+            Thread.currentThread().interrupt();
+        }
+        failures.incrementAndGet();
+        return fallback;
+    }
+
+    @PreDestroy
+    public void shutdown() {
+        queryExecutor.shutdownNow();
+    }
+
+    @TransactionalEventListener(fallbackExecution = true)
+    public synchronized void onBorrowed(LoansBorrowedEvent event) {
+        DashboardStats s = snapshot;
+        if (s == null) {
+            return;
+        }
+        int count = event.loanIds().size();
+        boolean borrowedToday = event.borrowedAt().toLocalDate().equals(LocalDate.now());
+        snapshot = new DashboardStats(
+                s.totalBooks(),
+                Math.max(0, s.availableBooks() - event.booksOutOfStock()),
+                s.totalMembers(),
+                s.activeMembers(),
+                borrowedToday ? s.borrowedToday() + count : s.borrowedToday(),
+                s.overdueLoans(),
+                s.totalFineAmount(),
+                s.recentLoans(),
+                adjustDay(s.borrowReturnStats(), event.borrowedAt().toLocalDate(), count, 0),
+                s.topBooks(),
+                s.categoryBorrows(),
+                s.topMembers(),
+                s.overdueTimeline(),
+                s.refreshedAt()
+        );
+    }
+
+    @TransactionalEventListener(fallbackExecution = true)
+    public synchronized void onReturned(LoanReturnedEvent event) {
+        DashboardStats s = snapshot;
+        if (s == null) {
+            return;
+        }
+        LocalDateTime now = LocalDateTime.now();
+        boolean borrowedToday = event.borrowedAt() != null
+                && event.borrowedAt().toLocalDate().equals(now.toLocalDate());
+        boolean wasOverdue = event.dueAt() != null && event.dueAt().isBefore(now);
+        BigDecimal previousFine = event.previousFine() == null ? BigDecimal.ZERO : event.previousFine();
+        snapshot = new DashboardStats(
+                s.totalBooks(),
+                s.availableBooks(),
+                s.totalMembers(),
+                s.activeMembers(),
+                borrowedToday ? Math.max(0, s.borrowedToday() - 1) : s.borrowedToday(),
+                wasOverdue ? Math.max(0, s.overdueLoans() - 1) : s.overdueLoans(),
+                s.totalFineAmount().add(event.fine().subtract(previousFine)),
+                s.recentLoans(),
+                adjustDay(s.borrowReturnStats(), event.returnedAt().toLocalDate(), 0, 1),
+                s.topBooks(),
+                s.categoryBorrows(),
+                s.topMembers(),
+                s.overdueTimeline(),
+                s.refreshedAt()
+        );
+    }
+
+    @TransactionalEventListener(fallbackExecution = true)
+    public synchronized void onReturnedBatch(LoansReturnedEvent event) {
+        event.returns().forEach(this::onReturned);
+    }
+
+    private boolean isStale(DashboardStats stats) {
+        if (stats == null || !snapshotComplete) {
+            return true;
+        }
+        LocalDateTime now = LocalDateTime.now();
+        return !stats.refreshedAt().toLocalDate().equals(now.toLocalDate())
+                || stats.refreshedAt().plus(maxStaleness).isBefore(now);
+    }
+
+    private record Counters(
+            long totalBooks,
+            long availableBooks,
+            long totalMembers,
+            long activeMembers,
+            long borrowedToday,
+            long overdueLoans,
+            BigDecimal totalFineAmount
+    ) {
+        static Counters from(DashboardStats stats) {
+            if (stats == null) {
+                return new Counters(0, 0, 0, 0, 0, 0, BigDecimal.ZERO);
+            }
+            return new Counters(
+                    stats.totalBooks(),
+                    stats.availableBooks(),
+                    stats.totalMembers(),
+                    stats.activeMembers(),
+                    stats.borrowedToday(),
+                    stats.overdueLoans(),
+                    stats.totalFineAmount()
+            );
+        }
+    }
+
+    private List<BorrowReturnStat> adjustDay(List<BorrowReturnStat> stats, LocalDate day, long borrowed, long returned) {
+        String period = day.toString();
+        List<BorrowReturnStat> adjusted = new ArrayList<>(stats.size());
+        for (BorrowReturnStat stat : stats) {
+            adjusted.add(stat.period().equals(period)
+                    ? new BorrowReturnStat(period, stat.borrowed() + borrowed, stat.returned() + returned)
+                    : stat);
+        }
+        return adjusted;
+    }
+}
@@ -0,0 +1,147 @@
+package com.example.library.service;
+
+import com.example.library.dto.FineTerms;
+import java.math.BigDecimal;
+import java.math.RoundingMode;
+import java.time.LocalDateTime;
+import java.util.Collection;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+import org.jooq.DSLContext;
+import org.jooq.Field;
+import org.jooq.Record;
+import org.jooq.impl.DSL;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Service;
+
+import static com.example.library.jooq.tables.Book.BOOK;
+import static com.example.library.jooq.tables.Category.CATEGORY;
+import static com.example.library.jooq.tables.Loan.LOAN;
+import static com.example.library.jooq.tables.Member.MEMBER;
+
+/**
+ * Resolves the fine terms of a checkout: the daily rate (per-category override of
+ * {@code library.fines.daily-rate}, scaled by the member tier's percentage), the grace period and
+ * the per-loan cap. The terms are stored on each loan, so a policy change applies to new loans only
+ * and the fine an open loan has accrued is a function of its own columns and the clock; see
+ * {@link #accruedFine(LocalDateTime)}.
+ */
+@Service
+public class FinePolicy {
+    public static final Field<BigDecimal> FINE_RATE = DSL.field(DSL.name("LOAN", "FINE_RATE"), BigDecimal.class);
+    public static final Field<Integer> FINE_GRACE_DAYS = DSL.field(DSL.name("LOAN", "FINE_GRACE_DAYS"), Integer.class);
+    public static final Field<BigDecimal> FINE_CAP = DSL.field(DSL.name("LOAN", "FINE_CAP"), BigDecimal.class);
+    /** The LOAN term columns, for selects whose rows are passed to {@link #termsOf(Record)}. */
+    public static final List<Field<?>> TERM_FIELDS = List.of(FINE_RATE, FINE_GRACE_DAYS, FINE_CAP);
+    private static final Field<String> MEMBER_TIER = DSL.field(DSL.name("MEMBER", "TIER"), String.class);
+    private static final BigDecimal HUNDRED = BigDecimal.valueOf(100);
+
+    private final DSLContext dsl;
+    private final FineTerms defaults;
+    private final Map<String, BigDecimal> categoryRates;
+    private final Map<String, BigDecimal> tierPercents;
+
+    public FinePolicy(DSLContext dsl,
+                      @Value("${library.fines.daily-rate:5000}") BigDecimal dailyRate,
+                      @Value("${library.fines.grace-days:0}") int graceDays,
+                      @Value("${library.fines.max-per-loan:0}") BigDecimal maxPerLoan,
+                      @Value("${library.fines.category-rates:}") String categoryRates,
+                      @Value("${library.fines.tier-percent:}") String tierPercents) {
+        this.dsl = dsl;
+        this.defaults = new FineTerms(requireNonNegative(dailyRate, "library.fines.daily-rate"),
+                Math.max(graceDays, 0),
+                maxPerLoan.signum() > 0 ? maxPerLoan : null);
+        this.categoryRates = parse(categoryRates, "library.fines.category-rates");
+        this.tierPercents = parse(tierPercents, "library.fines.tier-percent");
+    }
+
+    /** Terms for each of {@code bookIds} borrowed by {@code memberId}; one query, none without overrides. */
+    public Map<Long, FineTerms> termsFor(Long memberId, Collection<Long> bookIds) {
+        Map<Long, FineTerms> terms = new HashMap<>();
+        if (categoryRates.isEmpty() && tierPercents.isEmpty()) {
+            bookIds.forEach(id -> terms.put(id, defaults));
+            return terms;
+        }
+        dsl.select(BOOK.BOOK_ID, CATEGORY.NAME, MEMBER_TIER)
+                .from(BOOK)
+                .join(CATEGORY).on(BOOK.CATEGORY_ID.eq(CATEGORY.CATEGORY_ID))
+                .join(MEMBER).on(MEMBER.MEMBER_ID.eq(memberId))
+                .where(BOOK.BOOK_ID.in(bookIds))
+                .forEach(r -> terms.put(r.value1(), terms(r.value2(), r.value3())));
+        bookIds.forEach(id -> terms.putIfAbsent(id, defaults));
+        return terms;
+    }
+
+    private FineTerms terms(String category, String tier) {
+        BigDecimal rate = category == null ? null : categoryRates.get(key(category));
+        if (rate == null) {
+            rate = defaults.dailyRate();
+        }
+        BigDecimal percent = tier == null ? null : tierPercents.get(key(tier));
+        if (percent != null) {
+            rate = rate.multiply(percent).divide(HUNDRED, 2, RoundingMode.HALF_UP);
+        }
+        return new FineTerms(rate, defaults.graceDays(), defaults.cap());
+    }
+
+    /**
+     * The terms stored on a loan, from a row that selected {@link #TERM_FIELDS} explicitly: a
+     * {@code selectFrom(LOAN)} record only has the generated columns.
+     */
+    public static FineTerms termsOf(Record loan) {
+        return new FineTerms(loan.get(FINE_RATE), loan.get(FINE_GRACE_DAYS), loan.get(FINE_CAP));
+    }
+
+    /**
+     * Fine of each LOAN row as of {@code at}: the settled FINE_AMOUNT once returned, otherwise
+     * {@link FineTerms#fineFor} evaluated in SQL, so lists, totals and standings need no stored
+     * running fine.
+     */
+    public static Field<BigDecimal> accruedFine(LocalDateTime at) {
+        Field<BigDecimal> charged = DSL.field(
+                "{0} * GREATEST(0, GREATEST(1, DATEDIFF({1}, {2})) - {3})",
+                BigDecimal.class,
+                FINE_RATE,
+                DSL.val(at),
+                LOAN.DUE_DATE,
+                FINE_GRACE_DAYS);
+        return DSL.when(LOAN.RETURN_DATE.isNotNull(), LOAN.FINE_AMOUNT)
+                .when(LOAN.DUE_DATE.ge(DSL.val(at)), DSL.inline(BigDecimal.ZERO))
+                .when(FINE_CAP.isNotNull(), DSL.least(charged, FINE_CAP))
+                .otherwise(charged);
+    }
+
+    private static String key(String name) {
+        return name.trim().toLowerCase(Locale.ROOT);
+    }
+
+    /** {@code name:value} pairs separated by commas, e.g. {@code Thiếu nhi:2000,Tham khảo:10000}. */
+    private static Map<String, BigDecimal> parse(String spec, String property) {
+        Map<String, BigDecimal> values = new HashMap<>();
+        for (String entry : spec.split(",")) {
+            if (entry.isBlank()) {
+                continue;
+            }
+            int colon = entry.lastIndexOf(':');
+            if (colon <= 0) {
+                throw new IllegalArgumentException(property + ": expected name:value but got '" + entry.trim() + "'");
+            }
+            try {
+                BigDecimal value = new BigDecimal(entry.substring(colon + 1).trim());
+                values.put(key(entry.substring(0, colon)), requireNonNegative(value, property));
+            } catch (NumberFormatException ex) {
+                throw new IllegalArgumentException(property + ": invalid number in '" + entry.trim() + "'", ex);
+            }
+        }
+        return Map.copyOf(values);
+    }
+
+    private static BigDecimal requireNonNegative(BigDecimal value, String property) {
+        if (value.signum() < 0) {
+            throw new IllegalArgumentException(property + " must not be negative");
+        }
+        return value;
+    }
+}
@@ -0,0 +1,78 @@
+package com.example.library.service;
+
+import java.time.LocalDate;
+import java.time.LocalDateTime;
+import org.jooq.DSLContext;
+import org.jooq.Field;
+import org.jooq.Record;
+import org.jooq.Record2;
+import org.jooq.Table;
+import org.jooq.impl.DSL;
+import org.springframework.stereotype.Service;
+
+@Service
+public class JobCheckpointService {
+    private static final Table<Record> JOB_CHECKPOINT = DSL.table("JOB_CHECKPOINT");
+    private static final Field<String> JOB_NAME = DSL.field("JOB_NAME", String.class);
+    private static final Field<LocalDate> RUN_DATE = DSL.field("RUN_DATE", LocalDate.class);
+    private static final Field<Long> LAST_ID = DSL.field("LAST_ID", Long.class);
+    private static final Field<Long> PROCESSED = DSL.field("PROCESSED", Long.class);
+    private static final Field<Boolean> COMPLETED = DSL.field("COMPLETED", Boolean.class);
+    private static final Field<LocalDateTime> UPDATED_AT = DSL.field("UPDATED_AT", LocalDateTime.class);
+
+    private final DSLContext dsl;
+
+    public JobCheckpointService(DSLContext dsl) {
+        this.dsl = dsl;
+    }
+
+    public long resumeFrom(String job, LocalDate runDate) {
+        Record2<Long, Boolean> checkpoint = dsl.select(LAST_ID, COMPLETED)
+                .from(JOB_CHECKPOINT)
+                .where(JOB_NAME.eq(job).and(RUN_DATE.eq(runDate)))
+                .fetchOne();
+        if (checkpoint != null && !Boolean.TRUE.equals(checkpoint.value2())) {
+            return checkpoint.value1();
+        }
+        dsl.insertInto(JOB_CHECKPOINT)
+                .set(JOB_NAME, job)
+                .set(RUN_DATE, runDate)
+                .set(LAST_ID, 0L)
+                .set(PROCESSED, 0L)
+                .set(COMPLETED, false)
+                .set(UPDATED_AT, LocalDateTime.now())
+                .onDuplicateKeyUpdate()
+                .set(LAST_ID, 0L)
+                .set(PROCESSED, 0L)
+                .set(COMPLETED, false)
+                .set(UPDATED_AT, LocalDateTime.now())
+                .execute();
+        return 0L;
+    }
+
+    public void advance(String job, LocalDate runDate, long lastId, int processed) {
+        dsl.update(JOB_CHECKPOINT)
+                .set(LAST_ID, lastId)
+                .set(PROCESSED, PROCESSED.plus(processed))
+                .set(UPDATED_AT, LocalDateTime.now())
+                .where(JOB_NAME.eq(job).and(RUN_DATE.eq(runDate)))
+                .execute();
+    }
+
+    public void complete(String job, LocalDate runDate) {
+        dsl.update(JOB_CHECKPOINT)
+                .set(COMPLETED, true)
+                .set(UPDATED_AT, LocalDateTime.now())
+                .where(JOB_NAME.eq(job).and(RUN_DATE.eq(runDate)))
+                .execute();
+    }
+
+    /** Whether {@code job} started on {@code runDate} and has not completed. */
+    public boolean isUnfinished(String job, LocalDate runDate) {
+        return dsl.fetchExists(
+                dsl.selectOne()
+                        .from(JOB_CHECKPOINT)
+                        .where(JOB_NAME.eq(job).and(RUN_DATE.eq(runDate)).and(COMPLETED.isFalse()))
+        );
+    }
+}
@@ -0,0 +1,321 @@
+package com.example.library.service;
+
+import com.example.library.event.LoanReturnedEvent;
+import com.example.library.event.LoansBorrowedEvent;
+import com.example.library.event.LoansReturnedEvent;
+import java.math.BigDecimal;
+import java.time.LocalDate;
+import java.time.LocalDateTime;
+import java.util.Comparator;
+import java.util.List;
+import java.util.Map;
+import java.util.TreeMap;
+import java.util.concurrent.locks.Lock;
+import java.util.concurrent.locks.ReentrantReadWriteLock;
+import org.jooq.DSLContext;
+import org.jooq.Field;
+import org.jooq.Record;
+import org.jooq.Record6;
+import org.jooq.Select;
+import org.jooq.Table;
+import org.jooq.impl.DSL;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.context.event.EventListener;
+import org.springframework.dao.DataAccessException;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.TransactionDefinition;
+import org.springframework.transaction.TransactionException;
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import static com.example.library.jooq.tables.Loan.LOAN;
+import static com.example.library.util.Upserts.inserted;
+
+/**
+ * Maintains LOAN_DAILY_STATS, the per-day, per-book loan counters the dashboard charts read instead
+ * of grouping the whole LOAN table. Borrow/return events are applied in a short transaction of their
+ * own once the loan transaction has committed, so checkouts of a popular book do not queue behind
+ * each other's lock on its (day, book) row. An increment lost between the two commits is logged; a
+ * nightly job rebuilds from LOAN the last few days, every later due day and the older due days that
+ * open or recently returned loans still count in, which repairs it along with drift from writes that
+ * bypass {@link LoanService}.
+ * <p>
+ * A rebuilt window must not see a loan whose increment is still to come, or the loan would be counted
+ * twice. Each loan transaction therefore holds {@link #rebuildLock} for reading from its event until
+ * its increment is applied, and a window is rebuilt under the write lock; loan transactions that
+ * reach their event meanwhile wait for that window.
+ */
+@Service
+public class LoanDailyStatsService {
+    private static final Logger log = LoggerFactory.getLogger(LoanDailyStatsService.class);
+
+    // qualified: the chart queries join BOOK, which has a BOOK_ID of its own
+    static final Table<Record> LOAN_DAILY_STATS = DSL.table(DSL.name("LOAN_DAILY_STATS"));
+    static final Field<LocalDate> STAT_DATE = DSL.field(DSL.name("LOAN_DAILY_STATS", "STAT_DATE"), LocalDate.class);
+    static final Field<Long> STAT_BOOK_ID = DSL.field(DSL.name("LOAN_DAILY_STATS", "BOOK_ID"), Long.class);
+    static final Field<Integer> BORROWED = DSL.field(DSL.name("LOAN_DAILY_STATS", "BORROWED"), Integer.class);
+    static final Field<Integer> RETURNED = DSL.field(DSL.name("LOAN_DAILY_STATS", "RETURNED"), Integer.class);
+    /** Loans due on STAT_DATE and not yet returned: overdue once the day has passed. */
+    static final Field<Integer> UNRETURNED = DSL.field(DSL.name("LOAN_DAILY_STATS", "UNRETURNED"), Integer.class);
+    static final Field<BigDecimal> FINES = DSL.field(DSL.name("LOAN_DAILY_STATS", "FINES"), BigDecimal.class);
+
+    private static final int INSERT_CHUNK = 1_000;
+
+    private final DSLContext dsl;
+    private final TransactionTemplate transactionTemplate;
+    /** Runs the increments apart from the loan transaction, whose resources are still bound after commit. */
+    private final TransactionTemplate incrementTransaction;
+    private final int rebuildWindowDays;
+    private final int reconcileDays;
+    private final ReentrantReadWriteLock rebuildLock = new ReentrantReadWriteLock();
+
+    public LoanDailyStatsService(DSLContext dsl,
+                                 TransactionTemplate transactionTemplate,
+                                 @Value("${library.stats.rebuild-window-days:31}") int rebuildWindowDays,
+                                 @Value("${library.stats.reconcile-days:3}") int reconcileDays) {
+        this.dsl = dsl;
+        this.transactionTemplate = transactionTemplate;
+        this.incrementTransaction = new TransactionTemplate(transactionTemplate.getTransactionManager());
+        this.incrementTransaction.setPropagationBehavior(TransactionDefinition.PROPAGATION_REQUIRES_NEW);
+        this.rebuildWindowDays = Math.max(rebuildWindowDays, 1);
+        this.reconcileDays = Math.max(reconcileDays, 1);
+    }
+
+    @EventListener
+    public void onBorrowed(LoansBorrowedEvent event) {
+        Map<Bucket, Delta> deltas = new TreeMap<>();
+        for (Long bookId : event.bookIds()) {
+            delta(deltas, event.borrowedAt(), bookId).borrowed++;
+            delta(deltas, event.dueAt(), bookId).unreturned++;
+        }
+        applyAfterCommit(deltas);
+    }
+
+    @EventListener
+    public void onReturned(LoanReturnedEvent event) {
+        onReturnedBatch(new LoansReturnedEvent(List.of(event)));
+    }
+
+    @EventListener
+    public void onReturnedBatch(LoansReturnedEvent event) {
+        Map<Bucket, Delta> deltas = new TreeMap<>();
+        for (LoanReturnedEvent r : event.returns()) {
+            Delta returned = delta(deltas, r.returnedAt(), r.bookId());
+            returned.returned++;
+            returned.fines = returned.fines.add(r.fine());
+            delta(deltas, r.dueAt(), r.bookId()).unreturned--;
+        }
+        applyAfterCommit(deltas);
+    }
+
+    /**
+     * Applies {@code deltas} once the surrounding loan transaction commits (at once outside one),
+     * holding a read lock on {@link #rebuildLock} from now until then.
+     */
+    private void applyAfterCommit(Map<Bucket, Delta> deltas) {
+        if (deltas.isEmpty()) {
+            return;
+        }
+        Lock hold = rebuildLock.readLock();
+        hold.lock();
+        if (!TransactionSynchronizationManager.isSynchronizationActive()) {
+            try {
+                apply(deltas);
+            } finally {
+                hold.unlock();
+            }
+            return;
+        }
+        TransactionSynchronizationManager.registerSynchronization(new TransactionSynchronization() {
+            @Override
+            public void afterCommit() {
+                apply(deltas);
+            }
+
+            @Override
+            public void afterCompletion(int status) {
+                hold.unlock();
+            }
+        });
+    }
+
+    @Scheduled(cron = "0 30 02 * * *", zone = "Asia/Ho_Chi_Minh")
+    public void reconcileRecent() {
+        LocalDate since = LocalDate.now().minusDays(reconcileDays);
+        long rows = rebuild(since, null);
+        List<LocalDate> dueDays = staleDueDays(since);
+        for (int i = 0; i < dueDays.size(); ) {
+            LocalDate first = dueDays.get(i);
+            LocalDate last = first;
+            while (++i < dueDays.size() && dueDays.get(i).equals(last.plusDays(1))) {
+                last = dueDays.get(i);
+            }
+            rows += rebuild(first, last);
+        }
+        log.info("Loan daily stats reconciled: {} rows rewritten ({} older due days)", rows, dueDays.size());
+    }
+
+    /**
+     * Due days before {@code since} whose UNRETURNED counter an open loan, or a loan returned since
+     * then, still touches: a lost increment there is outside the recent window.
+     */
+    private List<LocalDate> staleDueDays(LocalDate since) {
+        LocalDateTime from = since.atStartOfDay();
+        Field<LocalDate> dueDay = LOAN.DUE_DATE.cast(LocalDate.class);
+        return dsl.selectDistinct(dueDay)
+                .from(LOAN)
+                .where(LOAN.DUE_DATE.lt(from)
+                        .and(LOAN.RETURN_DATE.isNull().or(LOAN.RETURN_DATE.ge(from))))
+                .orderBy(dueDay)
+                .fetch(dueDay);
+    }
+
+    /**
+     * Recomputes the counters of every day in {@code [from, to]} from LOAN, {@code rebuildWindowDays}
+     * days per transaction. A {@code null} bound extends to the earliest / latest day LOAN refers to.
+     * Returns the number of rows written.
+     */
+    public long rebuild(LocalDate from, LocalDate to) {
+        LocalDate first = from != null ? from : earliestDay();
+        LocalDate last = to != null ? to : latestDay();
+        if (first == null || last == null || last.isBefore(first)) {
+            return 0;
+        }
+        long rows = 0;
+        for (LocalDate start = first; !start.isAfter(last); start = start.plusDays(rebuildWindowDays)) {
+            LocalDate end = start.plusDays(rebuildWindowDays);
+            LocalDate windowEnd = end.isAfter(last) ? last.plusDays(1) : end;
+            LocalDate windowStart = start;
+            Integer written;
+            rebuildLock.writeLock().lock();
+            try {
+                written = transactionTemplate.execute(status -> rebuildWindow(windowStart, windowEnd));
+            } finally {
+                rebuildLock.writeLock().unlock();
+            }
+            rows += written == null ? 0 : written;
+        }
+        return rows;
+    }
+
+    private int rebuildWindow(LocalDate start, LocalDate end) {
+        LocalDateTime from = start.atStartOfDay();
+        LocalDateTime to = end.atStartOfDay();
+        Field<LocalDate> borrowDay = LOAN.BORROW_DATE.cast(LocalDate.class);
+        Field<LocalDate> returnDay = LOAN.RETURN_DATE.cast(LocalDate.class);
+        Field<LocalDate> dueDay = LOAN.DUE_DATE.cast(LocalDate.class);
+        Select<Record6<LocalDate, Long, Integer, Integer, Integer, BigDecimal>> perLoanDay = DSL.select(
+                        borrowDay.as("D"), LOAN.BOOK_ID.as("B"), DSL.count().as("BR"),
+                        DSL.inline(0).as("RT"), DSL.inline(0).as("UN"), DSL.inline(BigDecimal.ZERO).as("F"))
+                .from(LOAN)
+                .where(LOAN.BORROW_DATE.ge(from).and(LOAN.BORROW_DATE.lt(to)))
+                .groupBy(borrowDay, LOAN.BOOK_ID)
+                .unionAll(DSL.select(
+                                returnDay, LOAN.BOOK_ID, DSL.inline(0), DSL.count(), DSL.inline(0),
+                                DSL.coalesce(DSL.sum(LOAN.FINE_AMOUNT), BigDecimal.ZERO))
+                        .from(LOAN)
+                        .where(LOAN.RETURN_DATE.ge(from).and(LOAN.RETURN_DATE.lt(to)))
+                        .groupBy(returnDay, LOAN.BOOK_ID))
+                .unionAll(DSL.select(
+                                dueDay, LOAN.BOOK_ID, DSL.inline(0), DSL.inline(0), DSL.count(),
+                                DSL.inline(BigDecimal.ZERO))
+                        .from(LOAN)
+                        .where(LOAN.DUE_DATE.ge(from).and(LOAN.DUE_DATE.lt(to)).and(LOAN.RETURN_DATE.isNull()))
+                        .groupBy(dueDay, LOAN.BOOK_ID));
+        Table<?> days = perLoanDay.asTable("d");
+        Field<LocalDate> day = days.field("D", LocalDate.class);
+        Field<Long> book = days.field("B", Long.class);
+
+        // a plain read, not INSERT ... SELECT: that would share-lock LOAN rows, and a loan transaction
+        // holding one of them may be waiting on rebuildLock, which this window holds
+        List<Record6<LocalDate, Long, Integer, Integer, Integer, BigDecimal>> counters = dsl.select(
+                        day,
+                        book,
+                        DSL.sum(days.field("BR", Integer.class)).coerce(Integer.class),
+                        DSL.sum(days.field("RT", Integer.class)).coerce(Integer.class),
+                        DSL.sum(days.field("UN", Integer.class)).coerce(Integer.class),
+                        DSL.sum(days.field("F", BigDecimal.class)))
+                .from(days)
+                .groupBy(day, book)
+                .fetch();
+
+        dsl.deleteFrom(LOAN_DAILY_STATS)
+                .where(STAT_DATE.ge(start).and(STAT_DATE.lt(end)))
+                .execute();
+        for (int i = 0; i < counters.size(); i += INSERT_CHUNK) {
+            dsl.insertInto(LOAN_DAILY_STATS, STAT_DATE, STAT_BOOK_ID, BORROWED, RETURNED, UNRETURNED, FINES)
+                    .valuesOfRecords(counters.subList(i, Math.min(i + INSERT_CHUNK, counters.size())))
+                    .execute();
+        }
+        return counters.size();
+    }
+
+    private LocalDate earliestDay() {
+        LocalDateTime earliest = dsl.select(DSL.min(LOAN.BORROW_DATE)).from(LOAN).fetchOne(0, LocalDateTime.class);
+        return earliest == null ? null : earliest.toLocalDate();
+    }
+
+    /** Today, or the latest due day of an open loan if that is later. */
+    private LocalDate latestDay() {
+        LocalDateTime latestDue = dsl.select(DSL.max(LOAN.DUE_DATE))
+                .from(LOAN)
+                .where(LOAN.RETURN_DATE.isNull())
+                .fetchOne(0, LocalDateTime.class);
+        LocalDate today = LocalDate.now();
+        return latestDue == null || latestDue.toLocalDate().isBefore(today) ? today : latestDue.toLocalDate();
+    }
+
+    private static Delta delta(Map<Bucket, Delta> deltas, LocalDateTime at, Long bookId) {
+        return deltas.computeIfAbsent(new Bucket(at.toLocalDate(), bookId), k -> new Delta());
+    }
+
+    /**
+     * One multi-row upsert, rows in key order so concurrent increments lock them in the same order. The
+     * loans are already committed, so a failure here is logged rather than failing the checkout or return.
+     */
+    private void apply(Map<Bucket, Delta> deltas) {
+        if (deltas.isEmpty()) {
+            return;
+        }
+        try {
+            incrementTransaction.executeWithoutResult(status -> upsert(deltas));
+        } catch (DataAccessException | TransactionException ex) {
+            log.warn("Loan daily stats increment lost for {} buckets; the nightly reconcile will repair it",
+                    deltas.size(), ex);
+        }
+    }
+
+    private void upsert(Map<Bucket, Delta> deltas) {
+        var upsert = dsl.insertInto(LOAN_DAILY_STATS, STAT_DATE, STAT_BOOK_ID, BORROWED, RETURNED, UNRETURNED, FINES);
+        for (Map.Entry<Bucket, Delta> e : deltas.entrySet()) {
+            Delta d = e.getValue();
+            upsert = upsert.values(e.getKey().day(), e.getKey().bookId(), d.borrowed, d.returned, d.unreturned, d.fines);
+        }
+        upsert.onDuplicateKeyUpdate()
+                .set(BORROWED, BORROWED.plus(inserted(BORROWED)))
+                .set(RETURNED, RETURNED.plus(inserted(RETURNED)))
+                .set(UNRETURNED, UNRETURNED.plus(inserted(UNRETURNED)))
+                .set(FINES, FINES.plus(inserted(FINES)))
+                .execute();
+    }
+
+    private record Bucket(LocalDate day, Long bookId) implements Comparable<Bucket> {
+        private static final Comparator<Bucket> ORDER = Comparator.comparing(Bucket::day).thenComparing(Bucket::bookId);
+
+        @Override
+        public int compareTo(Bucket other) {
+            return ORDER.compare(this, other);
+        }
+    }
+
+    private static final class Delta {
+        private int borrowed;
+        private int returned;
+        private int unreturned;
+        private BigDecimal fines = BigDecimal.ZERO;
+    }
+}
@@ -1,52 +1,123 @@
 //src/main/java/com/example/library/service/LoanService.java
 package com.example.library.service;
 
+import com.example.library.config.ReadReplica;
 import com.example.library.dto.BorrowReturnStat;
 import com.example.library.dto.ChartDataPoint;
+import com.example.library.dto.CursorPage;
+import com.example.library.dto.FineTerms;
 import com.example.library.dto.LoanListItem;
+import com.example.library.dto.LoanReturnResult;
+import com.example.library.dto.NotificationDraft;
+import com.example.library.dto.NotificationKind;
 import com.example.library.dto.PagedResult;
+import com.example.library.exception.ConflictException;
+import com.example.library.event.LoanReturnedEvent;
+import com.example.library.event.LoansBorrowedEvent;
+import com.example.library.event.LoansReturnedEvent;
+import com.example.library.jooq.enums.BookStatus;
 import com.example.library.jooq.enums.LoanStatus;
+import com.example.library.jooq.tables.records.BookRecord;
 import com.example.library.jooq.tables.records.LoanRecord;
 import com.example.library.service.NotificationService;
+import com.example.library.util.AfterCommit;
+import com.example.library.util.JdbcStreaming;
+import com.example.library.util.SeekCursor;
 import java.math.BigDecimal;
 import java.time.LocalDate;
 import java.time.LocalDateTime;
 import java.time.LocalTime;
-import java.time.temporal.ChronoUnit;
+import java.time.YearMonth;
+import java.time.format.DateTimeParseException;
 import java.util.ArrayList;
+import java.util.HashMap;
 import java.util.LinkedHashMap;
 import java.util.LinkedHashSet;
 import java.util.List;
 import java.util.Locale;
 import java.util.Map;
 import java.util.Set;
+import java.util.TreeMap;
+import java.util.TreeSet;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.function.Consumer;
 import java.util.stream.Collectors;
+import org.jooq.CaseWhenStep;
 import org.jooq.Condition;
+import org.jooq.Cursor;
 import org.jooq.DSLContext;
 import org.jooq.Field;
 import org.jooq.Record;
+import org.jooq.SelectJoinStep;
 import org.jooq.impl.DSL;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.context.ApplicationEventPublisher;
 import org.springframework.stereotype.Service;
 import org.springframework.transaction.annotation.Transactional;
+import org.springframework.transaction.support.TransactionTemplate;
 
 import static com.example.library.jooq.tables.Book.BOOK;
 import static com.example.library.jooq.tables.Category.CATEGORY;
 import static com.example.library.jooq.tables.Loan.LOAN;
 import static com.example.library.jooq.tables.Member.MEMBER;
+import static com.example.library.service.LoanDailyStatsService.BORROWED;
+import static com.example.library.service.LoanDailyStatsService.LOAN_DAILY_STATS;
+import static com.example.library.service.LoanDailyStatsService.RETURNED;
+import static com.example.library.service.LoanDailyStatsService.STAT_BOOK_ID;
+import static com.example.library.service.LoanDailyStatsService.STAT_DATE;
+import static com.example.library.service.LoanDailyStatsService.UNRETURNED;
 
 @Service
 public class LoanService {
-    private static final long FINE_PER_DAY = 5_000L;
+    private static final Logger log = LoggerFactory.getLogger(LoanService.class);
+
+    private static final String LOAN_SEEK_SORT = "dueDate,asc";
+    private static final String ACCRUED_FINE = "ACCRUED_FINE";
 
     private final DSLContext dsl;
+    /** {@link #dsl} with the dashboard statement timeout, for the chart and recent-loan queries. */
+    private final DSLContext dashboardDsl;
     private final NotificationService notificationService;
-
-    public LoanService(DSLContext dsl, NotificationService notificationService) {
+    private final CountCache countCache;
+    private final MemberStandingService standings;
+    private final FinePolicy finePolicy;
+    private final ApplicationEventPublisher events;
+    private final TransactionTemplate transactionTemplate;
+    private final boolean optimisticReservations;
+    private final int returnBatchSize;
+
+    public LoanService(DSLContext dsl,
+                       NotificationService notificationService,
+                       CountCache countCache,
+                       MemberStandingService standings,
+                       FinePolicy finePolicy,
+                       ApplicationEventPublisher events,
+                       TransactionTemplate transactionTemplate,
+                       @Value("${library.borrow.reservation-mode:pessimistic}") String reservationMode,
+                       @Value("${library.returns.batch-size:500}") int returnBatchSize,
+                       @Value("${library.dashboard.query-timeout-ms:3000}") long dashboardQueryTimeoutMs) {
         this.dsl = dsl;
+        int timeoutSeconds = (int) Math.max((dashboardQueryTimeoutMs + 999) / 1000, 1);
+        this.dashboardDsl = dsl.configuration().deriveSettings(s -> s.withQueryTimeout(timeoutSeconds)).dsl();
         this.notificationService = notificationService;
+        this.countCache = countCache;
+        this.standings = standings;
+        this.finePolicy = finePolicy;
+        this.events = events;
+        this.transactionTemplate = transactionTemplate;
+        this.optimisticReservations = "optimistic".equalsIgnoreCase(reservationMode.trim());
+        this.returnBatchSize = Math.max(returnBatchSize, 1);
     }
 
-    @Transactional
+    /**
+     * Creates one loan per book. In the default pessimistic mode the books are locked with
+     * {@code FOR UPDATE} for the whole checkout; in optimistic mode each copy is reserved by its
+     * own conditional decrement (see {@link #borrowOptimistic}). A book with no copy left, or whose
+     * last copy another checkout took first, throws {@link ConflictException} (409 on the API);
+     * malformed requests throw {@link IllegalArgumentException} (400).
+     */
     public List<Long> borrow(Long memberId, List<Long> requestedBookIds, LocalDate borrowDate, LocalDate dueDate) {
         if (memberId == null) {
             throw new IllegalArgumentException("Member is required");
@@ -68,41 +139,145 @@ public class LoanService {
             throw new IllegalArgumentException("Due date must be after borrow date");
         }
 
-        rejectIfMemberHasOutstandingLoans(memberId);
+        standings.checkCanBorrow(memberId, bookIds.size());
+        if (optimisticReservations) {
+            return borrowOptimistic(memberId, bookIds, borrowAt, dueAt);
+        }
+        return transactionTemplate.execute(status -> borrowLocked(memberId, bookIds, borrowAt, dueAt));
+    }
+
+    private List<Long> borrowLocked(Long memberId, Set<Long> bookIds, LocalDateTime borrowAt, LocalDateTime dueAt) {
+        standings.lockAndCheck(memberId, bookIds.size());
 
         var books = dsl.selectFrom(BOOK)
                 .where(BOOK.BOOK_ID.in(bookIds))
+                .orderBy(BOOK.BOOK_ID)
                 .forUpdate()
                 .fetch();
         if (books.size() != bookIds.size()) {
             throw new IllegalArgumentException("One or more selected books were not found");
         }
 
-        List<Long> createdIds = new ArrayList<>();
         books.forEach(book -> {
             Integer stock = book.getStock();
             if (stock == null || stock <= 0) {
-                throw new IllegalArgumentException("Book out of stock: " + book.getTitle());
+                throw new ConflictException("Book out of stock: " + book.getTitle());
             }
         });
 
-        for (var book : books) {
-            LoanRecord loanRecord = dsl.newRecord(LOAN);
-            loanRecord.setBookId(book.getBookId());
-            loanRecord.setMemberId(memberId);
-            loanRecord.setBorrowDate(borrowAt);
-            loanRecord.setDueDate(dueAt);
-            loanRecord.setStatus(LoanStatus.BORROWED);
-            loanRecord.setFineAmount(BigDecimal.ZERO);
-            loanRecord.store();
-            createdIds.add(loanRecord.getLoanId());
+        // One decrement for the whole checkout; the STOCK > 0 guard keeps stock from going negative
+        int decremented = dsl.update(BOOK)
+                .set(BOOK.STOCK, BOOK.STOCK.minus(1))
+                .where(BOOK.BOOK_ID.in(bookIds))
+                .and(BOOK.STOCK.gt(0))
+                .execute();
+        if (decremented != bookIds.size()) {
+            throw new ConflictException("Stock changed while borrowing; please retry");
+        }
+
+        List<Long> borrowedBookIds = new ArrayList<>(bookIds);
+        List<Long> createdIds = insertLoans(memberId, borrowedBookIds, borrowAt, dueAt);
+        standings.recompute(List.of(memberId));
+        int booksOutOfStock = (int) books.stream()
+                .filter(book -> book.getStock() == 1 && BookStatus.AVAILABLE.equals(book.getStatus()))
+                .count();
+        countCache.invalidate(CountCache.LOANS);
+        events.publishEvent(new LoansBorrowedEvent(memberId, createdIds, borrowedBookIds, borrowAt, dueAt, booksOutOfStock));
+        return createdIds;
+    }
+
+    /**
+     * Lock-free checkout: each copy is taken with its own auto-committed
+     * {@code UPDATE ... SET STOCK = STOCK - 1 WHERE BOOK_ID = ? AND STOCK > 0}, so concurrent borrowers
+     * of a popular title never wait on a row lock held for a whole checkout. A book whose update
+     * touches no row is out of stock and fails the checkout with {@link ConflictException}, as in
+     * pessimistic mode; copies already taken, or all of them if writing the loans fails, are handed
+     * back with a compensating increment.
+     */
+    private List<Long> borrowOptimistic(Long memberId, Set<Long> bookIds, LocalDateTime borrowAt, LocalDateTime dueAt) {
+        Map<Long, BookRecord> books = dsl.selectFrom(BOOK)
+                .where(BOOK.BOOK_ID.in(bookIds))
+                .fetchMap(BOOK.BOOK_ID);
+        if (books.size() != bookIds.size()) {
+            throw new IllegalArgumentException("One or more selected books were not found");
+        }
+
+        List<Long> reserved = new ArrayList<>();
+        AtomicBoolean committed = new AtomicBoolean();
+        try {
+            for (Long bookId : new TreeSet<>(bookIds)) {
+                int taken = dsl.update(BOOK)
+                        .set(BOOK.STOCK, BOOK.STOCK.minus(1))
+                        .where(BOOK.BOOK_ID.eq(bookId))
+                        .and(BOOK.STOCK.gt(0))
+                        .execute();
+                if (taken == 0) {
+                    throw new ConflictException("Book out of stock: " + books.get(bookId).getTitle());
+                }
+                reserved.add(bookId);
+            }
+            return transactionTemplate.execute(status -> {
+                AfterCommit.run(() -> committed.set(true));
+                standings.lockAndCheck(memberId, bookIds.size());
+                List<Long> borrowedBookIds = new ArrayList<>(bookIds);
+                List<Long> createdIds = insertLoans(memberId, borrowedBookIds, borrowAt, dueAt);
+                standings.recompute(List.of(memberId));
+                int booksOutOfStock = dsl.fetchCount(BOOK, BOOK.BOOK_ID.in(bookIds)
+                        .and(BOOK.STOCK.eq(0))
+                        .and(BOOK.STATUS.eq(BookStatus.AVAILABLE)));
+                countCache.invalidate(CountCache.LOANS);
+                events.publishEvent(new LoansBorrowedEvent(memberId, createdIds, borrowedBookIds, borrowAt, dueAt, booksOutOfStock));
+                return createdIds;
+            });
+        } catch (RuntimeException ex) {
+            // an after-commit listener failing must not hand back copies the committed loans hold
+            if (!committed.get()) {
+                releaseReservations(reserved);
+            }
+            throw ex;
+        }
+    }
 
+    private void releaseReservations(List<Long> bookIds) {
+        if (bookIds.isEmpty()) {
+            return;
+        }
+        try {
             dsl.update(BOOK)
-                    .set(BOOK.STOCK, BOOK.STOCK.minus(1))
-                    .where(BOOK.BOOK_ID.eq(book.getBookId()))
+                    .set(BOOK.STOCK, BOOK.STOCK.plus(1))
+                    .where(BOOK.BOOK_ID.in(bookIds))
                     .execute();
+        } catch (RuntimeException ex) {
+            log.error("Failed to release reserved stock for books {}", bookIds, ex);
         }
-        return createdIds;
+    }
+
+    /**
+     * One multi-row INSERT for the checkout, each loan carrying the fine terms it was borrowed under;
+     * generated ids come back in {@code bookIds} order.
+     */
+    private List<Long> insertLoans(Long memberId, List<Long> bookIds, LocalDateTime borrowAt, LocalDateTime dueAt) {
+        Map<Long, FineTerms> terms = finePolicy.termsFor(memberId, bookIds);
+        var insert = dsl.insertInto(LOAN,
+                LOAN.BOOK_ID,
+                LOAN.MEMBER_ID,
+                LOAN.BORROW_DATE,
+                LOAN.DUE_DATE,
+                LOAN.STATUS,
+                LOAN.FINE_AMOUNT,
+                FinePolicy.FINE_RATE,
+                FinePolicy.FINE_GRACE_DAYS,
+                FinePolicy.FINE_CAP);
+        for (Long bookId : bookIds) {
+            FineTerms t = terms.get(bookId);
+            insert = insert.values(bookId, memberId, borrowAt, dueAt, LoanStatus.BORROWED, BigDecimal.ZERO,
+                    t.dailyRate(), t.graceDays(), t.cap());
+        }
+        List<Long> ids = insert.returningResult(LOAN.LOAN_ID).fetch(LOAN.LOAN_ID);
+        if (ids.size() != bookIds.size()) {
+            throw new IllegalStateException("Failed to create loans");
+        }
+        return ids;
     }
 
     @Transactional
@@ -112,29 +287,56 @@ public class LoanService {
 
     @Transactional
     public void returnBook(Long loanId, LocalDate returnDate) {
-        LoanRecord loan = dsl.selectFrom(LOAN)
+        Long memberId = dsl.select(LOAN.MEMBER_ID)
+                .from(LOAN)
+                .where(LOAN.LOAN_ID.eq(loanId))
+                .fetchOne(LOAN.MEMBER_ID);
+        if (memberId == null) {
+            throw new IllegalArgumentException("Loan not found: " + loanId);
+        }
+        standings.lock(List.of(memberId));
+        Record row = selectLoanWithTerms()
                 .where(LOAN.LOAN_ID.eq(loanId))
                 .forUpdate()
                 .fetchOne();
-        if (loan == null) {
+        if (row == null) {
             throw new IllegalArgumentException("Loan not found: " + loanId);
         }
+        LoanRecord loan = row.into(LOAN);
         if (LoanStatus.RETURNED.equals(loan.getStatus())) {
             return;
         }
+        LocalDateTime now = LocalDateTime.now();
         LocalDateTime returnedAt = returnDate == null
-                ? LocalDateTime.now()
-                : returnDate.atTime(LocalTime.now());
-        BigDecimal fine = calculateFine(loan.getDueDate(), returnedAt);
-        loan.setReturnDate(returnedAt);
-        loan.setStatus(LoanStatus.RETURNED);
-        loan.setFineAmount(fine);
-        loan.store();
+                ? now
+                : returnDate.atTime(now.toLocalTime());
+        FineTerms terms = FinePolicy.termsOf(row);
+        BigDecimal fine = terms.fineFor(loan.getDueDate(), returnedAt);
+        // what totals counted for the loan until now; the settled fine can differ for a back-dated return
+        BigDecimal previousFine = terms.fineFor(loan.getDueDate(), now);
+        dsl.update(LOAN)
+                .set(LOAN.RETURN_DATE, returnedAt)
+                .set(LOAN.STATUS, LoanStatus.RETURNED)
+                .set(LOAN.FINE_AMOUNT, fine)
+                .where(LOAN.LOAN_ID.eq(loanId))
+                .execute();
+        standings.recompute(List.of(loan.getMemberId()));
+        countCache.invalidate(CountCache.LOANS);
 
         dsl.update(BOOK)
                 .set(BOOK.STOCK, BOOK.STOCK.plus(1))
                 .where(BOOK.BOOK_ID.eq(loan.getBookId()))
                 .execute();
+        events.publishEvent(new LoanReturnedEvent(
+                loanId,
+                loan.getMemberId(),
+                loan.getBookId(),
+                loan.getBorrowDate(),
+                loan.getDueDate(),
+                returnedAt,
+                previousFine,
+                fine
+        ));
 
         if (fine.compareTo(BigDecimal.ZERO) > 0) {
             var member = dsl.select(MEMBER.EMAIL, MEMBER.FULL_NAME)
@@ -142,89 +344,277 @@ public class LoanService {
                     .where(MEMBER.MEMBER_ID.eq(loan.getMemberId()))
                     .fetchOne();
             if (member != null) {
-                String subject = "[Library] Fine notice for loan #" + loanId;
-                String body = String.format(
-                        Locale.ENGLISH,
-                        "Xin chào %s,%n%n" +
-                                "Phiếu mượn #%d đã được trả vào %s.%n" +
-                                "Phí phạt phát sinh: %s VND.%n%n" +
-                                "Vui lòng thanh toán phí phạt tại thư viện. Cảm ơn bạn!",
-                        member.get(MEMBER.FULL_NAME),
+                notificationService.queueNotifications(List.of(fineNotice(
                         loanId,
-                        returnedAt.toLocalDate(),
-                        String.format(Locale.ENGLISH, "%,d", fine.longValue())
-                );
-                notificationService.queueNotification(
                         loan.getMemberId(),
                         member.get(MEMBER.EMAIL),
-                        subject,
-                        body
-                );
+                        member.get(MEMBER.FULL_NAME),
+                        returnedAt,
+                        fine
+                )));
             }
         }
     }
 
-    public PagedResult<LoanListItem> list(String q, String status, int page, int size) {
-        Condition condition = DSL.trueCondition();
-        LoanStatus desiredStatus = parseStatus(status);
-        if (desiredStatus != null) {
-            condition = condition.and(LOAN.STATUS.eq(desiredStatus));
+    /**
+     * Returns many loans in chunks of {@code library.returns.batch-size}. Each chunk is one
+     * transaction: the loans are locked in id order by a single {@code SELECT ... FOR UPDATE}, fines
+     * are computed in memory, and the loan updates, stock increments and fine notices are each
+     * written with one statement. Results follow the order of {@code loanIds}.
+     */
+    public List<LoanReturnResult> returnBooks(List<Long> loanIds, LocalDate returnDate) {
+        if (loanIds == null || loanIds.isEmpty()) {
+            throw new IllegalArgumentException("At least one loan must be given");
         }
-        if (q != null && !q.isBlank()) {
-            String keyword = "%" + q.trim() + "%";
-            condition = condition.and(
-                    BOOK.TITLE.likeIgnoreCase(keyword)
-                            .or(MEMBER.FULL_NAME.likeIgnoreCase(keyword))
-                            .or(MEMBER.EMAIL.likeIgnoreCase(keyword))
-            );
+        if (loanIds.contains(null)) {
+            throw new IllegalArgumentException("Loan ids must not be null");
+        }
+        List<Long> distinct = new ArrayList<>(new LinkedHashSet<>(loanIds));
+        Map<Long, LoanReturnResult> results = new LinkedHashMap<>();
+        for (int from = 0; from < distinct.size(); from += returnBatchSize) {
+            List<Long> chunk = distinct.subList(from, Math.min(from + returnBatchSize, distinct.size()));
+            transactionTemplate.executeWithoutResult(status -> results.putAll(returnChunk(chunk, returnDate)));
         }
+        return loanIds.stream().map(results::get).toList();
+    }
+
+    private Map<Long, LoanReturnResult> returnChunk(List<Long> loanIds, LocalDate returnDate) {
+        LocalDateTime now = LocalDateTime.now();
+        LocalDateTime returnedAt = returnDate == null
+                ? now
+                : returnDate.atTime(now.toLocalTime());
+        standings.lock(dsl.selectDistinct(LOAN.MEMBER_ID)
+                .from(LOAN)
+                .where(LOAN.LOAN_ID.in(loanIds))
+                .fetch(LOAN.MEMBER_ID));
+        Map<Long, Record> loans = selectLoanWithTerms()
+                .where(LOAN.LOAN_ID.in(loanIds))
+                .orderBy(LOAN.LOAN_ID)
+                .forUpdate()
+                .fetchMap(LOAN.LOAN_ID);
+
+        Map<Long, LoanReturnResult> results = new HashMap<>();
+        List<LoanReturnedEvent> returned = new ArrayList<>();
+        Map<Long, Integer> copiesByBook = new TreeMap<>();
+        CaseWhenStep<Long, BigDecimal> fines = null;
+        for (Long loanId : loanIds) {
+            Record row = loans.get(loanId);
+            if (row == null) {
+                results.put(loanId, new LoanReturnResult(loanId, LoanReturnResult.Outcome.NOT_FOUND, null));
+                continue;
+            }
+            LoanRecord loan = row.into(LOAN);
+            if (LoanStatus.RETURNED.equals(loan.getStatus())) {
+                results.put(loanId, new LoanReturnResult(loanId, LoanReturnResult.Outcome.ALREADY_RETURNED, loan.getFineAmount()));
+                continue;
+            }
+            FineTerms terms = FinePolicy.termsOf(row);
+            BigDecimal fine = terms.fineFor(loan.getDueDate(), returnedAt);
+            fines = fines == null
+                    ? DSL.case_(LOAN.LOAN_ID).when(loanId, fine)
+                    : fines.when(loanId, fine);
+            copiesByBook.merge(loan.getBookId(), 1, Integer::sum);
+            returned.add(new LoanReturnedEvent(
+                    loanId,
+                    loan.getMemberId(),
+                    loan.getBookId(),
+                    loan.getBorrowDate(),
+                    loan.getDueDate(),
+                    returnedAt,
+                    terms.fineFor(loan.getDueDate(), now),
+                    fine
+            ));
+            results.put(loanId, new LoanReturnResult(loanId, LoanReturnResult.Outcome.RETURNED, fine));
+        }
+        if (returned.isEmpty()) {
+            return results;
+        }
+
+        List<Long> returnedIds = returned.stream().map(LoanReturnedEvent::loanId).toList();
+        dsl.update(LOAN)
+                .set(LOAN.RETURN_DATE, returnedAt)
+                .set(LOAN.STATUS, LoanStatus.RETURNED)
+                .set(LOAN.FINE_AMOUNT, fines.otherwise(LOAN.FINE_AMOUNT))
+                .where(LOAN.LOAN_ID.in(returnedIds))
+                .execute();
+
+        CaseWhenStep<Long, Integer> increments = null;
+        for (Map.Entry<Long, Integer> e : copiesByBook.entrySet()) {
+            increments = increments == null
+                    ? DSL.case_(BOOK.BOOK_ID).when(e.getKey(), e.getValue())
+                    : increments.when(e.getKey(), e.getValue());
+        }
+        dsl.update(BOOK)
+                .set(BOOK.STOCK, BOOK.STOCK.plus(increments.otherwise(0)))
+                .where(BOOK.BOOK_ID.in(copiesByBook.keySet()))
+                .execute();
+
+        standings.recompute(returned.stream().map(LoanReturnedEvent::memberId).toList());
+        queueFineNotices(returned);
+        countCache.invalidate(CountCache.LOANS);
+        events.publishEvent(new LoansReturnedEvent(returned));
+        return results;
+    }
+
+    /** LOAN's generated columns plus its fine terms, which the generated record does not carry. */
+    private SelectJoinStep<Record> selectLoanWithTerms() {
+        return dsl.select(LOAN.fields()).select(FinePolicy.TERM_FIELDS).from(LOAN);
+    }
+
+    private void queueFineNotices(List<LoanReturnedEvent> returned) {
+        List<LoanReturnedEvent> fined = returned.stream()
+                .filter(r -> r.fine().signum() > 0)
+                .toList();
+        if (fined.isEmpty()) {
+            return;
+        }
+        var members = dsl.select(MEMBER.MEMBER_ID, MEMBER.EMAIL, MEMBER.FULL_NAME)
+                .from(MEMBER)
+                .where(MEMBER.MEMBER_ID.in(fined.stream().map(LoanReturnedEvent::memberId).collect(Collectors.toSet())))
+                .fetchMap(MEMBER.MEMBER_ID);
+        List<NotificationDraft> drafts = new ArrayList<>();
+        for (LoanReturnedEvent r : fined) {
+            var member = members.get(r.memberId());
+            if (member != null) {
+                drafts.add(fineNotice(r.loanId(), r.memberId(), member.get(MEMBER.EMAIL),
+                        member.get(MEMBER.FULL_NAME), r.returnedAt(), r.fine()));
+            }
+        }
+        if (!drafts.isEmpty()) {
+            notificationService.queueNotifications(drafts);
+        }
+    }
+
+    private NotificationDraft fineNotice(Long loanId,
+                                         Long memberId,
+                                         String email,
+                                         String fullName,
+                                         LocalDateTime returnedAt,
+                                         BigDecimal fine) {
+        String subject = "[Library] Fine notice for loan #" + loanId;
+        String body = String.format(
+                Locale.ENGLISH,
+                "Xin chào %s,%n%n" +
+                        "Phiếu mượn #%d đã được trả vào %s.%n" +
+                        "Phí phạt phát sinh: %s VND.%n%n" +
+                        "Vui lòng thanh toán phí phạt tại thư viện. Cảm ơn bạn!",
+                fullName,
+                loanId,
+                returnedAt.toLocalDate(),
+                String.format(Locale.ENGLISH, "%,d", fine.longValue())
+        );
+        return new NotificationDraft(memberId, email, subject, body, NotificationKind.FINE, loanId);
+    }
+
+    @ReadReplica
+    public PagedResult<LoanListItem> list(String q, String status, int page, int size) {
+        Condition condition = buildListCondition(q, status);
         int pageIndex = Math.max(page, 0);
         int pageSize = Math.max(size, 1);
 
-        List<LoanListItem> items = dsl.select(
-                        LOAN.LOAN_ID,
-                        LOAN.MEMBER_ID,
-                        MEMBER.FULL_NAME,
-                        LOAN.BOOK_ID,
-                        BOOK.TITLE,
-                        LOAN.BORROW_DATE,
-                        LOAN.DUE_DATE,
-                        LOAN.RETURN_DATE,
-                        LOAN.STATUS,
-                        LOAN.FINE_AMOUNT
-                )
-                .from(LOAN)
-                .join(BOOK).on(LOAN.BOOK_ID.eq(BOOK.BOOK_ID))
-                .join(MEMBER).on(LOAN.MEMBER_ID.eq(MEMBER.MEMBER_ID))
+        List<LoanListItem> items = listSelect()
                 .where(condition)
                 .orderBy(LOAN.DUE_DATE.asc())
                 .limit(pageSize)
                 .offset(pageIndex * pageSize)
                 .fetch(this::mapToLoanListItem);
 
+        CountCache.Count total = countCache.resolve(CountCache.LOANS, CountCache.key(q, parseStatus(status)),
+                pageIndex, pageSize, items.size(), () -> countLoans(condition));
+        return new PagedResult<>(items, total.total(), pageIndex, pageSize, total.estimated());
+    }
+
+    /** Streams every matching loan to {@code sink} as a row-by-row result stream, in list order. */
+    @ReadReplica
+    public void exportAll(String q, String status, Consumer<LoanListItem> sink) {
+        try (Cursor<?> cursor = listSelect()
+                .where(buildListCondition(q, status))
+                .orderBy(LOAN.DUE_DATE.asc(), LOAN.LOAN_ID.asc())
+                .fetchSize(JdbcStreaming.ROW_BY_ROW)
+                .fetchLazy()) {
+            for (Record record : cursor) {
+                sink.accept(mapToLoanListItem(record));
+            }
+        }
+    }
+
+    private long countLoans(Condition condition) {
         Long total = dsl.select(DSL.count())
                 .from(LOAN)
                 .join(BOOK).on(LOAN.BOOK_ID.eq(BOOK.BOOK_ID))
                 .join(MEMBER).on(LOAN.MEMBER_ID.eq(MEMBER.MEMBER_ID))
                 .where(condition)
                 .fetchOne(0, Long.class);
+        return total == null ? 0L : total;
+    }
+
+    @ReadReplica
+    public CursorPage<LoanListItem> seek(String q, String status, String cursor, int size) {
+        Condition condition = buildListCondition(q, status);
+        int pageSize = Math.max(size, 1);
+        if (cursor != null && !cursor.isBlank()) {
+            SeekCursor after = SeekCursor.decode(cursor);
+            if (!LOAN_SEEK_SORT.equals(after.sort()) || after.value() == null) {
+                throw new IllegalArgumentException("Invalid cursor");
+            }
+            LocalDateTime lastDue;
+            try {
+                lastDue = LocalDateTime.parse(after.value());
+            } catch (DateTimeParseException ex) {
+                throw new IllegalArgumentException("Invalid cursor", ex);
+            }
+            condition = condition.and(SeekCursor.after(LOAN.DUE_DATE, lastDue, LOAN.LOAN_ID, after.id(), false));
+        }
+
+        List<LoanListItem> rows = listSelect()
+                .where(condition)
+                .orderBy(LOAN.DUE_DATE.asc(), LOAN.LOAN_ID.asc())
+                .limit(pageSize + 1)
+                .fetch(this::mapToLoanListItem);
 
-        long totalCount = total == null ? 0L : total;
-        return new PagedResult<>(items, totalCount, pageIndex, pageSize);
+        String nextCursor = null;
+        if (rows.size() > pageSize) {
+            rows = rows.subList(0, pageSize);
+            LoanListItem last = rows.get(pageSize - 1);
+            nextCursor = new SeekCursor(LOAN_SEEK_SORT, last.dueDate().toString(), last.loanId()).encode();
+        }
+        return new CursorPage<>(rows, nextCursor, pageSize);
     }
 
-    private void rejectIfMemberHasOutstandingLoans(Long memberId) {
-        LocalDateTime now = LocalDateTime.now();
-        boolean hasDebt = dsl.fetchExists(
-                dsl.selectOne()
-                        .from(LOAN)
-                        .where(LOAN.MEMBER_ID.eq(memberId)
-                                .and(LOAN.RETURN_DATE.isNull())
-                                .and(LOAN.DUE_DATE.lt(now)))
-        );
-        if (hasDebt) {
-            throw new IllegalStateException("Member has outstanding loans and cannot borrow more books");
+    /** List columns; an open loan's fine is what it has accrued so far. */
+    private SelectJoinStep<?> listSelect() {
+        return dsl.select(
+                        LOAN.LOAN_ID,
+                        LOAN.MEMBER_ID,
+                        MEMBER.FULL_NAME,
+                        LOAN.BOOK_ID,
+                        BOOK.TITLE,
+                        LOAN.BORROW_DATE,
+                        LOAN.DUE_DATE,
+                        LOAN.RETURN_DATE,
+                        LOAN.STATUS,
+                        FinePolicy.accruedFine(LocalDateTime.now()).as(ACCRUED_FINE)
+                )
+                .from(LOAN)
+                .join(BOOK).on(LOAN.BOOK_ID.eq(BOOK.BOOK_ID))
+                .join(MEMBER).on(LOAN.MEMBER_ID.eq(MEMBER.MEMBER_ID));
+    }
+
+    private Condition buildListCondition(String q, String status) {
+        Condition condition = DSL.trueCondition();
+        LoanStatus desiredStatus = parseStatus(status);
+        if (desiredStatus != null) {
+            condition = condition.and(LOAN.STATUS.eq(desiredStatus));
+        }
+        if (q != null && !q.isBlank()) {
+            String keyword = "%" + q.trim() + "%";
+            condition = condition.and(
+                    BOOK.TITLE.likeIgnoreCase(keyword)
+                            .or(MEMBER.FULL_NAME.likeIgnoreCase(keyword))
+                            .or(MEMBER.EMAIL.likeIgnoreCase(keyword))
+            );
         }
+        return condition;
     }
 
     private LoanListItem mapToLoanListItem(Record record) {
@@ -238,7 +628,7 @@ public class LoanService {
                 record.get(LOAN.DUE_DATE),
                 record.get(LOAN.RETURN_DATE),
                 record.get(LOAN.STATUS),
-                record.get(LOAN.FINE_AMOUNT)
+                record.get(ACCRUED_FINE, BigDecimal.class)
         );
     }
 
@@ -253,17 +643,6 @@ public class LoanService {
         }
     }
 
-    private BigDecimal calculateFine(LocalDateTime due, LocalDateTime actual) {
-        if (due == null || actual == null || !actual.isAfter(due)) {
-            return BigDecimal.ZERO;
-        }
-        long days = ChronoUnit.DAYS.between(due.toLocalDate(), actual.toLocalDate());
-        if (days <= 0) {
-            days = 1;
-        }
-        return BigDecimal.valueOf(days * FINE_PER_DAY);
-    }
-
     public long countBorrowedToday() {
         LocalDate today = LocalDate.now();
         return dsl.fetchCount(
@@ -283,7 +662,7 @@ public class LoanService {
     }
 
     public List<LoanListItem> findRecentLoans(int limit) {
-        return dsl.select(
+        return dashboardDsl.select(
                         LOAN.LOAN_ID,
                         LOAN.MEMBER_ID,
                         MEMBER.FULL_NAME,
@@ -293,7 +672,7 @@ public class LoanService {
                         LOAN.DUE_DATE,
                         LOAN.RETURN_DATE,
                         LOAN.STATUS,
-                        LOAN.FINE_AMOUNT)
+                        FinePolicy.accruedFine(LocalDateTime.now()).as(ACCRUED_FINE))
                 .from(LOAN)
                 .join(BOOK).on(LOAN.BOOK_ID.eq(BOOK.BOOK_ID))
                 .join(MEMBER).on(LOAN.MEMBER_ID.eq(MEMBER.MEMBER_ID))
@@ -303,89 +682,76 @@ public class LoanService {
     }
 
     public BigDecimal sumFineAmount() {
-        BigDecimal total = dsl.select(DSL.coalesce(DSL.sum(LOAN.FINE_AMOUNT), BigDecimal.ZERO))
+        BigDecimal total = dsl.select(DSL.coalesce(DSL.sum(FinePolicy.accruedFine(LocalDateTime.now())), BigDecimal.ZERO))
                 .from(LOAN)
                 .fetchOne(0, BigDecimal.class);
         return total == null ? BigDecimal.ZERO : total;
     }
 
+    /** Borrowed / returned per day for the last {@code days} days, summed from LOAN_DAILY_STATS. */
+    @ReadReplica
     public List<BorrowReturnStat> borrowReturnStats(int days) {
-        LocalDate start = LocalDate.now().minusDays(days - 1L);
-        Field<LocalDate> borrowDay = LOAN.BORROW_DATE.cast(LocalDate.class);
-        Field<Integer> borrowCountField = DSL.count();
-        Map<LocalDate, Long> borrowCounts = dsl.select(borrowDay, borrowCountField)
-                .from(LOAN)
-                .where(LOAN.BORROW_DATE.isNotNull()
-                        .and(LOAN.BORROW_DATE.ge(start.atStartOfDay())))
-                .groupBy(borrowDay)
-                .fetch()
-                .stream()
-                .collect(Collectors.toMap(
-                        r -> r.get(borrowDay),
-                        r -> r.get(borrowCountField).longValue(),
-                        Long::sum,
-                        LinkedHashMap::new
-                ));
-
-        Field<LocalDate> returnDay = LOAN.RETURN_DATE.cast(LocalDate.class);
-        Field<Integer> returnCountField = DSL.count();
-        Map<LocalDate, Long> returnCounts = dsl.select(returnDay, returnCountField)
-                .from(LOAN)
-                .where(LOAN.RETURN_DATE.isNotNull()
-                        .and(LOAN.RETURN_DATE.ge(start.atStartOfDay())))
-                .groupBy(returnDay)
-                .fetch()
-                .stream()
-                .collect(Collectors.toMap(
-                        r -> r.get(returnDay),
-                        r -> r.get(returnCountField).longValue(),
-                        Long::sum,
-                        LinkedHashMap::new
-                ));
+        LocalDate today = LocalDate.now();
+        LocalDate start = today.minusDays(days - 1L);
+        Map<LocalDate, BorrowReturnStat> perDay = dashboardDsl.select(STAT_DATE, DSL.sum(BORROWED), DSL.sum(RETURNED))
+                .from(LOAN_DAILY_STATS)
+                .where(STAT_DATE.between(start, today))
+                .groupBy(STAT_DATE)
+                .fetchMap(STAT_DATE, r -> new BorrowReturnStat(
+                        r.value1().toString(),
+                        r.value2().longValue(),
+                        r.value3().longValue()));
 
         List<BorrowReturnStat> stats = new ArrayList<>();
-        LocalDate current = start;
-        LocalDate today = LocalDate.now();
-        while (!current.isAfter(today)) {
-            long borrow = borrowCounts.getOrDefault(current, 0L);
-            long returned = returnCounts.getOrDefault(current, 0L);
-            stats.add(new BorrowReturnStat(current.toString(), borrow, returned));
-            current = current.plusDays(1);
+        for (LocalDate current = start; !current.isAfter(today); current = current.plusDays(1)) {
+            stats.add(perDay.getOrDefault(current, new BorrowReturnStat(current.toString(), 0, 0)));
         }
         return stats;
     }
 
-    public List<ChartDataPoint> topBorrowedBooks(int limit) {
-        Field<Integer> countField = DSL.count();
-        return dsl.select(BOOK.TITLE.as("label"), countField.as("value"))
-                .from(LOAN)
-                .join(BOOK).on(LOAN.BOOK_ID.eq(BOOK.BOOK_ID))
+    /** Most borrowed books over the last {@code days} days. */
+    @ReadReplica
+    public List<ChartDataPoint> topBorrowedBooks(int limit, int days) {
+        Field<BigDecimal> borrowed = DSL.sum(BORROWED);
+        return dashboardDsl.select(BOOK.TITLE, borrowed)
+                .from(LOAN_DAILY_STATS)
+                .join(BOOK).on(STAT_BOOK_ID.eq(BOOK.BOOK_ID))
+                .where(statDays(days))
                 .groupBy(BOOK.BOOK_ID, BOOK.TITLE)
-                .orderBy(countField.desc())
+                .having(borrowed.gt(BigDecimal.ZERO))
+                .orderBy(borrowed.desc())
                 .limit(limit)
-                .fetch(r -> new ChartDataPoint(
-                        r.get("label", String.class),
-                        r.get("value", Number.class).longValue()
-                ));
+                .fetch(r -> new ChartDataPoint(r.value1(), r.value2().longValue()));
     }
 
-    public List<ChartDataPoint> borrowByCategory() {
-        Field<Integer> countField = DSL.count();
-        return dsl.select(CATEGORY.NAME.as("label"), countField.as("value"))
-                .from(LOAN)
-                .join(BOOK).on(LOAN.BOOK_ID.eq(BOOK.BOOK_ID))
+    /**
+     * Borrows per category over the last {@code days} days. Grouped through BOOK at read time, so a
+     * re-categorised book moves its history with it.
+     */
+    @ReadReplica
+    public List<ChartDataPoint> borrowByCategory(int days) {
+        Field<BigDecimal> borrowed = DSL.sum(BORROWED);
+        return dashboardDsl.select(CATEGORY.NAME, borrowed)
+                .from(LOAN_DAILY_STATS)
+                .join(BOOK).on(STAT_BOOK_ID.eq(BOOK.BOOK_ID))
                 .join(CATEGORY).on(BOOK.CATEGORY_ID.eq(CATEGORY.CATEGORY_ID))
+                .where(statDays(days))
                 .groupBy(CATEGORY.CATEGORY_ID, CATEGORY.NAME)
-                .orderBy(countField.desc())
-                .fetch(r -> new ChartDataPoint(
-                        r.get("label", String.class),
-                        r.get("value", Number.class).longValue()
-                ));
+                .having(borrowed.gt(BigDecimal.ZERO))
+                .orderBy(borrowed.desc())
+                .fetch(r -> new ChartDataPoint(r.value1(), r.value2().longValue()));
+    }
+
+    /** The last {@code days} rollup days up to today: a range scan on the (STAT_DATE, BOOK_ID) key. */
+    private static Condition statDays(int days) {
+        LocalDate today = LocalDate.now();
+        return STAT_DATE.between(today.minusDays(Math.max(days, 1) - 1L), today);
     }
 
+    @ReadReplica
     public List<ChartDataPoint> topMembers(int limit) {
         Field<Integer> countField = DSL.count();
-        return dsl.select(MEMBER.FULL_NAME.as("label"), countField.as("value"))
+        return dashboardDsl.select(MEMBER.FULL_NAME.as("label"), countField.as("value"))
                 .from(LOAN)
                 .join(MEMBER).on(LOAN.MEMBER_ID.eq(MEMBER.MEMBER_ID))
                 .where(MEMBER.FULL_NAME.isNotNull())
@@ -398,19 +764,19 @@ public class LoanService {
                 ));
     }
 
+    /** Unreturned loans by due month, from {@code months} months ago on (later months included). */
+    @ReadReplica
     public List<ChartDataPoint> overdueTimeline(int months) {
         LocalDate start = LocalDate.now().minusMonths(months - 1L).withDayOfMonth(1);
-        Field<String> period = DSL.field("DATE_FORMAT({0}, {1})", String.class, LOAN.DUE_DATE, DSL.inline("%Y-%m"));
-        return dsl.select(period.as("label"), DSL.count().as("value"))
-                .from(LOAN)
-                .where(LOAN.DUE_DATE.isNotNull()
-                        .and(LOAN.DUE_DATE.ge(start.atStartOfDay()))
-                        .and(LOAN.RETURN_DATE.isNull()))
-                .groupBy(period)
-                .orderBy(period.asc())
-                .fetch(r -> new ChartDataPoint(
-                        r.get("label", String.class),
-                        r.get("value", Number.class).longValue()
-                ));
+        Map<YearMonth, Long> perMonth = new TreeMap<>();
+        dashboardDsl.select(STAT_DATE, DSL.sum(UNRETURNED))
+                .from(LOAN_DAILY_STATS)
+                .where(STAT_DATE.ge(start))
+                .groupBy(STAT_DATE)
+                .forEach(r -> perMonth.merge(YearMonth.from(r.value1()), r.value2().longValue(), Long::sum));
+        return perMonth.entrySet().stream()
+                .filter(e -> e.getValue() > 0)
+                .map(e -> new ChartDataPoint(e.getKey().toString(), e.getValue()))
+                .toList();
     }
 }
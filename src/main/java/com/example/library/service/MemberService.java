@@ -1,11 +1,18 @@
 package com.example.library.service;
 
+import com.example.library.config.ReadReplica;
 import com.example.library.dto.MemberDto;
+import com.example.library.dto.Suggestion;
 import com.example.library.jooq.enums.MemberStatus;
 import com.example.library.jooq.tables.records.MemberRecord;
+import com.example.library.util.JdbcStreaming;
 import java.util.Locale;
 import java.util.List;
+import java.util.Map;
+import java.util.Objects;
+import java.util.function.Consumer;
 import org.jooq.Condition;
+import org.jooq.Cursor;
 import org.jooq.DSLContext;
 import org.jooq.Result;
 import org.jooq.impl.DSL;
@@ -16,13 +23,41 @@ import static com.example.library.jooq.tables.Member.MEMBER;
 
 @Service
 public class MemberService {
+    private static final int MAX_SUGGESTIONS = 50;
+
     private final DSLContext dsl;
+    private final CountCache countCache;
+    private final SuggestIndex suggestIndex;
 
-    public MemberService(DSLContext dsl) {
+    public MemberService(DSLContext dsl, CountCache countCache, SuggestIndex suggestIndex) {
         this.dsl = dsl;
+        this.countCache = countCache;
+        this.suggestIndex = suggestIndex;
     }
 
+    @ReadReplica
     public Result<MemberRecord> search(String q, int page, int size) {
+        return dsl.selectFrom(MEMBER)
+                .where(buildSearchCondition(q))
+                .orderBy(MEMBER.MEMBER_ID.desc())
+                .limit(size)
+                .offset(page * size)
+                .fetch();
+    }
+
+    /** Streams every matching member to {@code sink} as a row-by-row result stream, in list order. */
+    @ReadReplica
+    public void exportAll(String q, Consumer<MemberRecord> sink) {
+        try (Cursor<MemberRecord> cursor = dsl.selectFrom(MEMBER)
+                .where(buildSearchCondition(q))
+                .orderBy(MEMBER.MEMBER_ID.desc())
+                .fetchSize(JdbcStreaming.ROW_BY_ROW)
+                .fetchLazy()) {
+            cursor.forEach(sink);
+        }
+    }
+
+    private Condition buildSearchCondition(String q) {
         Condition condition = DSL.trueCondition();
         if (q != null && !q.isBlank()) {
             String keyword = "%" + q.trim() + "%";
@@ -31,12 +66,7 @@ public class MemberService {
                             .or(MEMBER.EMAIL.likeIgnoreCase(keyword))
             );
         }
-        return dsl.selectFrom(MEMBER)
-                .where(condition)
-                .orderBy(MEMBER.MEMBER_ID.desc())
-                .limit(size)
-                .offset(page * size)
-                .fetch();
+        return condition;
     }
 
     public MemberRecord getById(Long id) {
@@ -45,6 +75,34 @@ public class MemberService {
                 .fetchOne();
     }
 
+    /** Active members whose name, email or phone has a word starting with {@code prefix}. */
+    public List<Suggestion> suggest(String prefix, int limit) {
+        if (prefix == null || prefix.isBlank()) {
+            return List.of();
+        }
+        int capped = Math.min(Math.max(limit, 1), MAX_SUGGESTIONS);
+        List<MemberRecord> rows;
+        if (suggestIndex.isReady()) {
+            List<Long> ids = suggestIndex.members(prefix, capped * 2);
+            Map<Long, MemberRecord> byId = dsl.selectFrom(MEMBER)
+                    .where(MEMBER.MEMBER_ID.in(ids))
+                    .and(MEMBER.STATUS.eq(MemberStatus.ACTIVE))
+                    .fetchMap(MEMBER.MEMBER_ID);
+            rows = ids.stream().map(byId::get).filter(Objects::nonNull).toList();
+        } else {
+            rows = dsl.selectFrom(MEMBER)
+                    .where(MEMBER.FULL_NAME.like(DSL.escape(prefix.trim(), '!') + "%", '!'))
+                    .and(MEMBER.STATUS.eq(MemberStatus.ACTIVE))
+                    .orderBy(MEMBER.FULL_NAME.asc())
+                    .limit(capped)
+                    .fetch();
+        }
+        return rows.stream()
+                .limit(capped)
+                .map(member -> new Suggestion(member.getMemberId(), member.getFullName(), member.getEmail()))
+                .toList();
+    }
+
     public List<MemberRecord> listActiveMembers() {
         return dsl.selectFrom(MEMBER)
                 .where(MEMBER.STATUS.eq(MemberStatus.ACTIVE))
@@ -71,6 +129,7 @@ public class MemberService {
         record.setPhone(dto.phone());
         record.setStatus(resolveStatus(dto.status()));
         record.store();
+        suggestIndex.refreshMember(record.getMemberId());
         return record.getMemberId();
     }
 
@@ -86,6 +145,8 @@ public class MemberService {
         if (rowsUpdated == 0) {
             throw new IllegalArgumentException("Member not found: " + id);
         }
+        countCache.invalidate(CountCache.LOANS);
+        suggestIndex.refreshMember(id);
     }
 
     @Transactional
@@ -93,6 +154,7 @@ public class MemberService {
         dsl.deleteFrom(MEMBER)
                 .where(MEMBER.MEMBER_ID.eq(id))
                 .execute();
+        suggestIndex.removeMember(id);
     }
 
     private MemberStatus resolveStatus(String status) {
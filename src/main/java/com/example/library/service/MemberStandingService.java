@@ -0,0 +1,180 @@
+package com.example.library.service;
+
+import com.example.library.dto.MemberStanding;
+import com.example.library.exception.ConflictException;
+import com.example.library.util.AfterCommit;
+import java.math.BigDecimal;
+import java.time.LocalDateTime;
+import java.util.Collection;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.TreeSet;
+import java.util.concurrent.ConcurrentHashMap;
+import org.jooq.DSLContext;
+import org.jooq.Field;
+import org.jooq.Record;
+import org.jooq.Table;
+import org.jooq.impl.DSL;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Service;
+
+import static com.example.library.jooq.tables.Loan.LOAN;
+import static com.example.library.util.Upserts.inserted;
+
+/**
+ * Per-member borrowing standing (open loans, earliest due date, fine accrued on open loans as of the
+ * last recompute) kept in MEMBER_STANDING and cached in memory. Every loan transition locks the members' standing rows
+ * before touching LOAN, in member id order, and recomputes them before commit; the cache entries
+ * are dropped once the transaction commits.
+ */
+@Service
+public class MemberStandingService {
+    private static final Table<Record> MEMBER_STANDING = DSL.table("MEMBER_STANDING");
+    private static final Field<Long> MEMBER_ID = DSL.field("MEMBER_ID", Long.class);
+    private static final Field<Integer> OPEN_LOANS = DSL.field("OPEN_LOANS", Integer.class);
+    private static final Field<LocalDateTime> EARLIEST_DUE = DSL.field("EARLIEST_DUE", LocalDateTime.class);
+    private static final Field<BigDecimal> OUTSTANDING_FINE = DSL.field("OUTSTANDING_FINE", BigDecimal.class);
+    private static final Field<LocalDateTime> UPDATED_AT = DSL.field("UPDATED_AT", LocalDateTime.class);
+
+    private static final int MAX_ENTRIES = 100_000;
+
+    private final DSLContext dsl;
+    private final int maxLoans;
+    private final Map<Long, MemberStanding> cache = new ConcurrentHashMap<>();
+    private long generation;
+
+    public MemberStandingService(DSLContext dsl,
+                                 @Value("${library.borrow.max-loans:0}") int maxLoans) {
+        this.dsl = dsl;
+        this.maxLoans = Math.max(maxLoans, 0);
+    }
+
+    public MemberStanding get(Long memberId) {
+        MemberStanding cached = cache.get(memberId);
+        if (cached != null) {
+            return cached;
+        }
+        long seen;
+        synchronized (this) {
+            seen = generation;
+        }
+        MemberStanding loaded = dsl.select(OPEN_LOANS, EARLIEST_DUE, OUTSTANDING_FINE)
+                .from(MEMBER_STANDING)
+                .where(MEMBER_ID.eq(memberId))
+                .fetchOptional(r -> new MemberStanding(r.value1(), r.value2(), r.value3()))
+                .orElse(MemberStanding.NONE);
+        synchronized (this) {
+            // a transition committed while loading; the row read may predate it
+            if (seen == generation) {
+                if (cache.size() >= MAX_ENTRIES) {
+                    cache.clear();
+                }
+                cache.put(memberId, loaded);
+            }
+        }
+        return loaded;
+    }
+
+    /** Cheap pre-check against the cached standing, before any row is locked. */
+    public void checkCanBorrow(Long memberId, int requested) {
+        check(get(memberId), requested);
+    }
+
+    /**
+     * Authoritative check inside the borrow transaction: the standing row is locked, so no other
+     * transition for this member can commit until this one does.
+     */
+    public void lockAndCheck(Long memberId, int requested) {
+        check(lock(List.of(memberId)).get(memberId), requested);
+    }
+
+    /**
+     * Locks the standing rows of {@code memberIds} in id order. A missing row is created and then
+     * seeded from the member's open loans, so a member whose loans predate the row (or were written
+     * around {@link LoanService}) is not checked against zeros. Callers take these locks before
+     * locking or changing any of the members' loans.
+     */
+    public Map<Long, MemberStanding> lock(Collection<Long> memberIds) {
+        Set<Long> ids = new TreeSet<>(memberIds);
+        if (ids.isEmpty()) {
+            return Map.of();
+        }
+        Set<Long> missing = new TreeSet<>(ids);
+        missing.removeAll(dsl.select(MEMBER_ID)
+                .from(MEMBER_STANDING)
+                .where(MEMBER_ID.in(ids))
+                .fetch(MEMBER_ID));
+        var insert = dsl.insertInto(MEMBER_STANDING, MEMBER_ID);
+        for (Long id : ids) {
+            insert = insert.values(id);
+        }
+        // ON DUPLICATE KEY UPDATE takes the exclusive lock directly; INSERT IGNORE would take a shared
+        // one and two borrowers upgrading it could deadlock
+        insert.onDuplicateKeyUpdate()
+                .set(MEMBER_ID, MEMBER_ID)
+                .execute();
+        Map<Long, MemberStanding> locked = new HashMap<>();
+        dsl.select(MEMBER_ID, OPEN_LOANS, EARLIEST_DUE, OUTSTANDING_FINE)
+                .from(MEMBER_STANDING)
+                .where(MEMBER_ID.in(ids))
+                .orderBy(MEMBER_ID)
+                .forUpdate()
+                .forEach(r -> locked.put(r.value1(), new MemberStanding(r.value2(), r.value3(), r.value4())));
+        if (!missing.isEmpty()) {
+            // the rows are ours now, so reading the members' loans keeps the lock order
+            locked.putAll(recompute(missing));
+        }
+        return locked;
+    }
+
+    /**
+     * Recomputes the standing of members whose rows this transaction already holds from their open
+     * loans. Returns the new standing per member.
+     */
+    public Map<Long, MemberStanding> recompute(Collection<Long> memberIds) {
+        Set<Long> ids = new TreeSet<>(memberIds);
+        if (ids.isEmpty()) {
+            return Map.of();
+        }
+        LocalDateTime now = LocalDateTime.now();
+        Map<Long, MemberStanding> computed = new HashMap<>();
+        dsl.select(LOAN.MEMBER_ID, DSL.count(), DSL.min(LOAN.DUE_DATE), DSL.sum(FinePolicy.accruedFine(now)))
+                .from(LOAN)
+                .where(LOAN.MEMBER_ID.in(ids).and(LOAN.RETURN_DATE.isNull()))
+                .groupBy(LOAN.MEMBER_ID)
+                .forShare()
+                .forEach(r -> computed.put(r.value1(), new MemberStanding(r.value2(), r.value3(), r.value4())));
+
+        var upsert = dsl.insertInto(MEMBER_STANDING, MEMBER_ID, OPEN_LOANS, EARLIEST_DUE, OUTSTANDING_FINE, UPDATED_AT);
+        for (Long id : ids) {
+            MemberStanding s = computed.computeIfAbsent(id, k -> MemberStanding.NONE);
+            upsert = upsert.values(id, s.openLoans(), s.earliestDue(), s.outstandingFine(), now);
+        }
+        upsert.onDuplicateKeyUpdate()
+                .set(OPEN_LOANS, inserted(OPEN_LOANS))
+                .set(EARLIEST_DUE, inserted(EARLIEST_DUE))
+                .set(OUTSTANDING_FINE, inserted(OUTSTANDING_FINE))
+                .set(UPDATED_AT, inserted(UPDATED_AT))
+                .execute();
+        AfterCommit.run(() -> evict(ids));
+        return computed;
+    }
+
+    private synchronized void evict(Set<Long> ids) {
+        generation++;
+        ids.forEach(cache::remove);
+    }
+
+    /** Overdue loans or the loan limit refuse the borrow with {@link ConflictException} (409 on the API). */
+    private void check(MemberStanding standing, int requested) {
+        if (standing.hasOverdueLoans(LocalDateTime.now())) {
+            throw new ConflictException("Member has outstanding loans and cannot borrow more books");
+        }
+        if (maxLoans > 0 && standing.openLoans() + requested > maxLoans) {
+            throw new ConflictException("Member already has " + standing.openLoans()
+                    + " open loans; the limit is " + maxLoans);
+        }
+    }
+}
@@ -2,17 +2,37 @@
 package com.example.library.service;
 
 import com.example.library.config.MailConfig;
+import com.example.library.config.ReadReplica;
+import com.example.library.dto.NotificationDraft;
+import com.example.library.dto.NotificationKind;
 import com.example.library.jooq.tables.records.NotificationHistoryRecord;
 import com.example.library.jooq.tables.records.NotificationRecord;
+import org.jooq.CaseWhenStep;
+import org.jooq.Condition;
 import org.jooq.DSLContext;
+import org.jooq.Field;
 import org.jooq.Record;
+import org.jooq.Record5;
+import org.jooq.Result;
+import org.jooq.Row5;
+import org.jooq.Table;
+import org.jooq.impl.DSL;
+import org.springframework.beans.factory.annotation.Value;
 import org.springframework.mail.MailException;
 import org.springframework.mail.SimpleMailMessage;
 import org.springframework.mail.javamail.JavaMailSender;
 import org.springframework.stereotype.Service;
 import org.springframework.transaction.annotation.Transactional;
+import java.nio.charset.StandardCharsets;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.time.LocalDate;
 import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collection;
 import java.util.List;
+import java.util.Map;
 import java.util.UUID;
 import static com.example.library.jooq.tables.Notification.NOTIFICATION;
 import static com.example.library.jooq.tables.NotificationHistory.NOTIFICATION_HISTORY;
@@ -21,17 +41,69 @@ import static com.example.library.jooq.tables.NotificationHistory.NOTIFICATION_H
 public class NotificationService {
     private static final byte SUCCESS_FLAG = 1;
     private static final byte FAILURE_FLAG = 0;
+    private static final Field<byte[]> DEDUP_KEY = DSL.field(DSL.name("NOTIFICATION", "DEDUP_KEY"), byte[].class);
+    private static final Field<byte[]> HISTORY_DEDUP_KEY =
+            DSL.field(DSL.name("NOTIFICATION_HISTORY", "DEDUP_KEY"), byte[].class);
 
     private final DSLContext dsl;
     private final JavaMailSender mailSender;
     private final MailConfig mailConfig;
+    private final boolean skipLockedClaims;
 
-    public NotificationService(DSLContext dsl, JavaMailSender mailSender, MailConfig mailConfig) {
+    public NotificationService(DSLContext dsl, JavaMailSender mailSender, MailConfig mailConfig,
+                               @Value("${library.notifications.skip-locked-claims:true}") boolean skipLockedClaims) {
         this.dsl = dsl; this.mailSender = mailSender; this.mailConfig = mailConfig;
+        this.skipLockedClaims = skipLockedClaims;
     }
 
+    /**
+     * Claims up to {@code limit} notifications: unlocked ones whose last failed attempt is at least
+     * {@code retryDelaySec} old, and ones whose lock outlived {@code timeoutSec} (a crashed sender).
+     */
     @Transactional
-    public List<Record> claimBatch(String processId, int timeoutSec, int limit) {
+    public List<Record> claimBatch(String processId, int timeoutSec, int retryDelaySec, int limit) {
+        return skipLockedClaims
+                ? claimBatchSkipLocked(processId, timeoutSec, retryDelaySec, limit)
+                : claimBatchByUpdate(processId, timeoutSec, retryDelaySec, limit);
+    }
+
+    /** Unlocked and not attempted within the retry delay, so one run's failures wait for a later run. */
+    private static Condition dueForAttempt(LocalDateTime now, int retryDelaySec) {
+        return NOTIFICATION.LOCKED_AT.isNull()
+                .and(NOTIFICATION.LAST_ATTEMPT_AT.isNull()
+                        .or(NOTIFICATION.LAST_ATTEMPT_AT.lt(now.minusSeconds(retryDelaySec))));
+    }
+
+    private List<Record> claimBatchSkipLocked(String processId, int timeoutSec, int retryDelaySec, int limit) {
+        LocalDateTime now = LocalDateTime.now();
+        LocalDateTime expired = now.minusSeconds(timeoutSec);
+        Result<NotificationRecord> rows = dsl.selectFrom(NOTIFICATION)
+                .where(NOTIFICATION.RETRY_COUNT.lt(3)
+                        .and(dueForAttempt(now, retryDelaySec).or(NOTIFICATION.LOCKED_AT.lt(expired))))
+                .orderBy(NOTIFICATION.CREATED_AT.asc())
+                .limit(limit)
+                .forUpdate()
+                .skipLocked()
+                .fetch();
+        if (rows.isEmpty()) {
+            return List.of();
+        }
+        dsl.update(NOTIFICATION)
+           .set(NOTIFICATION.PROCESS_ID, processId)
+           .set(NOTIFICATION.LOCKED_AT, now)
+           .set(NOTIFICATION.RETRY_COUNT, NOTIFICATION.RETRY_COUNT.plus(1))
+           .where(NOTIFICATION.ID.in(rows.getValues(NOTIFICATION.ID))).execute();
+        List<Record> claimed = new ArrayList<>(rows.size());
+        for (NotificationRecord row : rows) {
+            row.setProcessId(processId);
+            row.setLockedAt(now);
+            row.setRetryCount(row.getRetryCount() + 1);
+            claimed.add(row);
+        }
+        return claimed;
+    }
+
+    private List<Record> claimBatchByUpdate(String processId, int timeoutSec, int retryDelaySec, int limit) {
         LocalDateTime now = LocalDateTime.now();
         LocalDateTime expired = now.minusSeconds(timeoutSec);
         dsl.update(NOTIFICATION)
@@ -44,47 +116,68 @@ public class NotificationService {
            .set(NOTIFICATION.PROCESS_ID, processId)
            .set(NOTIFICATION.LOCKED_AT, now)
            .set(NOTIFICATION.RETRY_COUNT, NOTIFICATION.RETRY_COUNT.plus(1))
-           .where(NOTIFICATION.LOCKED_AT.isNull().and(NOTIFICATION.RETRY_COUNT.lt(3)))
+           .where(dueForAttempt(now, retryDelaySec).and(NOTIFICATION.RETRY_COUNT.lt(3)))
            .limit(limit).execute();
         return dsl.select().from(NOTIFICATION).where(NOTIFICATION.PROCESS_ID.eq(processId))
                 .orderBy(NOTIFICATION.CREATED_AT.asc()).limit(limit).fetch();
     }
 
     @Transactional
-    public void markSuccessAndArchive(Record n) {
-        dsl.insertInto(NOTIFICATION_HISTORY)
-           .set(NOTIFICATION_HISTORY.MEMBER_ID, n.get(NOTIFICATION.MEMBER_ID))
-           .set(NOTIFICATION_HISTORY.EMAIL, n.get(NOTIFICATION.EMAIL))
-           .set(NOTIFICATION_HISTORY.SUBJECT, n.get(NOTIFICATION.SUBJECT))
-           .set(NOTIFICATION_HISTORY.BODY, n.get(NOTIFICATION.BODY))
-           .set(NOTIFICATION_HISTORY.SUCCESS, SUCCESS_FLAG)
-           .set(NOTIFICATION_HISTORY.ERROR_MESSAGE, (String) null)
-           .set(NOTIFICATION_HISTORY.CREATED_AT, n.get(NOTIFICATION.CREATED_AT))
-           .execute();
-        dsl.deleteFrom(NOTIFICATION).where(NOTIFICATION.ID.eq(n.get(NOTIFICATION.ID))).execute();
+    public int archiveSent(Collection<Long> ids) {
+        if (ids.isEmpty()) {
+            return 0;
+        }
+        int archived = archive(NOTIFICATION.ID.in(ids), SUCCESS_FLAG, DSL.inline(null, String.class));
+        dsl.deleteFrom(NOTIFICATION).where(NOTIFICATION.ID.in(ids)).execute();
+        return archived;
     }
 
     @Transactional
-    public void markFailureAndMaybeArchive(Record n, String error) {
-        int retry = n.get(NOTIFICATION.RETRY_COUNT);
+    public int recordFailures(Map<Long, String> errors) {
+        if (errors.isEmpty()) {
+            return 0;
+        }
+        CaseWhenStep<Long, String> lastError = null;
+        for (Map.Entry<Long, String> e : errors.entrySet()) {
+            Field<String> message = DSL.val(e.getValue(), String.class);
+            lastError = lastError == null
+                    ? DSL.case_(NOTIFICATION.ID).when(e.getKey(), message)
+                    : lastError.when(e.getKey(), message);
+        }
         dsl.update(NOTIFICATION)
-           .set(NOTIFICATION.LAST_ERROR, error)
+           .set(NOTIFICATION.LAST_ERROR, lastError.otherwise(NOTIFICATION.LAST_ERROR))
            .set(NOTIFICATION.LAST_ATTEMPT_AT, LocalDateTime.now())
            .set(NOTIFICATION.PROCESS_ID, (String) null)
            .set(NOTIFICATION.LOCKED_AT, (LocalDateTime) null)
-           .where(NOTIFICATION.ID.eq(n.get(NOTIFICATION.ID))).execute();
-        if (retry >= 3) {
-            dsl.insertInto(NOTIFICATION_HISTORY)
-               .set(NOTIFICATION_HISTORY.MEMBER_ID, n.get(NOTIFICATION.MEMBER_ID))
-               .set(NOTIFICATION_HISTORY.EMAIL, n.get(NOTIFICATION.EMAIL))
-               .set(NOTIFICATION_HISTORY.SUBJECT, n.get(NOTIFICATION.SUBJECT))
-               .set(NOTIFICATION_HISTORY.BODY, n.get(NOTIFICATION.BODY))
-               .set(NOTIFICATION_HISTORY.SUCCESS, FAILURE_FLAG)
-               .set(NOTIFICATION_HISTORY.ERROR_MESSAGE, error)
-               .set(NOTIFICATION_HISTORY.CREATED_AT, n.get(NOTIFICATION.CREATED_AT))
-               .execute();
-            dsl.deleteFrom(NOTIFICATION).where(NOTIFICATION.ID.eq(n.get(NOTIFICATION.ID))).execute();
-        }
+           .where(NOTIFICATION.ID.in(errors.keySet())).execute();
+        Condition exhausted = NOTIFICATION.ID.in(errors.keySet()).and(NOTIFICATION.RETRY_COUNT.ge(3));
+        int archived = archive(exhausted, FAILURE_FLAG, NOTIFICATION.LAST_ERROR);
+        dsl.deleteFrom(NOTIFICATION).where(exhausted).execute();
+        return archived;
+    }
+
+    private int archive(Condition condition, byte successFlag, Field<String> errorMessage) {
+        return dsl.insertInto(NOTIFICATION_HISTORY,
+                        NOTIFICATION_HISTORY.MEMBER_ID,
+                        NOTIFICATION_HISTORY.EMAIL,
+                        NOTIFICATION_HISTORY.SUBJECT,
+                        NOTIFICATION_HISTORY.BODY,
+                        NOTIFICATION_HISTORY.SUCCESS,
+                        NOTIFICATION_HISTORY.ERROR_MESSAGE,
+                        NOTIFICATION_HISTORY.CREATED_AT,
+                        HISTORY_DEDUP_KEY)
+                .select(dsl.select(
+                                NOTIFICATION.MEMBER_ID,
+                                NOTIFICATION.EMAIL,
+                                NOTIFICATION.SUBJECT,
+                                NOTIFICATION.BODY,
+                                DSL.inline(successFlag),
+                                errorMessage,
+                                NOTIFICATION.CREATED_AT,
+                                DEDUP_KEY)
+                        .from(NOTIFICATION)
+                        .where(condition))
+                .execute();
     }
 
     public void sendEmail(Record n) {
@@ -103,44 +196,80 @@ public class NotificationService {
 
     @Transactional
     public boolean queueNotification(Long memberId, String email, String subject, String body) {
-        if (email == null || email.isBlank() || subject == null || body == null) {
-            return false;
-        }
+        return queueNotifications(List.of(new NotificationDraft(memberId, email, subject, body))) > 0;
+    }
+
+    @Transactional
+    public boolean queueNotification(NotificationKind kind, Long loanId,
+                                     Long memberId, String email, String subject, String body) {
+        return queueNotifications(List.of(new NotificationDraft(memberId, email, subject, body, kind, loanId))) > 0;
+    }
+
+    /**
+     * Enqueues the drafts with one INSERT IGNORE ... SELECT. UK_NOTIFICATION_DEDUP rejects keys that
+     * are still pending and the NOT EXISTS probe on IX_NH_DEDUP rejects keys already archived.
+     */
+    @Transactional
+    public int queueNotifications(List<NotificationDraft> drafts) {
         LocalDateTime now = LocalDateTime.now();
-        LocalDateTime recent = now.minusHours(12);
-        boolean exists = dsl.fetchExists(
-                dsl.selectOne().from(NOTIFICATION)
-                        .where(NOTIFICATION.MEMBER_ID.eq(memberId)
-                                .and(NOTIFICATION.SUBJECT.eq(subject))
-                                .and(NOTIFICATION.CREATED_AT.gt(recent)))
-        );
-        if (!exists) {
-            exists = dsl.fetchExists(
-                    dsl.selectOne().from(NOTIFICATION_HISTORY)
-                            .where(NOTIFICATION_HISTORY.MEMBER_ID.eq(memberId)
-                                    .and(NOTIFICATION_HISTORY.SUBJECT.eq(subject))
-                                    .and(NOTIFICATION_HISTORY.CREATED_AT.gt(recent)))
-            );
+        List<Row5<Long, String, String, String, byte[]>> rows = new ArrayList<>(drafts.size());
+        for (NotificationDraft d : drafts) {
+            if (d.email() == null || d.email().isBlank() || d.subject() == null || d.body() == null) {
+                continue;
+            }
+            rows.add(DSL.row(d.memberId(), d.email(), d.subject(), d.body(), dedupKey(d, now.toLocalDate())));
         }
-        if (exists) {
-            return false;
+        if (rows.isEmpty()) {
+            return 0;
         }
-        dsl.insertInto(NOTIFICATION)
-                .set(NOTIFICATION.MEMBER_ID, memberId)
-                .set(NOTIFICATION.EMAIL, email)
-                .set(NOTIFICATION.SUBJECT, subject)
-                .set(NOTIFICATION.BODY, body)
-                .set(NOTIFICATION.CREATED_AT, now)
+        @SuppressWarnings("unchecked")
+        Row5<Long, String, String, String, byte[]>[] values =
+                rows.toArray((Row5<Long, String, String, String, byte[]>[]) new Row5<?, ?, ?, ?, ?>[0]);
+        Table<Record5<Long, String, String, String, byte[]>> incoming = DSL.values(values)
+                .as("incoming", "MEMBER_ID", "EMAIL", "SUBJECT", "BODY", "DEDUP_KEY");
+        Field<byte[]> incomingKey = incoming.field("DEDUP_KEY", byte[].class);
+        return dsl.insertInto(NOTIFICATION,
+                        NOTIFICATION.MEMBER_ID,
+                        NOTIFICATION.EMAIL,
+                        NOTIFICATION.SUBJECT,
+                        NOTIFICATION.BODY,
+                        NOTIFICATION.CREATED_AT,
+                        DEDUP_KEY)
+                .select(dsl.select(
+                                incoming.field("MEMBER_ID", Long.class),
+                                incoming.field("EMAIL", String.class),
+                                incoming.field("SUBJECT", String.class),
+                                incoming.field("BODY", String.class),
+                                DSL.val(now),
+                                incomingKey)
+                        .from(incoming)
+                        .whereNotExists(dsl.selectOne()
+                                .from(NOTIFICATION_HISTORY)
+                                .where(HISTORY_DEDUP_KEY.eq(incomingKey))))
+                .onDuplicateKeyIgnore()
                 .execute();
-        return true;
     }
 
+    static byte[] dedupKey(NotificationDraft draft, LocalDate day) {
+        String identity = draft.kind() == null
+                ? draft.memberId() + "|SUBJECT|" + draft.subject() + "|" + day
+                : draft.memberId() + "|" + draft.kind() + "|" + draft.loanId() + "|" + day;
+        try {
+            byte[] digest = MessageDigest.getInstance("SHA-256").digest(identity.getBytes(StandardCharsets.UTF_8));
+            return Arrays.copyOf(digest, 16);
+        } catch (NoSuchAlgorithmException e) {
+            throw new IllegalStateException("SHA-256 not available", e);
+        }
+    }
+
+    @ReadReplica
     public List<NotificationRecord> findPending() {
         return dsl.selectFrom(NOTIFICATION)
                 .orderBy(NOTIFICATION.CREATED_AT.desc())
                 .fetch();
     }
 
+    @ReadReplica
     public List<NotificationHistoryRecord> findRecentHistory(int limit) {
         return dsl.selectFrom(NOTIFICATION_HISTORY)
                 .orderBy(NOTIFICATION_HISTORY.CREATED_AT.desc())
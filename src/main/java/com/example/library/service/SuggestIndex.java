@@ -0,0 +1,158 @@
+package com.example.library.service;
+
+import com.example.library.util.AfterCommit;
+import com.example.library.util.JdbcStreaming;
+import com.example.library.util.PrefixIndex;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.function.Consumer;
+import org.jooq.Condition;
+import org.jooq.DSLContext;
+import org.jooq.impl.DSL;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.event.EventListener;
+import org.springframework.stereotype.Service;
+
+import static com.example.library.jooq.tables.Author.AUTHOR;
+import static com.example.library.jooq.tables.Book.BOOK;
+import static com.example.library.jooq.tables.Member.MEMBER;
+
+/**
+ * Typeahead keys for books (title, author name) and members (name, email, phone). Built once the
+ * application is ready and patched after commit by the owning services; until then callers fall
+ * back to an indexed {@code LIKE 'prefix%'}. A rebuild loads a new {@link PrefixIndex} and swaps it
+ * in, so lookups keep answering from the old one meanwhile; patches that arrive during the load
+ * are applied to the old index and replayed onto the new one.
+ */
+@Service
+public class SuggestIndex {
+    private static final Logger log = LoggerFactory.getLogger(SuggestIndex.class);
+
+    private final DSLContext dsl;
+    private final Slot books = new Slot();
+    private final Slot members = new Slot();
+    private volatile boolean ready;
+
+    public SuggestIndex(DSLContext dsl) {
+        this.dsl = dsl;
+    }
+
+    public boolean isReady() {
+        return ready;
+    }
+
+    @EventListener(ApplicationReadyEvent.class)
+    public void rebuild() {
+        long started = System.nanoTime();
+        books.rebuild(index -> loadBooks(index, DSL.trueCondition()));
+        members.rebuild(index -> loadMembers(index, DSL.trueCondition()));
+        ready = true;
+        log.info("Suggest index built: {} books, {} members in {} ms",
+                books.index.size(), members.index.size(), (System.nanoTime() - started) / 1_000_000);
+    }
+
+    /** Reloads the book keys only, e.g. after a bulk import; member lookups are untouched. */
+    public void rebuildBooks() {
+        long started = System.nanoTime();
+        books.rebuild(index -> loadBooks(index, DSL.trueCondition()));
+        log.info("Suggest index reloaded: {} books in {} ms",
+                books.index.size(), (System.nanoTime() - started) / 1_000_000);
+    }
+
+    public List<Long> books(String prefix, int limit) {
+        return books.index.search(prefix, limit);
+    }
+
+    public List<Long> members(String prefix, int limit) {
+        return members.index.search(prefix, limit);
+    }
+
+    public void refreshBook(Long bookId) {
+        AfterCommit.run(() -> books.patch(index -> loadBooks(index, BOOK.BOOK_ID.eq(bookId))));
+    }
+
+    public void refreshAuthor(Long authorId) {
+        AfterCommit.run(() -> books.patch(index -> loadBooks(index, BOOK.AUTHOR_ID.eq(authorId))));
+    }
+
+    public void removeBook(Long bookId) {
+        AfterCommit.run(() -> books.patch(index -> index.remove(bookId)));
+    }
+
+    public void refreshMember(Long memberId) {
+        AfterCommit.run(() -> members.patch(index -> loadMembers(index, MEMBER.MEMBER_ID.eq(memberId))));
+    }
+
+    public void removeMember(Long memberId) {
+        AfterCommit.run(() -> members.patch(index -> index.remove(memberId)));
+    }
+
+    private void loadBooks(PrefixIndex books, Condition condition) {
+        try (var cursor = dsl.select(BOOK.BOOK_ID, BOOK.TITLE, AUTHOR.NAME)
+                .from(BOOK)
+                .leftJoin(AUTHOR).on(BOOK.AUTHOR_ID.eq(AUTHOR.AUTHOR_ID))
+                .where(condition)
+                .fetchSize(JdbcStreaming.ROW_BY_ROW)
+                .fetchLazy()) {
+            cursor.forEach(r -> books.put(r.value1(), r.value2(), r.value3()));
+        }
+    }
+
+    private void loadMembers(PrefixIndex members, Condition condition) {
+        try (var cursor = dsl.select(MEMBER.MEMBER_ID, MEMBER.FULL_NAME, MEMBER.EMAIL, MEMBER.PHONE)
+                .from(MEMBER)
+                .where(condition)
+                .fetchSize(JdbcStreaming.ROW_BY_ROW)
+                .fetchLazy()) {
+            cursor.forEach(r -> members.put(r.value1(), r.value2(), r.value3(), r.value4()));
+        }
+    }
+
+    /**
+     * The live index plus the patches seen while a replacement is loading. Patches reload rows from
+     * the database or remove them, so replaying one that the load already reflects is harmless.
+     */
+    private static final class Slot {
+        private final Object rebuilding = new Object();
+        private volatile PrefixIndex index = new PrefixIndex();
+        private List<Consumer<PrefixIndex>> pending;
+
+        void patch(Consumer<PrefixIndex> change) {
+            PrefixIndex target;
+            synchronized (this) {
+                if (pending != null) {
+                    pending.add(change);
+                }
+                target = index;
+            }
+            change.accept(target);
+        }
+
+        void rebuild(Consumer<PrefixIndex> load) {
+            synchronized (rebuilding) {
+                synchronized (this) {
+                    pending = new ArrayList<>();
+                }
+                PrefixIndex fresh = new PrefixIndex();
+                List<Consumer<PrefixIndex>> missed;
+                boolean loaded = false;
+                try {
+                    load.accept(fresh);
+                    loaded = true;
+                } finally {
+                    // swap under the same lock that stops recording, so no patch falls between the two
+                    synchronized (this) {
+                        missed = pending;
+                        pending = null;
+                        if (loaded) {
+                            index = fresh;
+                        }
+                    }
+                }
+                missed.forEach(change -> change.accept(fresh));
+            }
+        }
+    }
+}
@@ -0,0 +1,13 @@
+package com.example.library.util;
+
+public final class JdbcStreaming {
+    private JdbcStreaming() {}
+
+    /**
+     * Fetch size that makes Connector/J stream a result set row by row instead of buffering all of it.
+     * Any other value is ignored without {@code useCursorFetch}, which is deliberately not set on the
+     * pool: it would turn every statement into a server-side prepared statement. The connection must
+     * not run another statement until the cursor is closed.
+     */
+    public static final int ROW_BY_ROW = Integer.MIN_VALUE;
+}
@@ -0,0 +1,65 @@
+package com.example.library.util;
+
+import java.util.ArrayList;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentSkipListMap;
+
+/**
+ * Sorted prefix index for typeahead. Each text is folded and stored once per word start, so
+ * "nhan" finds "Đắc Nhân Tâm"; a lookup is a binary descent to the prefix followed by an in-order
+ * scan that stops at the first key not starting with it or once {@code limit} ids are collected.
+ */
+public final class PrefixIndex {
+    private static final char ID_SEPARATOR = '\u0000';
+
+    private final ConcurrentSkipListMap<String, Long> entries = new ConcurrentSkipListMap<>();
+    private final Map<Long, List<String>> keysById = new ConcurrentHashMap<>();
+
+    public synchronized void put(long id, String... texts) {
+        remove(id);
+        List<String> keys = new ArrayList<>();
+        for (String text : texts) {
+            List<String> words = TextNormalizer.tokens(text);
+            for (int i = 0; i < words.size(); i++) {
+                keys.add(String.join(" ", words.subList(i, words.size())) + ID_SEPARATOR + id);
+            }
+        }
+        keys.forEach(key -> entries.put(key, id));
+        keysById.put(id, keys);
+    }
+
+    public synchronized void remove(long id) {
+        List<String> keys = keysById.remove(id);
+        if (keys != null) {
+            keys.forEach(entries::remove);
+        }
+    }
+
+    public synchronized void clear() {
+        entries.clear();
+        keysById.clear();
+    }
+
+    public int size() {
+        return keysById.size();
+    }
+
+    public List<Long> search(String prefix, int limit) {
+        String folded = String.join(" ", TextNormalizer.tokens(prefix));
+        if (folded.isEmpty() || limit <= 0) {
+            return List.of();
+        }
+        Set<Long> ids = new LinkedHashSet<>();
+        for (Map.Entry<String, Long> entry : entries.tailMap(folded, true).entrySet()) {
+            if (!entry.getKey().startsWith(folded) || ids.size() >= limit) {
+                break;
+            }
+            ids.add(entry.getValue());
+        }
+        return List.copyOf(ids);
+    }
+}
@@ -0,0 +1,53 @@
+package com.example.library.util;
+
+import java.nio.charset.StandardCharsets;
+import java.util.Base64;
+import org.jooq.Condition;
+import org.jooq.Field;
+
+/**
+ * Opaque continuation token for keyset pagination: the sort it was issued for,
+ * plus the sort key and id of the last row of the previous page.
+ */
+public record SeekCursor(String sort, String value, long id) {
+    private static final char NULL_MARKER = '~';
+    private static final char VALUE_MARKER = '=';
+
+    public String encode() {
+        String raw = sort + '\n' + id + '\n' + (value == null ? String.valueOf(NULL_MARKER) : VALUE_MARKER + value);
+        return Base64.getUrlEncoder().withoutPadding().encodeToString(raw.getBytes(StandardCharsets.UTF_8));
+    }
+
+    public static SeekCursor decode(String token) {
+        try {
+            String raw = new String(Base64.getUrlDecoder().decode(token.trim()), StandardCharsets.UTF_8);
+            String[] parts = raw.split("\n", 3);
+            if (parts.length != 3 || parts[2].isEmpty()) {
+                throw new IllegalArgumentException("Invalid cursor");
+            }
+            String value = parts[2].charAt(0) == NULL_MARKER ? null : parts[2].substring(1);
+            return new SeekCursor(parts[0], value, Long.parseLong(parts[1]));
+        } catch (IllegalArgumentException ex) {
+            throw new IllegalArgumentException("Invalid cursor", ex);
+        }
+    }
+
+    /**
+     * Rows strictly after ({@code lastValue}, {@code lastId}) for ORDER BY field, id in the given direction.
+     * MySQL sorts NULL first ascending and last descending, so NULL keys are handled explicitly.
+     */
+    public static <T> Condition after(Field<T> field, T lastValue, Field<Long> idField, long lastId, boolean desc) {
+        if (lastValue == null) {
+            return desc
+                    ? field.isNull().and(idField.lt(lastId))
+                    : field.isNull().and(idField.gt(lastId)).or(field.isNotNull());
+        }
+        if (desc) {
+            return field.lt(lastValue)
+                    .or(field.eq(lastValue).and(idField.lt(lastId)))
+                    .or(field.isNull());
+        }
+        return field.gt(lastValue)
+                .or(field.eq(lastValue).and(idField.gt(lastId)));
+    }
+}
@@ -0,0 +1,18 @@
+package com.example.library.util;
+
+import org.jooq.Field;
+import org.jooq.impl.DSL;
+
+public final class Upserts {
+    private Upserts() {}
+
+    /**
+     * The value a row of an {@code INSERT ... ON DUPLICATE KEY UPDATE} tried to insert into
+     * {@code column}, as MySQL's {@code VALUES(column)}. Use it instead of {@code DSL.excluded} for
+     * tables outside the generated schema: jOOQ only declares the {@code AS t} row alias that
+     * {@code excluded} refers to when it knows the table's columns.
+     */
+    public static <T> Field<T> inserted(Field<T> column) {
+        return DSL.field("values({0})", column.getDataType(), column.getUnqualifiedName());
+    }
+}
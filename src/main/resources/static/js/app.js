@@ -164,6 +164,138 @@
     });
   }
 
+  function addSuggestSelection(container, item) {
+    const name = container.dataset.suggestName;
+    if (container.querySelector(`input[name="${name}"][value="${item.id}"]`)) {
+      return;
+    }
+    const col = document.createElement('div');
+    col.className = 'col-md-6';
+    const wrapper = document.createElement('div');
+    wrapper.className = 'form-check border rounded-3 p-2 mb-2';
+    const checkbox = document.createElement('input');
+    checkbox.className = 'form-check-input';
+    checkbox.type = 'checkbox';
+    checkbox.name = name;
+    checkbox.value = item.id;
+    checkbox.id = `${name}__${item.id}`;
+    checkbox.checked = true;
+    const label = document.createElement('label');
+    label.className = 'form-check-label';
+    label.htmlFor = checkbox.id;
+    const title = document.createElement('strong');
+    title.textContent = item.label;
+    const detail = document.createElement('div');
+    detail.className = 'text-muted small';
+    detail.textContent = item.detail || '';
+    label.append(title, detail);
+    wrapper.append(checkbox, label);
+    col.appendChild(wrapper);
+    container.appendChild(col);
+  }
+
+  // Typeahead: [data-suggest] queries data-suggest-url as the user types; a pick either fills the
+  // [data-suggest-value] hidden input or is appended as a checked checkbox to data-suggest-target.
+  function setupSuggest() {
+    document.querySelectorAll('[data-suggest]').forEach(box => {
+      const input = box.querySelector('[data-suggest-input]');
+      const results = box.querySelector('[data-suggest-results]');
+      const valueInput = box.querySelector('[data-suggest-value]');
+      const target = box.dataset.suggestTarget ? document.querySelector(box.dataset.suggestTarget) : null;
+      const limit = Number(box.dataset.suggestLimit) || 10;
+      let timer = null;
+      let pending = null;
+      let items = [];
+
+      function close() {
+        results.classList.add('d-none');
+        results.replaceChildren();
+        items = [];
+      }
+
+      function choose(item) {
+        if (valueInput) {
+          valueInput.value = item.id;
+          input.value = item.label;
+        } else if (target) {
+          addSuggestSelection(target, item);
+          input.value = '';
+        }
+        close();
+      }
+
+      function render(found) {
+        results.replaceChildren();
+        items = found;
+        if (!found.length) {
+          close();
+          return;
+        }
+        found.forEach(item => {
+          const option = document.createElement('button');
+          option.type = 'button';
+          option.className = 'list-group-item list-group-item-action';
+          const label = document.createElement('div');
+          label.className = 'fw-semibold';
+          label.textContent = item.label;
+          const detail = document.createElement('div');
+          detail.className = 'text-muted small';
+          detail.textContent = item.detail || '';
+          option.append(label, detail);
+          option.addEventListener('click', () => choose(item));
+          results.appendChild(option);
+        });
+        results.classList.remove('d-none');
+      }
+
+      async function query() {
+        const q = input.value.trim();
+        if (!q) {
+          close();
+          return;
+        }
+        pending?.abort();
+        pending = new AbortController();
+        const url = new URL(box.dataset.suggestUrl, window.location.origin);
+        url.searchParams.set('q', q);
+        url.searchParams.set('limit', String(limit));
+        try {
+          const response = await fetch(url, { signal: pending.signal, headers: { Accept: 'application/json' } });
+          if (response.ok) {
+            render(await response.json());
+          }
+        } catch (err) {
+          if (err.name !== 'AbortError') {
+            close();
+          }
+        }
+      }
+
+      input.addEventListener('input', () => {
+        if (valueInput) {
+          valueInput.value = '';
+        }
+        clearTimeout(timer);
+        timer = setTimeout(query, 200);
+      });
+      input.addEventListener('keydown', event => {
+        if (event.key === 'Escape') {
+          close();
+        } else if (event.key === 'Enter') {
+          event.preventDefault();
+          if (items.length) {
+            choose(items[0]);
+          }
+        }
+      });
+      document.addEventListener('click', event => {
+        if (!box.contains(event.target)) {
+          close();
+        }
+      });
+    });
+  }
+
   function setupLazyTables() {
     document.querySelectorAll('[data-animate-row]').forEach((row, index) => {
       row.style.setProperty('--stagger', `${index * 25}ms`);
@@ -176,6 +308,7 @@
     setupConfirmations();
     setupFlashToast();
     setupDebouncedSearch();
+    setupSuggest();
     setupLazyTables();
   });
 
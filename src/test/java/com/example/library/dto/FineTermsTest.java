@@ -0,0 +1,52 @@
+package com.example.library.dto;
+
+import java.math.BigDecimal;
+import java.time.LocalDateTime;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.params.ParameterizedTest;
+import org.junit.jupiter.params.provider.CsvSource;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+/**
+ * Pins the Java fine arithmetic that {@code FinePolicy.accruedFine} mirrors in SQL; an empty cap
+ * means uncapped.
+ */
+class FineTermsTest {
+
+    @ParameterizedTest(name = "{0}/day, grace {1}, cap {2}: due {3}, at {4} -> {5}")
+    @CsvSource(delimiter = '|', value = {
+            // not late: returned before the due time, exactly at it, or long before it
+            "5000    | 0 |       | 2024-05-10T23:59:59 | 2024-05-10T12:00:00 | 0",
+            "5000    | 0 |       | 2024-05-10T23:59:59 | 2024-05-10T23:59:59 | 0",
+            "5000    | 0 | 20000 | 2024-05-10T23:59:59 | 2024-03-01T08:00:00 | 0",
+            // late on the due day itself counts as one started day
+            "5000    | 0 |       | 2024-05-10T12:00:00 | 2024-05-10T18:00:00 | 5000",
+            "5000    | 0 |       | 2024-05-10T23:59:59 | 2024-05-11T00:00:01 | 5000",
+            "5000    | 0 |       | 2024-05-10T23:59:59 | 2024-05-17T09:00:00 | 35000",
+            "5000    | 0 |       | 2024-12-31T23:59:59 | 2025-01-02T08:00:00 | 10000",
+            // grace days are free, the day after them is charged
+            "5000    | 2 |       | 2024-05-10T23:59:59 | 2024-05-12T09:00:00 | 0",
+            "5000    | 2 |       | 2024-05-10T23:59:59 | 2024-05-13T09:00:00 | 5000",
+            "5000    | 3 |       | 2024-05-10T12:00:00 | 2024-05-10T18:00:00 | 0",
+            // the cap bounds the total, not the daily rate
+            "5000    | 0 | 20000 | 2024-05-10T23:59:59 | 2024-05-13T09:00:00 | 15000",
+            "5000    | 0 | 20000 | 2024-05-10T23:59:59 | 2024-05-14T09:00:00 | 20000",
+            "5000    | 0 | 20000 | 2024-05-10T23:59:59 | 2024-06-30T09:00:00 | 20000",
+            "2500.50 | 1 | 10000 | 2024-05-10T23:59:59 | 2024-05-14T09:00:00 | 7501.50",
+            "2500.50 | 1 | 10000 | 2024-05-10T23:59:59 | 2024-05-16T09:00:00 | 10000",
+            "0       | 0 |       | 2024-05-10T23:59:59 | 2024-06-30T09:00:00 | 0"
+    })
+    void fineFor(BigDecimal rate, int graceDays, BigDecimal cap, LocalDateTime due, LocalDateTime at, BigDecimal expected) {
+        assertThat(new FineTerms(rate, graceDays, cap).fineFor(due, at)).isEqualByComparingTo(expected);
+    }
+
+    @Test
+    void missingDatesAccrueNothing() {
+        FineTerms terms = new FineTerms(BigDecimal.valueOf(5000), 0, null);
+        LocalDateTime due = LocalDateTime.of(2024, 5, 10, 23, 59, 59);
+
+        assertThat(terms.fineFor(null, due.plusDays(3))).isZero();
+        assertThat(terms.fineFor(due, null)).isZero();
+    }
+}
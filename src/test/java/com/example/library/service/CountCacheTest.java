@@ -0,0 +1,89 @@
+package com.example.library.service;
+
+import java.math.BigDecimal;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.function.LongSupplier;
+import org.junit.jupiter.api.Test;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+class CountCacheTest {
+    private static final String KEY = CountCache.key("dac", null, 3L);
+
+    private final AtomicInteger counts = new AtomicInteger();
+
+    @Test
+    void shortPageGivesTheExactTotalWithoutCounting() {
+        CountCache cache = new CountCache(60);
+
+        assertThat(cache.resolve(CountCache.BOOKS, KEY, 2, 20, 7, count(999)))
+                .isEqualTo(new CountCache.Count(47, false));
+        assertThat(counts).hasValue(0);
+    }
+
+    @Test
+    void fullPageCountsOnceThenServesTheCachedTotal() {
+        CountCache cache = new CountCache(60);
+
+        assertThat(cache.resolve(CountCache.BOOKS, KEY, 0, 20, 20, count(500)))
+                .isEqualTo(new CountCache.Count(500, false));
+        assertThat(cache.resolve(CountCache.BOOKS, KEY, 1, 20, 20, count(999)))
+                .isEqualTo(new CountCache.Count(500, true));
+        assertThat(counts).hasValue(1);
+    }
+
+    @Test
+    void cachedTotalNeverFallsBelowTheRowsAlreadySeen() {
+        CountCache cache = new CountCache(60);
+        cache.resolve(CountCache.BOOKS, KEY, 0, 20, 20, count(30));
+
+        assertThat(cache.resolve(CountCache.BOOKS, KEY, 3, 20, 20, count(999)))
+                .isEqualTo(new CountCache.Count(80, true));
+    }
+
+    @Test
+    void emptyPageBeyondTheFirstStillCounts() {
+        CountCache cache = new CountCache(60);
+
+        assertThat(cache.resolve(CountCache.BOOKS, KEY, 5, 20, 0, count(42)))
+                .isEqualTo(new CountCache.Count(42, false));
+        assertThat(counts).hasValue(1);
+    }
+
+    @Test
+    void invalidateDropsOnlyItsOwnScope() {
+        CountCache cache = new CountCache(60);
+        cache.resolve(CountCache.BOOKS, KEY, 0, 20, 20, count(500));
+        cache.resolve(CountCache.LOANS, KEY, 0, 20, 20, count(700));
+
+        cache.invalidate(CountCache.BOOKS);
+
+        assertThat(cache.resolve(CountCache.BOOKS, KEY, 0, 20, 20, count(501)).total()).isEqualTo(501);
+        assertThat(cache.resolve(CountCache.LOANS, KEY, 0, 20, 20, count(999)).total()).isEqualTo(700);
+        assertThat(counts).hasValue(3);
+    }
+
+    @Test
+    void zeroTtlDisablesCaching() {
+        CountCache cache = new CountCache(0);
+        cache.resolve(CountCache.BOOKS, KEY, 0, 20, 20, count(500));
+
+        assertThat(cache.resolve(CountCache.BOOKS, KEY, 0, 20, 20, count(501)))
+                .isEqualTo(new CountCache.Count(501, false));
+        assertThat(counts).hasValue(2);
+    }
+
+    @Test
+    void keyNormalisesTextAndDecimals() {
+        assertThat(CountCache.key(" Đắc NHÂN ", null, new BigDecimal("10.500"), 4L))
+                .isEqualTo(CountCache.key("đắc nhân", null, new BigDecimal("10.5"), 4L))
+                .isEqualTo("đắc nhân||10.5|4");
+    }
+
+    private LongSupplier count(long total) {
+        return () -> {
+            counts.incrementAndGet();
+            return total;
+        };
+    }
+}
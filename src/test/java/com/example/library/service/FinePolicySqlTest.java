@@ -0,0 +1,104 @@
+package com.example.library.service;
+
+import com.example.library.dto.FineTerms;
+import com.example.library.jooq.enums.LoanStatus;
+import java.math.BigDecimal;
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.List;
+import org.jooq.Field;
+import org.jooq.Record;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.condition.EnabledIfSystemProperty;
+
+import static com.example.library.jooq.tables.Loan.LOAN;
+import static org.assertj.core.api.Assertions.assertThat;
+
+/**
+ * {@link FinePolicy#accruedFine} evaluated by MySQL must agree with {@link FineTerms#fineFor} for
+ * every open loan, and return the settled FINE_AMOUNT once a loan is returned.
+ */
+@EnabledIfSystemProperty(named = "library.it.jdbc-url", matches = ".+")
+class FinePolicySqlTest extends MySqlIntegrationTest {
+    private static final LocalDateTime AT = LocalDateTime.of(2024, 5, 20, 9, 0);
+    private static final BigDecimal RATE = new BigDecimal("5000.00");
+
+    @Test
+    void accruedFineMatchesTheJavaArithmetic() {
+        long bookId = createBook("Fine book", createAuthor("Fine author"), createCategory("Fine category"), 1);
+        long memberId = createMember("Fine reader");
+
+        List<FineTerms> terms = List.of(
+                new FineTerms(RATE, 0, null),
+                new FineTerms(RATE, 2, null),
+                new FineTerms(RATE, 0, new BigDecimal("20000.00")),
+                new FineTerms(new BigDecimal("2500.50"), 1, new BigDecimal("10000.00")));
+        List<LocalDateTime> dues = List.of(
+                AT.plusDays(3),
+                AT,
+                AT.minusHours(2),
+                AT.toLocalDate().minusDays(1).atTime(23, 59, 59),
+                AT.toLocalDate().minusDays(2).atTime(23, 59, 59),
+                AT.toLocalDate().minusDays(3).atTime(23, 59, 59),
+                AT.minusDays(4),
+                AT.minusDays(10),
+                AT.minusDays(45));
+        List<Long> loanIds = new ArrayList<>();
+        for (FineTerms t : terms) {
+            for (LocalDateTime due : dues) {
+                loanIds.add(insertLoan(bookId, memberId, due, null, BigDecimal.ZERO, t));
+            }
+        }
+
+        Field<BigDecimal> accrued = FinePolicy.accruedFine(AT).as("ACCRUED");
+        List<Record> rows = dsl.select(LOAN.DUE_DATE, accrued)
+                .select(FinePolicy.TERM_FIELDS)
+                .from(LOAN)
+                .where(LOAN.LOAN_ID.in(loanIds))
+                .fetch();
+
+        assertThat(rows).hasSize(terms.size() * dues.size());
+        for (Record row : rows) {
+            BigDecimal expected = FinePolicy.termsOf(row).fineFor(row.get(LOAN.DUE_DATE), AT);
+            assertThat(row.get(accrued))
+                    .as("terms %s, due %s", FinePolicy.termsOf(row), row.get(LOAN.DUE_DATE))
+                    .isEqualByComparingTo(expected);
+        }
+    }
+
+    @Test
+    void returnedLoanKeepsItsSettledFine() {
+        long bookId = createBook("Settled book", createAuthor("Settled author"), createCategory("Settled category"), 1);
+        long memberId = createMember("Settled reader");
+        BigDecimal settled = new BigDecimal("12345.00");
+        long loanId = insertLoan(bookId, memberId, AT.minusDays(30), AT.minusDays(20), settled,
+                new FineTerms(RATE, 0, null));
+
+        BigDecimal accrued = dsl.select(FinePolicy.accruedFine(AT))
+                .from(LOAN)
+                .where(LOAN.LOAN_ID.eq(loanId))
+                .fetchOne(0, BigDecimal.class);
+
+        assertThat(accrued).isEqualByComparingTo(settled);
+    }
+
+    private long insertLoan(long bookId, long memberId, LocalDateTime due, LocalDateTime returned,
+                            BigDecimal fineAmount, FineTerms terms) {
+        return dsl.insertInto(LOAN,
+                        LOAN.BOOK_ID,
+                        LOAN.MEMBER_ID,
+                        LOAN.BORROW_DATE,
+                        LOAN.DUE_DATE,
+                        LOAN.RETURN_DATE,
+                        LOAN.STATUS,
+                        LOAN.FINE_AMOUNT,
+                        FinePolicy.FINE_RATE,
+                        FinePolicy.FINE_GRACE_DAYS,
+                        FinePolicy.FINE_CAP)
+                .values(bookId, memberId, due.minusDays(14), due, returned,
+                        returned == null ? LoanStatus.BORROWED : LoanStatus.RETURNED, fineAmount,
+                        terms.dailyRate(), terms.graceDays(), terms.cap())
+                .returningResult(LOAN.LOAN_ID)
+                .fetchOne(LOAN.LOAN_ID);
+    }
+}
@@ -0,0 +1,56 @@
+package com.example.library.service;
+
+import com.example.library.dto.ChartDataPoint;
+import java.math.BigDecimal;
+import java.time.LocalDate;
+import java.util.List;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.condition.EnabledIfSystemProperty;
+import org.springframework.beans.factory.annotation.Autowired;
+
+import static com.example.library.service.LoanDailyStatsService.BORROWED;
+import static com.example.library.service.LoanDailyStatsService.FINES;
+import static com.example.library.service.LoanDailyStatsService.LOAN_DAILY_STATS;
+import static com.example.library.service.LoanDailyStatsService.RETURNED;
+import static com.example.library.service.LoanDailyStatsService.STAT_BOOK_ID;
+import static com.example.library.service.LoanDailyStatsService.STAT_DATE;
+import static com.example.library.service.LoanDailyStatsService.UNRETURNED;
+import static org.assertj.core.api.Assertions.assertThat;
+
+/**
+ * Dashboard chart queries over LOAN_DAILY_STATS, joined to BOOK and CATEGORY, against MySQL: a
+ * checkout reaches the rollup once it commits, and rows older than the chart window are left out.
+ */
+@EnabledIfSystemProperty(named = "library.it.jdbc-url", matches = ".+")
+class LoanChartQueriesTest extends MySqlIntegrationTest {
+    private static final int DAYS = 30;
+
+    @Autowired
+    private LoanService loanService;
+
+    private long bookId;
+    private long memberId;
+
+    @BeforeEach
+    void createBook() {
+        bookId = createBook("Chart book", createAuthor("Chart author"), createCategory("Chart category"), 2);
+        memberId = createMember("Chart reader");
+    }
+
+    @Test
+    void chartsCountCommittedBorrowsWithinTheWindow() {
+        // outside the window: must not be counted
+        dsl.insertInto(LOAN_DAILY_STATS, STAT_DATE, STAT_BOOK_ID, BORROWED, RETURNED, UNRETURNED, FINES)
+                .values(LocalDate.now().minusDays(DAYS + 5L), bookId, 5, 0, 0, BigDecimal.ZERO)
+                .execute();
+
+        LocalDate today = LocalDate.now();
+        loanService.borrow(memberId, List.of(bookId), today, today.plusDays(14));
+
+        assertThat(loanService.topBorrowedBooks(Integer.MAX_VALUE, DAYS))
+                .contains(new ChartDataPoint("Chart book " + suffix, 1));
+        assertThat(loanService.borrowByCategory(DAYS))
+                .contains(new ChartDataPoint("Chart category " + suffix, 1));
+    }
+}
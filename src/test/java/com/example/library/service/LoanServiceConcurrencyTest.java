@@ -0,0 +1,74 @@
+package com.example.library.service;
+
+import com.example.library.exception.ConflictException;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.condition.EnabledIfSystemProperty;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.test.context.TestPropertySource;
+
+import static com.example.library.jooq.tables.Book.BOOK;
+import static com.example.library.jooq.tables.Loan.LOAN;
+import static org.assertj.core.api.Assertions.assertThat;
+
+/** Many members race for the last copy of a book in optimistic reservation mode. */
+@TestPropertySource(properties = "library.borrow.reservation-mode=optimistic")
+@EnabledIfSystemProperty(named = "library.it.jdbc-url", matches = ".+")
+class LoanServiceConcurrencyTest extends MySqlIntegrationTest {
+    private static final int BORROWERS = 16;
+
+    @Autowired
+    private LoanService loanService;
+
+    private long bookId;
+    private final List<Long> memberIds = new ArrayList<>();
+
+    @BeforeEach
+    void createLastCopy() {
+        bookId = createBook("Last copy", createAuthor("Concurrency author"), createCategory("Concurrency category"), 1);
+        for (int i = 0; i < BORROWERS; i++) {
+            memberIds.add(createMember("Borrower " + i));
+        }
+    }
+
+    @Test
+    void concurrentBorrowersOfTheLastCopyCreateExactlyOneLoan() throws Exception {
+        ExecutorService pool = Executors.newFixedThreadPool(BORROWERS);
+        CountDownLatch start = new CountDownLatch(1);
+        List<Future<Boolean>> attempts = new ArrayList<>();
+        try {
+            for (Long memberId : memberIds) {
+                attempts.add(pool.submit(() -> {
+                    start.await();
+                    try {
+                        loanService.borrow(memberId, List.of(bookId), null, null);
+                        return true;
+                    } catch (ConflictException ex) {
+                        return false;
+                    }
+                }));
+            }
+            start.countDown();
+            int borrowed = 0;
+            for (Future<Boolean> attempt : attempts) {
+                if (attempt.get(30, TimeUnit.SECONDS)) {
+                    borrowed++;
+                }
+            }
+            assertThat(borrowed).isEqualTo(1);
+        } finally {
+            pool.shutdownNow();
+        }
+
+        Integer stock = dsl.select(BOOK.STOCK).from(BOOK).where(BOOK.BOOK_ID.eq(bookId)).fetchOne(BOOK.STOCK);
+        assertThat(stock).isZero();
+        assertThat(dsl.fetchCount(LOAN, LOAN.BOOK_ID.eq(bookId))).isEqualTo(1);
+    }
+}
@@ -0,0 +1,101 @@
+package com.example.library.service;
+
+import com.example.library.jooq.enums.BookStatus;
+import java.util.ArrayList;
+import java.util.List;
+import org.jooq.DSLContext;
+import org.jooq.impl.DSL;
+import org.junit.jupiter.api.AfterEach;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.boot.test.mock.mockito.MockBean;
+import org.springframework.mail.javamail.JavaMailSender;
+import org.springframework.test.context.DynamicPropertyRegistry;
+import org.springframework.test.context.DynamicPropertySource;
+
+import static com.example.library.jooq.tables.Author.AUTHOR;
+import static com.example.library.jooq.tables.Book.BOOK;
+import static com.example.library.jooq.tables.Category.CATEGORY;
+import static com.example.library.jooq.tables.Loan.LOAN;
+import static com.example.library.jooq.tables.Member.MEMBER;
+import static com.example.library.service.LoanDailyStatsService.LOAN_DAILY_STATS;
+import static com.example.library.service.LoanDailyStatsService.STAT_BOOK_ID;
+
+/**
+ * Shared setup for tests against a real MySQL schema with every migration in {@code sql/} applied:
+ * {@code mvn test -Dlibrary.it.jdbc-url=jdbc:mysql://localhost:3306/booksdb_test -Dlibrary.it.password=...}.
+ * Subclasses repeat {@code @EnabledIfSystemProperty(named = "library.it.jdbc-url", matches = ".+")},
+ * which JUnit does not inherit. Rows made through the {@code create*} helpers carry a per-test suffix
+ * and are deleted after each test together with their loans, daily stats and standings.
+ */
+@SpringBootTest(properties = "library.scheduling.enabled=false")
+abstract class MySqlIntegrationTest {
+    @MockBean
+    protected JavaMailSender mailSender;
+
+    @Autowired
+    protected DSLContext dsl;
+
+    protected final String suffix = Long.toString(System.nanoTime());
+
+    private final List<Long> authorIds = new ArrayList<>();
+    private final List<Long> categoryIds = new ArrayList<>();
+    private final List<Long> bookIds = new ArrayList<>();
+    private final List<Long> memberIds = new ArrayList<>();
+
+    @DynamicPropertySource
+    static void database(DynamicPropertyRegistry registry) {
+        registry.add("spring.datasource.url", () -> System.getProperty("library.it.jdbc-url"));
+        registry.add("spring.datasource.username", () -> System.getProperty("library.it.user", "root"));
+        registry.add("spring.datasource.password", () -> System.getProperty("library.it.password", ""));
+    }
+
+    protected long createAuthor(String name) {
+        long id = dsl.insertInto(AUTHOR).set(AUTHOR.NAME, name + " " + suffix)
+                .returningResult(AUTHOR.AUTHOR_ID).fetchOne(AUTHOR.AUTHOR_ID);
+        authorIds.add(id);
+        return id;
+    }
+
+    protected long createCategory(String name) {
+        long id = dsl.insertInto(CATEGORY).set(CATEGORY.NAME, name + " " + suffix)
+                .returningResult(CATEGORY.CATEGORY_ID).fetchOne(CATEGORY.CATEGORY_ID);
+        categoryIds.add(id);
+        return id;
+    }
+
+    protected long createBook(String title, long authorId, long categoryId, int stock) {
+        long id = dsl.insertInto(BOOK)
+                .set(BOOK.TITLE, title + " " + suffix)
+                .set(BOOK.AUTHOR_ID, authorId)
+                .set(BOOK.CATEGORY_ID, categoryId)
+                .set(BOOK.STOCK, stock)
+                .set(BOOK.STATUS, BookStatus.AVAILABLE)
+                .returningResult(BOOK.BOOK_ID)
+                .fetchOne(BOOK.BOOK_ID);
+        bookIds.add(id);
+        return id;
+    }
+
+    protected long createMember(String name) {
+        long id = dsl.insertInto(MEMBER)
+                .set(MEMBER.FULL_NAME, name)
+                .set(MEMBER.EMAIL, "member-" + memberIds.size() + "-" + suffix + "@example.test")
+                .returningResult(MEMBER.MEMBER_ID)
+                .fetchOne(MEMBER.MEMBER_ID);
+        memberIds.add(id);
+        return id;
+    }
+
+    @AfterEach
+    void deleteCreatedRows() {
+        dsl.deleteFrom(LOAN).where(LOAN.BOOK_ID.in(bookIds).or(LOAN.MEMBER_ID.in(memberIds))).execute();
+        dsl.deleteFrom(LOAN_DAILY_STATS).where(STAT_BOOK_ID.in(bookIds)).execute();
+        // MEMBER_STANDING references MEMBER, so standings go first
+        dsl.deleteFrom(DSL.table("MEMBER_STANDING")).where(DSL.field("MEMBER_ID", Long.class).in(memberIds)).execute();
+        dsl.deleteFrom(MEMBER).where(MEMBER.MEMBER_ID.in(memberIds)).execute();
+        dsl.deleteFrom(BOOK).where(BOOK.BOOK_ID.in(bookIds)).execute();
+        dsl.deleteFrom(AUTHOR).where(AUTHOR.AUTHOR_ID.in(authorIds)).execute();
+        dsl.deleteFrom(CATEGORY).where(CATEGORY.CATEGORY_ID.in(categoryIds)).execute();
+    }
+}
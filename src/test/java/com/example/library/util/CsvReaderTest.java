@@ -0,0 +1,66 @@
+package com.example.library.util;
+
+import java.io.IOException;
+import java.io.StringReader;
+import java.util.ArrayList;
+import java.util.List;
+import org.junit.jupiter.api.Test;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+
+class CsvReaderTest {
+
+    @Test
+    void readsPlainAndQuotedFields() throws IOException {
+        List<List<String>> records = readAll("title,price\n\"Sách, tập 1\",\"Nói \"\"xin chào\"\"\"\n");
+
+        assertThat(records).containsExactly(
+                List.of("title", "price"),
+                List.of("Sách, tập 1", "Nói \"xin chào\""));
+    }
+
+    @Test
+    void keepsLineBreaksInsideQuotesAndTracksTheStartLine() throws IOException {
+        CsvReader reader = new CsvReader(new StringReader("a,b\n\"line 1\nline 2\",x\nlast,y\n"));
+
+        reader.next();
+        assertThat(reader.next()).containsExactly("line 1\nline 2", "x");
+        assertThat(reader.recordLine()).isEqualTo(2);
+        assertThat(reader.next()).containsExactly("last", "y");
+        assertThat(reader.recordLine()).isEqualTo(4);
+        assertThat(reader.next()).isNull();
+    }
+
+    @Test
+    void stripsCarriageReturnsAndReadsALastLineWithoutNewline() throws IOException {
+        assertThat(readAll("a,b\r\nc,d")).containsExactly(List.of("a", "b"), List.of("c", "d"));
+    }
+
+    @Test
+    void keepsEmptyFields() throws IOException {
+        assertThat(readAll(",x,\n")).containsExactly(List.of("", "x", ""));
+    }
+
+    @Test
+    void returnsNullForEmptyInput() throws IOException {
+        assertThat(new CsvReader(new StringReader("")).next()).isNull();
+    }
+
+    @Test
+    void rejectsAnUnterminatedQuote() throws IOException {
+        CsvReader reader = new CsvReader(new StringReader("ok\n\"never closed,1\n"));
+        reader.next();
+
+        assertThatThrownBy(reader::next).isInstanceOf(IOException.class).hasMessageContaining("line 2");
+    }
+
+    private static List<List<String>> readAll(String csv) throws IOException {
+        CsvReader reader = new CsvReader(new StringReader(csv));
+        List<List<String>> records = new ArrayList<>();
+        for (List<String> record = reader.next(); record != null; record = reader.next()) {
+            records.add(record);
+        }
+        return records;
+    }
+}
@@ -0,0 +1,52 @@
+package com.example.library.util;
+
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.io.StringReader;
+import java.math.BigDecimal;
+import java.nio.charset.StandardCharsets;
+import java.util.List;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.params.ParameterizedTest;
+import org.junit.jupiter.params.provider.CsvSource;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+class CsvWriterTest {
+
+    @ParameterizedTest
+    @CsvSource(delimiter = '|', quoteCharacter = '\'', value = {
+            "plain          | plain",
+            "a,b            | '\"a,b\"'",
+            "say \"hi\"     | '\"say \"\"hi\"\"\"'"
+    })
+    void quotesOnlyWhenNeeded(String value, String expected) {
+        assertThat(CsvWriter.escape(value)).isEqualTo(expected);
+    }
+
+    @Test
+    void quotesLineBreaksAndWritesNullAsEmpty() {
+        assertThat(CsvWriter.escape("a\nb")).isEqualTo("\"a\nb\"");
+        assertThat(CsvWriter.escape("a\rb")).isEqualTo("\"a\rb\"");
+        assertThat(CsvWriter.escape(null)).isEmpty();
+    }
+
+    @Test
+    void writesUtf8RowsThatCsvReaderReadsBack() throws IOException {
+        ByteArrayOutputStream bytes = new ByteArrayOutputStream();
+        CsvWriter writer = new CsvWriter(bytes);
+        writer.row("title", "price", "note");
+        writer.row("Đắc Nhân Tâm, bản mới", new BigDecimal("86000.00"), null);
+        writer.row(42L, "dòng 1\ndòng \"2\"", "");
+        writer.flush();
+
+        String csv = bytes.toString(StandardCharsets.UTF_8);
+        assertThat(csv).startsWith("title,price,note\n\"Đắc Nhân Tâm, bản mới\",86000.00,\n");
+
+        CsvReader reader = new CsvReader(new StringReader(csv));
+        assertThat(reader.next()).containsExactly("title", "price", "note");
+        assertThat(reader.next()).isEqualTo(List.of("Đắc Nhân Tâm, bản mới", "86000.00", ""));
+        assertThat(reader.next()).isEqualTo(List.of("42", "dòng 1\ndòng \"2\"", ""));
+        assertThat(reader.next()).isNull();
+    }
+}
@@ -0,0 +1,68 @@
+package com.example.library.util;
+
+import org.junit.jupiter.api.Test;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+class PrefixIndexTest {
+
+    @Test
+    void matchesThePrefixOfAnyWordStart() {
+        PrefixIndex index = new PrefixIndex();
+        index.put(1, "Đắc Nhân Tâm", "Dale Carnegie");
+        index.put(2, "Nhà giả kim", "Paulo Coelho");
+
+        assertThat(index.search("dac", 10)).containsExactly(1L);
+        assertThat(index.search("nhan", 10)).containsExactly(1L);
+        assertThat(index.search("Nhân t", 10)).containsExactly(1L);
+        assertThat(index.search("carn", 10)).containsExactly(1L);
+        assertThat(index.search("nh", 10)).containsExactlyInAnyOrder(1L, 2L);
+    }
+
+    @Test
+    void doesNotMatchInsideAWord() {
+        PrefixIndex index = new PrefixIndex();
+        index.put(1, "Đắc Nhân Tâm");
+
+        assertThat(index.search("han", 10)).isEmpty();
+        assertThat(index.search("nhan dac", 10)).isEmpty();
+    }
+
+    @Test
+    void returnsEachIdOnceAndStopsAtTheLimit() {
+        PrefixIndex index = new PrefixIndex();
+        index.put(1, "Minh Anh", "minh.anh@example.com", "0901");
+        index.put(2, "Minh Châu");
+        index.put(3, "Minh Đức");
+
+        assertThat(index.search("minh", 10)).containsExactlyInAnyOrder(1L, 2L, 3L);
+        assertThat(index.search("minh", 2)).hasSize(2);
+        assertThat(index.search("minh", 0)).isEmpty();
+        assertThat(index.search("  ", 10)).isEmpty();
+    }
+
+    @Test
+    void putReplacesTheKeysOfAnExistingId() {
+        PrefixIndex index = new PrefixIndex();
+        index.put(1, "Old title");
+        index.put(1, "New title");
+
+        assertThat(index.search("old", 10)).isEmpty();
+        assertThat(index.search("new", 10)).containsExactly(1L);
+        assertThat(index.size()).isEqualTo(1);
+    }
+
+    @Test
+    void removeAndClearDropKeys() {
+        PrefixIndex index = new PrefixIndex();
+        index.put(1, "Dòng sông");
+        index.put(2, "Dữ liệu");
+
+        index.remove(1);
+        assertThat(index.search("d", 10)).containsExactly(2L);
+
+        index.clear();
+        assertThat(index.search("d", 10)).isEmpty();
+        assertThat(index.size()).isZero();
+    }
+}
@@ -0,0 +1,60 @@
+package com.example.library.util;
+
+import java.nio.charset.StandardCharsets;
+import java.util.Base64;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.params.ParameterizedTest;
+import org.junit.jupiter.params.provider.ValueSource;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+
+class SeekCursorTest {
+
+    @Test
+    void roundTripsSortValueAndId() {
+        SeekCursor cursor = new SeekCursor("price,desc", "125000.00", 42L);
+
+        assertThat(SeekCursor.decode(cursor.encode())).isEqualTo(cursor);
+    }
+
+    @Test
+    void keepsNullApartFromEmptyValue() {
+        SeekCursor nullValue = new SeekCursor("title", null, 7L);
+        SeekCursor emptyValue = new SeekCursor("title", "", 7L);
+
+        assertThat(SeekCursor.decode(nullValue.encode())).isEqualTo(nullValue);
+        assertThat(SeekCursor.decode(emptyValue.encode())).isEqualTo(emptyValue);
+        assertThat(nullValue.encode()).isNotEqualTo(emptyValue.encode());
+    }
+
+    @Test
+    void valueMayContainSeparatorsAndDiacritics() {
+        SeekCursor cursor = new SeekCursor("title", "Đắc Nhân Tâm\n~=tập 2", 9L);
+
+        assertThat(SeekCursor.decode(cursor.encode())).isEqualTo(cursor);
+    }
+
+    @Test
+    void tokenIsUrlSafe() {
+        String token = new SeekCursor("title", "??>>~~", Long.MAX_VALUE).encode();
+
+        assertThat(token).matches("[A-Za-z0-9_-]+");
+    }
+
+    @ParameterizedTest
+    @ValueSource(strings = {"not base64!", "", "dGl0bGU", "dGl0bGUKYWJjCj1Y"})
+    void rejectsMalformedTokens(String token) {
+        assertThatThrownBy(() -> SeekCursor.decode(token))
+                .isInstanceOf(IllegalArgumentException.class)
+                .hasMessage("Invalid cursor");
+    }
+
+    @Test
+    void rejectsTokenWithoutValue() {
+        String token = Base64.getUrlEncoder().withoutPadding()
+                .encodeToString("title\n5\n".getBytes(StandardCharsets.UTF_8));
+
+        assertThatThrownBy(() -> SeekCursor.decode(token)).isInstanceOf(IllegalArgumentException.class);
+    }
+}
@@ -0,0 +1,35 @@
+package com.example.library.util;
+
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.params.ParameterizedTest;
+import org.junit.jupiter.params.provider.CsvSource;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+class TextNormalizerTest {
+
+    @ParameterizedTest
+    @CsvSource(delimiter = '|', value = {
+            "Đắc Nhân Tâm        | dac nhan tam",
+            "NGUYỄN Thị Hương    | nguyen thi huong",
+            "Hồ Chí Minh         | ho chi minh",
+            "Ánh sáng, Dòng sông | anh sang, dong song",
+            "Café crème          | cafe creme",
+            "ISBN 978-604        | isbn 978-604"
+    })
+    void foldsCaseAndDiacritics(String text, String folded) {
+        assertThat(TextNormalizer.fold(text)).isEqualTo(folded);
+    }
+
+    @Test
+    void foldsNullToEmpty() {
+        assertThat(TextNormalizer.fold(null)).isEmpty();
+        assertThat(TextNormalizer.tokens(null)).isEmpty();
+    }
+
+    @Test
+    void tokensSplitOnAnythingButLettersAndDigits() {
+        assertThat(TextNormalizer.tokens("  Hà-Nội, năm 2024!  ")).containsExactly("ha", "noi", "nam", "2024");
+        assertThat(TextNormalizer.tokens("--- ,,, ")).isEmpty();
+    }
+}